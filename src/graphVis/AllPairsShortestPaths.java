@@ -0,0 +1,313 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * finds the shortest distance between every pair of vertexes of an IntGraph.
+ * Sparse graphs run dijkstras algorithm from every vertex, with the sources
+ * split between the cores. Dense graphs run the floyd warshall algorithm on
+ * square blocks of the matrix that fit in the cache, and the blocks that do
+ * not depend on each other are also split between the cores.
+ *
+ * Weights can be negative. Floyd warshall does not mind them. Before dijkstras
+ * algorithm runs, one bellman ford search finds a potential for each vertex,
+ * and each weight is shifted by the potentials of its ends so that none are
+ * negative, as in johnsons algorithm. If there is a negative cycle, there are
+ * no shortest distances.
+ *
+ * The rows and columns of the matrix are the ids of the vertexes, which can be
+ * found with IntGraph.indexOf.
+ *
+ * @author joe caffarini
+ */
+public class AllPairsShortestPaths {
+
+	// the width of a floyd warshall block, 64 by 64 doubles is 32 kB:
+	private final static int BLOCK = 64;
+	// graphs with more than this fraction of all possible edges are dense:
+	private final static double DENSE = 0.125;
+
+	/**
+	 * finds every shortest distance, choosing the algorithm from the density of the
+	 * graph.
+	 *
+	 * @param g - the graph, which is frozen if it was not already.
+	 * @return the distances, stored as doubles, or null if the graph has a
+	 *         negative cycle.
+	 */
+	public static DistanceMatrix compute(IntGraph<?> g) {
+		DistanceMatrix out = DistanceMatrix.ofDoubles(g.idCount());
+		if (!compute(g, out)) {
+			return null;
+		}
+		return out;
+	}
+
+	/**
+	 * finds every shortest distance and stores them in the given matrix. Floyd
+	 * warshall needs the whole matrix in memory, so matrixes stored as floats or in
+	 * a file always use dijkstras algorithm.
+	 *
+	 * @param g   - the graph, which is frozen if it was not already.
+	 * @param out - the matrix the distances are stored in, its size must be the
+	 *            number of ids in the graph.
+	 * @return true if the distances were found, false if the graph has a negative
+	 *         cycle, which leaves the matrix without meaning.
+	 */
+	public static boolean compute(IntGraph<?> g, DistanceMatrix out) {
+		g.freeze();
+		boolean negative = hasNegativeWeights(g);
+		if (out.doubles() != null && isDense(g)) {
+			floydWarshall(g, out);
+			// a vertex on a negative cycle ends up closer than 0 to itself:
+			for (int id = 0; negative && id < out.size(); id++) {
+				if (out.get(id, id) < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		double[] potential = null;
+		if (negative) {
+			potential = new double[g.idCount()];
+			if (BellmanFord.potentials(g, potential) != IntGraph.NONE) {
+				return false;
+			}
+		}
+		parallelDijkstra(g, out, potential);
+		return true;
+	}
+
+	/**
+	 * checks if any edge has a negative weight.
+	 *
+	 * @param g - the frozen graph.
+	 * @return true if there is an edge with a negative weight.
+	 */
+	private static boolean hasNegativeWeights(IntGraph<?> g) {
+		for (int id = 0; id < g.idCount(); id++) {
+			for (int i = 0; g.isAlive(id) && i < g.outDegree(id); i++) {
+				if (g.outWeight(id, i) < 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * checks if floyd warshall would be faster than running dijkstras algorithm
+	 * from every vertex.
+	 *
+	 * @param g - the graph.
+	 * @return true if the graph has many edges for its number of vertexes.
+	 */
+	public static boolean isDense(IntGraph<?> g) {
+		double n = g.idCount();
+		return g.getNumberOfEdges() > DENSE * n * n;
+	}
+
+	/**
+	 * runs dijkstras algorithm from every vertex, in parallel. Each row of the
+	 * matrix is written by the thread that searched from its vertex. The weights
+	 * must not be negative.
+	 *
+	 * @param g   - the graph, which is frozen if it was not already.
+	 * @param out - the matrix the distances are stored in.
+	 */
+	public static void parallelDijkstra(IntGraph<?> g, DistanceMatrix out) {
+		parallelDijkstra(g, out, null);
+	}
+
+	/**
+	 * runs dijkstras algorithm from every vertex on the weights shifted by the
+	 * potentials, and shifts the distances back.
+	 *
+	 * @param g         - the graph, which is frozen if it was not already.
+	 * @param out       - the matrix the distances are stored in.
+	 * @param potential - the potentials from BellmanFord.potentials, or null if no
+	 *                  weight is negative.
+	 */
+	private static void parallelDijkstra(IntGraph<?> g, DistanceMatrix out, double[] potential) {
+		checkSize(g, out);
+		g.freeze();
+		int n = g.idCount();
+		// the arrays of each thread, dropped with this local when the search is done:
+		ThreadLocal<double[]> rows = ThreadLocal.withInitial(() -> new double[n]);
+		ThreadLocal<IndexedHeap> heaps = ThreadLocal.withInitial(() -> new IndexedHeap(4, n));
+		IntStream.range(0, n).parallel().forEach(source -> {
+			double[] row = rows.get();
+			if (g.isAlive(source)) {
+				distancesFrom(g, source, row, heaps.get(), potential);
+			} else {
+				Arrays.fill(row, Double.POSITIVE_INFINITY);
+				row[source] = 0.0;
+			}
+			out.setRow(source, row);
+		});
+	}
+
+	/**
+	 * runs the blocked floyd warshall algorithm. The matrix is split into blocks,
+	 * and each step through the blocks on the diagonal first updates the diagonal
+	 * block, then the blocks in its row and column, then every other block. The
+	 * blocks within the last two phases are independent, so they run in parallel.
+	 *
+	 * @param g   - the graph.
+	 * @param out - the matrix the distances are stored in, it must be stored as
+	 *            doubles.
+	 */
+	public static void floydWarshall(IntGraph<?> g, DistanceMatrix out) {
+		checkSize(g, out);
+		double[] d = out.doubles();
+		if (d == null) {
+			throw new IllegalArgumentException("floyd warshall needs a matrix stored as doubles");
+		}
+		int n = out.size();
+		Arrays.fill(d, Double.POSITIVE_INFINITY);
+		for (int id = 0; id < n; id++) {
+			d[id * n + id] = 0.0;
+			for (int i = 0; g.isAlive(id) && i < g.outDegree(id); i++) {
+				int end = g.outEnd(id, i);
+				d[id * n + end] = Math.min(d[id * n + end], g.outWeight(id, i));
+			}
+		}
+		int blocks = (n + BLOCK - 1) / BLOCK;
+		for (int k = 0; k < blocks; k++) {
+			final int kb = k;
+			updateBlock(d, n, kb, kb, kb);
+			// the rest of the row and column of the diagonal block:
+			IntStream.range(0, 2 * blocks).parallel().forEach(t -> {
+				int b = t >> 1;
+				if (b == kb) {
+					return;
+				}
+				if ((t & 1) == 0) {
+					updateBlock(d, n, kb, b, kb);
+				} else {
+					updateBlock(d, n, b, kb, kb);
+				}
+			});
+			// every other block, one row of blocks per task:
+			IntStream.range(0, blocks).parallel().forEach(ib -> {
+				if (ib == kb) {
+					return;
+				}
+				for (int jb = 0; jb < blocks; jb++) {
+					if (jb != kb) {
+						updateBlock(d, n, ib, jb, kb);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * relaxes the block (ib, jb) through every vertex of block kb.
+	 *
+	 * @param d  - the matrix in row order.
+	 * @param n  - the number of rows.
+	 * @param ib - the block row.
+	 * @param jb - the block column.
+	 * @param kb - the block of vertexes the paths go through.
+	 */
+	private static void updateBlock(double[] d, int n, int ib, int jb, int kb) {
+		int iEnd = Math.min(n, (ib + 1) * BLOCK);
+		int jStart = jb * BLOCK;
+		int jEnd = Math.min(n, jStart + BLOCK);
+		int kEnd = Math.min(n, (kb + 1) * BLOCK);
+		for (int k = kb * BLOCK; k < kEnd; k++) {
+			int kRow = k * n;
+			for (int i = ib * BLOCK; i < iEnd; i++) {
+				int iRow = i * n;
+				double ik = d[iRow + k];
+				if (ik == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				for (int j = jStart; j < jEnd; j++) {
+					double w = ik + d[kRow + j];
+					if (w < d[iRow + j]) {
+						d[iRow + j] = w;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * runs dijkstras algorithm from one vertex.
+	 *
+	 * @param g         - the frozen graph.
+	 * @param source    - the id of the start.
+	 * @param dist      - filled with the distance to every id.
+	 * @param q         - an empty heap, it is empty again afterwards.
+	 * @param potential - the potentials the weights are shifted by, or null.
+	 */
+	private static void distancesFrom(IntGraph<?> g, int source, double[] dist, IndexedHeap q,
+			double[] potential) {
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		dist[source] = 0.0;
+		q.insertOrDecrease(source, 0.0);
+		while (!q.isEmpty()) {
+			int c = q.poll();
+			double base = dist[c];
+			for (int i = 0; i < g.outDegree(c); i++) {
+				int s = g.outEnd(c, i);
+				double weight = g.outWeight(c, i);
+				if (potential != null) {
+					// rounding can leave a shifted weight just below 0:
+					weight = Math.max(0.0, weight + potential[c] - potential[s]);
+				}
+				double w = base + weight;
+				// a settled vertex can never get a shorter distance:
+				if (w < dist[s]) {
+					dist[s] = w;
+					q.insertOrDecrease(s, w);
+				}
+			}
+		}
+		if (potential != null) {
+			for (int t = 0; t < dist.length; t++) {
+				if (dist[t] != Double.POSITIVE_INFINITY) {
+					dist[t] += potential[t] - potential[source];
+				}
+			}
+		}
+	}
+
+	/**
+	 * checks that the matrix has one row for each id.
+	 */
+	private static void checkSize(IntGraph<?> g, DistanceMatrix out) {
+		if (out.size() != g.idCount()) {
+			throw new IllegalArgumentException("the matrix has " + out.size() + " rows but the graph has "
+					+ g.idCount() + " ids");
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Hashtable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import processing.core.PApplet;
+
+/**
+ * plays the sounds of the edges on its own thread. The edges are sampled at a
+ * fixed rate that is independent of the frame rate, the frequency and
+ * amplitude of each sound are ramped smoothly towards the sampled values, and
+ * all of the oscillators are updated together once per sample. The physics
+ * never touches the oscillators. Only the loudest edges are played, by a fixed
+ * size pool of voices.
+ *
+ * The mover velocities are read while the draw thread is changing them. A
+ * slightly stale velocity only changes the loudness of one sample, so the
+ * reads are not synchronized.
+ *
+ * @author joe caffarini
+ */
+public class AudioController {
+
+	/**
+	 * an edge that makes a sound. The sound is made by the mover at the end of the
+	 * edge, and its loudness depends on the velocity of the mover at the start.
+	 */
+	static class Tone {
+		long key;
+		Mover start;
+		Mover end;
+		double weight;
+		double drag;
+
+		Tone(Mover start, Mover end, double weight, double drag) {
+			this.key = toneKey(start.getLabel(), end.getLabel());
+			this.start = start;
+			this.end = end;
+			this.weight = weight;
+			this.drag = drag;
+		}
+	}
+
+	/**
+	 * the smoothed frequency and amplitude of an edge.
+	 */
+	private static class Sound implements VoicePool.Source {
+		long key;
+		double freq = 0;
+		double amp = 0;
+		double targetFreq = 0;
+		double targetAmp = 0;
+
+		Sound(long key) {
+			this.key = key;
+		}
+
+		public double getFrequency() {
+			return freq;
+		}
+
+		public double getAmplitude() {
+			return amp;
+		}
+	}
+
+	private double rate;
+	private double smoothing;
+	// the edges being played, replaced as a whole by the draw thread:
+	private volatile ArrayList<Tone> tones;
+	// sounds are only used by the audio thread, stored by the key of their edge:
+	private Hashtable<Long, Sound> sounds;
+	private VoicePool pool;
+	private ScheduledExecutorService thread;
+	// the first exception thrown by a sample, and the number of samples in a row
+	// that failed, both written by the audio thread:
+	private volatile RuntimeException failure;
+	private int failedInRow;
+
+	/**
+	 * creates an audio controller, no sound is made until it is started.
+	 *
+	 * @param processing - the processing applet.
+	 * @param rate       - the number of times per second that the edges are
+	 *                   sampled.
+	 * @param smoothing  - the time constant of the frequency and amplitude ramps,
+	 *                   in seconds.
+	 * @param voices     - the most edges that can be heard at once.
+	 */
+	public AudioController(PApplet processing, double rate, double smoothing, int voices) {
+		this.rate = rate;
+		this.smoothing = smoothing;
+		tones = new ArrayList<>();
+		sounds = new Hashtable<>();
+		pool = new VoicePool(processing, voices);
+	}
+
+	/**
+	 * combines the labels of the movers at both ends of an edge into one key.
+	 *
+	 * @param start - the label of the starting mover.
+	 * @param end   - the label of the ending mover.
+	 * @return the key of the edge.
+	 */
+	static long toneKey(int start, int end) {
+		return (((long) start) << 32) | (end & 0xffffffffL);
+	}
+
+	/**
+	 * starts the audio thread, it does nothing if it is already running.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		failure = null;
+		failedInRow = 0;
+		thread = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "audio");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = (long) (1000000000L / rate);
+		thread.scheduleAtFixedRate(() -> {
+			try {
+				update();
+				failedInRow = 0;
+			} catch (RuntimeException e) {
+				// a race with the draw thread can fail one sample, which is skipped. The
+				// first failure is printed once, and if every sample fails for a second
+				// the sounds are stopped and the exception cancels the schedule:
+				if (failure == null) {
+					failure = e;
+					e.printStackTrace();
+				}
+				if (++failedInRow >= rate) {
+					pool.stopAll();
+					throw e;
+				}
+			}
+		}, 0, period, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * gets the first exception thrown while sampling the edges since the audio
+	 * thread was started.
+	 *
+	 * @return the exception, or null if no sample has failed.
+	 */
+	public RuntimeException getFailure() {
+		return failure;
+	}
+
+	/**
+	 * stops the audio thread and all of the sounds.
+	 */
+	public synchronized void stop() {
+		if (thread == null) {
+			return;
+		}
+		thread.shutdown();
+		try {
+			thread.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+		pool.stopAll();
+		sounds.clear();
+	}
+
+	/**
+	 * replaces the edges that are played. This should be called by the draw thread
+	 * whenever the edges change, edges that are no longer in the list fade out.
+	 *
+	 * @param edges - the edges of the displayed graph.
+	 * @param drag  - the drag constant on the movers' velocities.
+	 */
+	public void setEdges(Collection<Edge<Integer, Mover>> edges, double drag) {
+		ArrayList<Tone> newTones = new ArrayList<>(edges.size());
+		for (Edge<Integer, Mover> c : edges) {
+			newTones.add(new Tone(c.getStart().getValue(), c.getEnd().getValue(), c.getWeight(), drag));
+		}
+		tones = newTones;
+	}
+
+	/**
+	 * samples the edges, ramps the sounds towards the sampled values, then sends
+	 * the loudest sounds to the voice pool.
+	 */
+	void update() {
+		ArrayList<Tone> current = tones;
+		double alpha = 1 - Math.exp(-1 / (rate * smoothing));
+
+		// sample the target frequency and amplitude of every edge:
+		Hashtable<Long, Sound> sampled = new Hashtable<>();
+		for (Tone t : current) {
+			Sound sound = sounds.remove(t.key);
+			if (sound == null) {
+				sound = new Sound(t.key);
+			}
+			sound.targetFreq = t.end.toneFrequency(t.weight, t.drag);
+			sound.targetAmp = t.end.soundOn ? 0 : t.end.toneAmplitude(t.weight, t.drag, t.start.velocity);
+			if (!Double.isFinite(sound.targetFreq) || !Double.isFinite(sound.targetAmp)) {
+				sound.targetAmp = 0;
+				sound.targetFreq = sound.freq;
+			}
+			if (sound.amp <= VoicePool.SILENT) {
+				// a silent sound starts at its new pitch instead of sliding to it:
+				sound.freq = sound.targetFreq;
+			}
+			sampled.put(t.key, sound);
+		}
+		// sounds of removed edges fade out, and are dropped once they are silent:
+		for (Sound sound : sounds.values()) {
+			if (sound.amp > VoicePool.SILENT) {
+				sound.targetAmp = 0;
+				sampled.put(sound.key, sound);
+			}
+		}
+		sounds = sampled;
+
+		// ramp every sound towards its target:
+		for (Sound sound : sounds.values()) {
+			sound.freq += alpha * (sound.targetFreq - sound.freq);
+			sound.amp += alpha * (sound.targetAmp - sound.amp);
+		}
+
+		// send the batch of changes to the voices:
+		pool.update(sounds.values());
+	}
+
+}
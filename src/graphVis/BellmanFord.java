@@ -0,0 +1,289 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+/**
+ * shortest paths on graphs that can have negative weights, where dijkstras
+ * algorithm gives wrong answers. There are two searches:
+ *
+ * queue search - the shortest path faster algorithm. Only the vertexes whose
+ * distance dropped have their out edges relaxed again, so on most graphs each
+ * vertex is looked at a few times.
+ *
+ * parallel search - bellman ford, where each round every vertex pulls the best
+ * distance through its in edges from the distances of the last round. A vertex
+ * only writes its own distance, so the vertexes are split between the cores
+ * without any locking. After k rounds each distance is the shortest path with
+ * at most k edges.
+ *
+ * If a negative cycle can be reached from the start, the distances keep
+ * dropping, and sooner or later the predecessors form a cycle, which is always
+ * negative. The predecessors are checked for a cycle every so often, and the
+ * search stops once one is found.
+ *
+ * @author joe caffarini
+ */
+public class BellmanFord {
+
+	// graphs with fewer ids than this are searched with the queue:
+	private final static int PARALLEL_IDS = 1 << 14;
+
+	/**
+	 * finds the shortest paths from the start, with the search that suits the
+	 * size of the graph.
+	 *
+	 * @param g        - the graph, which is frozen if it was not already.
+	 * @param start    - the id where the paths start.
+	 * @param distance - filled with the distance of each id, infinity if it can
+	 *                 not be reached.
+	 * @param parent   - filled with the id before each id on its path, -1 for the
+	 *                 start and ids that can not be reached.
+	 * @return -1 if the paths were found, or an id on a negative cycle of the
+	 *         parents if one can be reached from the start.
+	 */
+	public static int search(IntGraph<?> g, int start, double[] distance, int[] parent) {
+		if (g.idCount() >= PARALLEL_IDS) {
+			return parallelSearch(g, start, distance, parent);
+		}
+		return queueSearch(g, start, distance, parent);
+	}
+
+	/**
+	 * finds the shortest paths from the start with the shortest path faster
+	 * algorithm.
+	 *
+	 * @param g        - the graph, which is frozen if it was not already.
+	 * @param start    - the id where the paths start.
+	 * @param distance - filled with the distance of each id.
+	 * @param parent   - filled with the id before each id on its path.
+	 * @return -1 if the paths were found, or an id on a negative cycle.
+	 */
+	public static int queueSearch(IntGraph<?> g, int start, double[] distance, int[] parent) {
+		g.freeze();
+		int n = g.idCount();
+		begin(n, start, distance, parent);
+		// the queue is a ring of ids, each id is in it at most once:
+		int[] queue = new int[n + 1];
+		boolean[] queued = new boolean[n];
+		queue[0] = start;
+		queued[start] = true;
+		return relaxQueue(g, distance, parent, queue, queued, 1);
+	}
+
+	/**
+	 * finds a potential for each id, its distance from an extra start that has an
+	 * edge of weight 0 to every id. Along every edge the weight plus the potential
+	 * of its start minus the potential of its end is not negative, so the weights
+	 * shifted this way can be searched with dijkstras algorithm, as in johnsons
+	 * algorithm.
+	 *
+	 * @param g         - the graph, which is frozen if it was not already.
+	 * @param potential - filled with the potential of each id, never more than 0.
+	 * @return -1 if the potentials were found, or an id on a negative cycle.
+	 */
+	public static int potentials(IntGraph<?> g, double[] potential) {
+		g.freeze();
+		int n = g.idCount();
+		Arrays.fill(potential, 0, n, 0.0);
+		int[] parent = new int[n];
+		Arrays.fill(parent, IntGraph.NONE);
+		// every id starts at 0, reached straight from the extra start:
+		int[] queue = new int[n + 1];
+		boolean[] queued = new boolean[n];
+		for (int id = 0; id < n; id++) {
+			queue[id] = id;
+			queued[id] = true;
+		}
+		return relaxQueue(g, potential, parent, queue, queued, n);
+	}
+
+	/**
+	 * relaxes the out edges of the queued ids until no distance drops, queueing
+	 * each id whose distance dropped.
+	 *
+	 * @param g        - the frozen graph.
+	 * @param distance - the distances so far.
+	 * @param parent   - the parents so far.
+	 * @param queue    - a ring of n + 1 ids, holding the queued ids from 0.
+	 * @param queued   - true for the ids in the queue.
+	 * @param tail     - the number of queued ids.
+	 * @return -1 if the distances stopped dropping, or an id on a negative cycle.
+	 */
+	private static int relaxQueue(IntGraph<?> g, double[] distance, int[] parent, int[] queue, boolean[] queued,
+			int tail) {
+		int n = g.idCount();
+		int head = 0;
+		int[] mark = new int[n];
+		long relaxed = 0;
+		while (head != tail) {
+			int u = queue[head];
+			head = head == n ? 0 : head + 1;
+			queued[u] = false;
+			for (int i = 0; i < g.outDegree(u); i++) {
+				int v = g.outEnd(u, i);
+				double through = distance[u] + g.outWeight(u, i);
+				if (through < distance[v]) {
+					distance[v] = through;
+					parent[v] = u;
+					if (!queued[v]) {
+						queued[v] = true;
+						queue[tail] = v;
+						tail = tail == n ? 0 : tail + 1;
+					}
+					// checking the parents costs n, so do it once every n changes:
+					if (++relaxed % n == 0) {
+						int onCycle = findParentCycle(parent, mark);
+						if (onCycle != IntGraph.NONE) {
+							return onCycle;
+						}
+					}
+				}
+			}
+		}
+		return IntGraph.NONE;
+	}
+
+	/**
+	 * finds the shortest paths from the start with rounds of bellman ford, the
+	 * vertexes of each round split between the cores.
+	 *
+	 * @param g        - the graph, which is frozen if it was not already.
+	 * @param start    - the id where the paths start.
+	 * @param distance - filled with the distance of each id.
+	 * @param parent   - filled with the id before each id on its path.
+	 * @return -1 if the paths were found, or an id on a negative cycle.
+	 */
+	public static int parallelSearch(IntGraph<?> g, int start, double[] distance, int[] parent) {
+		g.freeze();
+		int n = g.idCount();
+		begin(n, start, distance, parent);
+		double[] last = distance.clone();
+		int[] mark = new int[n];
+		for (int round = 1;; round++) {
+			final double[] before = last;
+			long changes = IntStream.range(0, n).parallel().filter(v -> pull(g, v, before, distance, parent)).count();
+			if (changes == 0) {
+				return IntGraph.NONE;
+			}
+			// a path with n edges repeats a vertex, so the later rounds only happen with a
+			// negative cycle:
+			if (round >= n - 1) {
+				int onCycle = findParentCycle(parent, mark);
+				if (onCycle != IntGraph.NONE) {
+					return onCycle;
+				}
+			}
+			System.arraycopy(distance, 0, last, 0, n);
+		}
+	}
+
+	/**
+	 * lowers the distance of v to the best distance through its in edges.
+	 *
+	 * @param g        - the graph.
+	 * @param v        - the id.
+	 * @param last     - the distances of the last round.
+	 * @param distance - the distances of this round.
+	 * @param parent   - the parents.
+	 * @return true if the distance dropped.
+	 */
+	private static boolean pull(IntGraph<?> g, int v, double[] last, double[] distance, int[] parent) {
+		boolean dropped = false;
+		for (int i = 0; i < g.inDegree(v); i++) {
+			int u = g.inStart(v, i);
+			double through = last[u] + g.inWeight(v, i);
+			if (through < distance[v]) {
+				distance[v] = through;
+				parent[v] = u;
+				dropped = true;
+			}
+		}
+		return dropped;
+	}
+
+	/**
+	 * gets the ids of the cycle of parents through an id.
+	 *
+	 * @param parent  - the parents found by a search.
+	 * @param onCycle - an id on the cycle, returned by the search.
+	 * @return the ids of the cycle in the order of its edges, starting at the id.
+	 */
+	public static int[] cycle(int[] parent, int onCycle) {
+		ArrayList<Integer> ids = new ArrayList<>();
+		int id = onCycle;
+		do {
+			ids.add(id);
+			id = parent[id];
+		} while (id != onCycle);
+		// the parents point backwards along the edges:
+		Collections.reverse(ids);
+		Collections.rotate(ids, 1);
+		int[] cycle = new int[ids.size()];
+		for (int i = 0; i < cycle.length; i++) {
+			cycle[i] = ids.get(i);
+		}
+		return cycle;
+	}
+
+	/**
+	 * sets every id as unreachable except the start.
+	 */
+	private static void begin(int n, int start, double[] distance, int[] parent) {
+		Arrays.fill(distance, 0, n, Double.POSITIVE_INFINITY);
+		Arrays.fill(parent, 0, n, IntGraph.NONE);
+		distance[start] = 0.0;
+	}
+
+	/**
+	 * looks for a cycle in the parents. Each id is followed up its parents until
+	 * it reaches an id that was already seen, and it is a cycle if that id was
+	 * seen on the same walk.
+	 *
+	 * @param parent - the parents.
+	 * @param mark   - the walk each id was seen on, cleared here.
+	 * @return an id on a cycle, or -1 if there is none.
+	 */
+	static int findParentCycle(int[] parent, int[] mark) {
+		Arrays.fill(mark, 0);
+		for (int id = 0; id < mark.length; id++) {
+			int walk = id + 1;
+			int x = id;
+			while (x != IntGraph.NONE && mark[x] == 0) {
+				mark[x] = walk;
+				x = parent[x];
+			}
+			if (x != IntGraph.NONE && mark[x] == walk) {
+				return x;
+			}
+		}
+		return IntGraph.NONE;
+	}
+
+}
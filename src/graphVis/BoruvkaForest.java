@@ -0,0 +1,233 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * finds a minimum spanning forest with boruvkas algorithm. Every round, each
+ * component finds the lightest edge leaving it, and all of those edges are
+ * added to the forest at once, which at least halves the number of
+ * components. Both steps are split between the cores: the lightest edges are
+ * kept with compare and set, and components are merged with a union find that
+ * never locks.
+ *
+ * Edges are treated as undirected. Ties are broken by the ids at the ends of
+ * the edge, so every component agrees on which of two equal edges is lighter
+ * and the chosen edges can never form a cycle.
+ *
+ * @author joe caffarini
+ */
+public class BoruvkaForest {
+
+	// graphs with fewer ids than this are searched on one thread:
+	private final static int PARALLEL_IDS = 1 << 12;
+
+	/**
+	 * builds the minimum spanning forest of the graph.
+	 *
+	 * @param g - the graph, which is frozen if it was not already.
+	 * @return a graph with every vertex of g and the edges of the forest in both
+	 *         directions. Its cost is the total weight of the forest.
+	 */
+	public static <V> IntGraph<V> spanningForest(IntGraph<V> g) {
+		int[] edges = forestEdges(g);
+		IntGraph<V> forest = new IntGraph<V>();
+		for (int id = 0; id < g.idCount(); id++) {
+			if (g.isAlive(id)) {
+				forest.add(g.keyOf(id), g.getValue(id));
+			}
+		}
+		double cost = 0.0;
+		for (int k = 0; k < edges.length; k += 2) {
+			double weight = g.edgeWeight(edges[k + 1]);
+			forest.connect(g.keyOf(edges[k]), g.keyOf(g.edgeEnd(edges[k + 1])), weight);
+			cost += weight;
+		}
+		forest.setCost(cost);
+		return forest;
+	}
+
+	/**
+	 * finds the edges of the minimum spanning forest.
+	 *
+	 * @param g - the graph, which is frozen if it was not already.
+	 * @return pairs of the id at the start of each edge and the position of the
+	 *         edge in the packed edge arrays.
+	 */
+	static int[] forestEdges(IntGraph<?> g) {
+		g.freeze();
+		int n = g.idCount();
+		AtomicIntegerArray parent = new AtomicIntegerArray(n);
+		for (int id = 0; id < n; id++) {
+			parent.set(id, id);
+		}
+		// the lightest edge leaving each component, and the id each edge starts at:
+		AtomicIntegerArray lightest = new AtomicIntegerArray(n);
+		int[] lightestStart = new int[g.getNumberOfEdges()];
+		int[] chosen = new int[2 * Math.max(0, g.size() - 1)];
+		AtomicInteger count = new AtomicInteger();
+		boolean parallel = n >= PARALLEL_IDS;
+		while (true) {
+			range(n, parallel).forEach(id -> lightest.set(id, IntGraph.NONE));
+			range(n, parallel).forEach(u -> {
+				if (!g.isAlive(u)) {
+					return;
+				}
+				int ru = find(parent, u);
+				int end = g.firstOutEdge(u) + g.outDegree(u);
+				for (int e = g.firstOutEdge(u); e < end; e++) {
+					int v = g.edgeEnd(e);
+					// both components of the edge consider it:
+					int rv = find(parent, v);
+					if (ru != rv) {
+						offer(g, lightest, lightestStart, ru, u, e);
+						offer(g, lightest, lightestStart, rv, u, e);
+					}
+				}
+			});
+			// join the components along their lightest edges, an edge chosen by both
+			// of its components is only added by the first union:
+			int before = count.get();
+			range(n, parallel).forEach(r -> {
+				int e = lightest.get(r);
+				if (e != IntGraph.NONE && union(parent, lightestStart[e], g.edgeEnd(e))) {
+					int k = count.getAndAdd(2);
+					chosen[k] = lightestStart[e];
+					chosen[k + 1] = e;
+				}
+			});
+			if (count.get() == before) {
+				break;
+			}
+		}
+		return Arrays.copyOf(chosen, count.get());
+	}
+
+	/**
+	 * makes the edge the lightest edge of the component, unless it already has a
+	 * lighter one.
+	 *
+	 * @param g             - the graph.
+	 * @param lightest      - the lightest edge of each component.
+	 * @param lightestStart - the start id of each edge that was offered.
+	 * @param root          - the component.
+	 * @param start         - the id at the start of the edge.
+	 * @param e             - the position of the edge.
+	 */
+	private static void offer(IntGraph<?> g, AtomicIntegerArray lightest, int[] lightestStart, int root,
+			int start, int e) {
+		// every thread writes the same start for the same edge:
+		lightestStart[e] = start;
+		int current;
+		do {
+			current = lightest.get(root);
+			if (current != IntGraph.NONE && !isLighter(g, start, e, lightestStart[current], current)) {
+				return;
+			}
+		} while (!lightest.compareAndSet(root, current, e));
+	}
+
+	/**
+	 * compares two edges by weight, then by the smaller and larger ids at their
+	 * ends, so an edge and its reverse compare the same.
+	 *
+	 * @return true if edge a is lighter than edge b.
+	 */
+	private static boolean isLighter(IntGraph<?> g, int aStart, int a, int bStart, int b) {
+		double wa = g.edgeWeight(a);
+		double wb = g.edgeWeight(b);
+		if (wa != wb) {
+			return wa < wb;
+		}
+		int aEnd = g.edgeEnd(a);
+		int bEnd = g.edgeEnd(b);
+		int aLow = Math.min(aStart, aEnd);
+		int bLow = Math.min(bStart, bEnd);
+		if (aLow != bLow) {
+			return aLow < bLow;
+		}
+		return Math.max(aStart, aEnd) < Math.max(bStart, bEnd);
+	}
+
+	/**
+	 * finds the root of an id's component, pointing ids at their grandparents on
+	 * the way. Another thread may change a parent at the same time, so the
+	 * shortcut is only taken if the parent has not changed.
+	 *
+	 * @param parent - the parent of each id.
+	 * @param id     - the id.
+	 * @return the root.
+	 */
+	private static int find(AtomicIntegerArray parent, int id) {
+		while (true) {
+			int p = parent.get(id);
+			if (p == id) {
+				return id;
+			}
+			int gp = parent.get(p);
+			if (gp != p) {
+				parent.compareAndSet(id, p, gp);
+			}
+			id = gp;
+		}
+	}
+
+	/**
+	 * joins the components of two ids by pointing the larger root at the smaller
+	 * one. If another thread moves the root first, the roots are found again.
+	 *
+	 * @param parent - the parent of each id.
+	 * @param a      - an id.
+	 * @param b      - another id.
+	 * @return true if the ids were in different components.
+	 */
+	private static boolean union(AtomicIntegerArray parent, int a, int b) {
+		while (true) {
+			a = find(parent, a);
+			b = find(parent, b);
+			if (a == b) {
+				return false;
+			}
+			int low = Math.min(a, b);
+			int high = Math.max(a, b);
+			if (parent.compareAndSet(high, high, low)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * gets a stream over the ids, parallel if the graph is large.
+	 */
+	private static IntStream range(int n, boolean parallel) {
+		IntStream range = IntStream.range(0, n);
+		return parallel ? range.parallel() : range;
+	}
+
+}
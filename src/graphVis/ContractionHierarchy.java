@@ -0,0 +1,564 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Hashtable;
+
+/**
+ * answers many shortest path queries on a graph that rarely changes, with a
+ * contraction hierarchy. The graph is prepared once:
+ *
+ * the vertexes are removed one at a time, cheapest first. A vertex costs the
+ * number of shortcuts its removal needs minus the number of edges it takes
+ * away, plus the number of neighbors already removed, so removals are spread
+ * over the graph.
+ *
+ * when a vertex is removed, every path through it from one remaining neighbor
+ * to another gets a shortcut edge, unless a short search finds a path that is
+ * no longer without it.
+ *
+ * A shortest path then always goes up the order of removal and back down, so a
+ * query searches up from the source and up the reversed edges from the target,
+ * and each search only looks at the few vertexes above its start. Shortcuts
+ * remember the vertex they skip, so paths can be unpacked into the graph's
+ * edges.
+ *
+ * The hierarchy listens to the graph and is rebuilt by the first query after
+ * the graph is changed through its methods. A search up the hierarchy can miss
+ * a negative edge further down, so while the graph has a negative weight no
+ * hierarchy is built, and the queries are answered by Graph.shortestPath.
+ *
+ * @author joe caffarini
+ * @param <K> - the key data type
+ * @param <V> - the value data type
+ */
+public class ContractionHierarchy<K extends Comparable<K>, V> implements GraphListener<K, V> {
+
+	// a witness search stops after settling this many vertexes, and adds the
+	// shortcut if it did not find a shorter path yet:
+	private final static int WITNESS_SETTLED = 500;
+	private final static int NONE = -1;
+
+	private Graph<K, V> graph;
+	private volatile boolean stale = true;
+	// true if the graph had a negative weight when it was last built:
+	private boolean negative = false;
+	private int n;
+	// the edges of each vertex while the graph is being contracted. Once a vertex
+	// is removed, its lists hold its edges to and from higher vertexes:
+	private int[][] outTo;
+	private double[][] outWeight;
+	private int[] outCount;
+	private int[][] inFrom;
+	private double[][] inWeight;
+	private int[] inCount;
+	private boolean[] contracted;
+	private int[] contractedNeighbors;
+	// the vertex each shortcut skips, by the indexes of its ends:
+	private Hashtable<Long, Integer> middles;
+	// the distances and predecessors of the two directions of a query, and of a
+	// witness search, stamped so nothing is cleared between searches:
+	private double[] forward;
+	private double[] backward;
+	private int[] forwardFrom;
+	private int[] backwardFrom;
+	private int[] forwardStamp;
+	private int[] backwardStamp;
+	private double[] witness;
+	private int[] witnessStamp;
+	private int stamp = 0;
+	private IndexedHeap forwardHeap;
+	private IndexedHeap backwardHeap;
+
+	/**
+	 * prepares the hierarchy of the graph and starts listening to it.
+	 *
+	 * @param graph - the graph being searched.
+	 */
+	public ContractionHierarchy(Graph<K, V> graph) {
+		this.graph = graph;
+		rebuild();
+		graph.addListener(this);
+	}
+
+	/**
+	 * stops listening to the graph. The hierarchy is not rebuilt after this.
+	 */
+	public void detach() {
+		graph.removeListener(this);
+	}
+
+	/**
+	 * checks if the graph changed since the hierarchy was built.
+	 *
+	 * @return true if the next query rebuilds the hierarchy.
+	 */
+	public boolean isStale() {
+		return stale;
+	}
+
+	/**
+	 * gets the number of shortcuts the hierarchy added to the graph.
+	 *
+	 * @return the number of shortcuts.
+	 */
+	public synchronized int getNumberOfShortcuts() {
+		if (stale) {
+			rebuild();
+		}
+		return middles.size();
+	}
+
+	/**
+	 * gets the length of the shortest path between two vertexes.
+	 *
+	 * @param sourceKey - the key of the start of the path.
+	 * @param targetKey - the key of the end of the path.
+	 * @return the distance, infinity if there is no path or either key is not in
+	 *         the graph, or NaN if a negative cycle can be reached from the source.
+	 */
+	public synchronized double distance(K sourceKey, K targetKey) {
+		if (stale) {
+			rebuild();
+		}
+		if (negative) {
+			if (graph.getVertex(sourceKey) == null || graph.getVertex(targetKey) == null) {
+				return Double.POSITIVE_INFINITY;
+			}
+			ArrayList<Vertex<K, V>> path = graph.shortestPath(sourceKey, targetKey);
+			if (path == null) {
+				return Double.NaN;
+			}
+			if (path.isEmpty()) {
+				return Double.POSITIVE_INFINITY;
+			}
+			double length = 0.0;
+			for (int i = 1; i < path.size(); i++) {
+				length += path.get(i - 1).getOutEdge(path.get(i).getKey()).getWeight();
+			}
+			return length;
+		}
+		int meet = search(sourceKey, targetKey);
+		if (meet == NONE) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return forward[meet] + backward[meet];
+	}
+
+	/**
+	 * finds the shortest path between two vertexes.
+	 *
+	 * @param sourceKey - the key of the start of the path.
+	 * @param targetKey - the key of the end of the path.
+	 * @return the vertexes on the shortest path, empty if there is no path, or null
+	 *         if either key is not in the graph or a negative cycle can be reached
+	 *         from the source.
+	 */
+	public synchronized ArrayList<Vertex<K, V>> shortestPath(K sourceKey, K targetKey) {
+		if (graph.getVertex(sourceKey) == null || graph.getVertex(targetKey) == null) {
+			return null;
+		}
+		if (stale) {
+			rebuild();
+		}
+		if (negative) {
+			return graph.shortestPath(sourceKey, targetKey);
+		}
+		ArrayList<Vertex<K, V>> path = new ArrayList<>();
+		int meet = search(sourceKey, targetKey);
+		if (meet == NONE) {
+			return path;
+		}
+		// the hierarchy's edges from the source up to the meeting vertex:
+		ArrayList<Integer> ups = new ArrayList<>();
+		for (int x = meet; x != NONE; x = forwardFrom[x]) {
+			ups.add(x);
+		}
+		Collections.reverse(ups);
+		ArrayList<Integer> indexes = new ArrayList<>();
+		indexes.add(ups.get(0));
+		for (int i = 1; i < ups.size(); i++) {
+			unpack(ups.get(i - 1), ups.get(i), indexes);
+		}
+		// and from the meeting vertex down to the target:
+		for (int x = meet; backwardFrom[x] != NONE; x = backwardFrom[x]) {
+			unpack(x, backwardFrom[x], indexes);
+		}
+		for (int i : indexes) {
+			path.add(graph.vertexAt(i));
+		}
+		return path;
+	}
+
+	/**
+	 * marks the hierarchy as stale.
+	 *
+	 * @param vertex - the new vertex.
+	 */
+	@Override
+	public void vertexAdded(Vertex<K, V> vertex) {
+		stale = true;
+	}
+
+	/**
+	 * marks the hierarchy as stale.
+	 *
+	 * @param vertex - the removed vertex.
+	 */
+	@Override
+	public void vertexRemoved(Vertex<K, V> vertex) {
+		stale = true;
+	}
+
+	/**
+	 * marks the hierarchy as stale.
+	 *
+	 * @param start - the vertex at the start of the edge.
+	 * @param end   - the vertex at the end of the edge.
+	 */
+	@Override
+	public void edgeChanged(Vertex<K, V> start, Vertex<K, V> end) {
+		stale = true;
+	}
+
+	/**
+	 * searches up the hierarchy from both ends until the best meeting vertex is
+	 * known.
+	 *
+	 * @return the vertex where the shortest path turns from going up to going
+	 *         down, or -1 if there is no path.
+	 */
+	private int search(K sourceKey, K targetKey) {
+		if (stale) {
+			rebuild();
+		}
+		Vertex<K, V> source = graph.getVertex(sourceKey);
+		Vertex<K, V> target = graph.getVertex(targetKey);
+		if (source == null || target == null) {
+			return NONE;
+		}
+		stamp++;
+		forwardHeap.clear();
+		backwardHeap.clear();
+		reach(source.index, 0.0, NONE, forward, forwardFrom, forwardStamp, forwardHeap);
+		reach(target.index, 0.0, NONE, backward, backwardFrom, backwardStamp, backwardHeap);
+		double best = Double.POSITIVE_INFINITY;
+		int meet = NONE;
+		while (true) {
+			boolean up = !forwardHeap.isEmpty() && forwardHeap.peekKey() < best;
+			boolean down = !backwardHeap.isEmpty() && backwardHeap.peekKey() < best;
+			if (!up && !down) {
+				break;
+			}
+			// settle the closer of the two searches:
+			if (up && (!down || forwardHeap.peekKey() <= backwardHeap.peekKey())) {
+				int x = forwardHeap.poll();
+				if (backwardStamp[x] == stamp && forward[x] + backward[x] < best) {
+					best = forward[x] + backward[x];
+					meet = x;
+				}
+				if (isStalled(x, inFrom[x], inWeight[x], inCount[x], forward, forwardStamp)) {
+					continue;
+				}
+				for (int i = 0; i < outCount[x]; i++) {
+					reach(outTo[x][i], forward[x] + outWeight[x][i], x, forward, forwardFrom, forwardStamp,
+							forwardHeap);
+				}
+			} else {
+				int x = backwardHeap.poll();
+				if (forwardStamp[x] == stamp && forward[x] + backward[x] < best) {
+					best = forward[x] + backward[x];
+					meet = x;
+				}
+				if (isStalled(x, outTo[x], outWeight[x], outCount[x], backward, backwardStamp)) {
+					continue;
+				}
+				for (int i = 0; i < inCount[x]; i++) {
+					reach(inFrom[x][i], backward[x] + inWeight[x][i], x, backward, backwardFrom, backwardStamp,
+							backwardHeap);
+				}
+			}
+		}
+		return meet;
+	}
+
+	/**
+	 * checks if a higher vertex the search already reached has an edge down to x
+	 * that makes x closer than the search found. The search does not go down, so
+	 * x is not on a shortest path and its edges do not need to be looked at.
+	 *
+	 * @param x        - the vertex being settled.
+	 * @param higher   - the higher vertexes with edges to x in this direction.
+	 * @param weights  - the weights of those edges.
+	 * @param count    - the number of those edges.
+	 * @param distance - the distances of this direction.
+	 * @param stamps   - the stamps of this direction.
+	 * @return true if x can be skipped.
+	 */
+	private boolean isStalled(int x, int[] higher, double[] weights, int count, double[] distance, int[] stamps) {
+		for (int i = 0; i < count; i++) {
+			int y = higher[i];
+			if (stamps[y] == stamp && distance[y] + weights[i] < distance[x]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * lowers the distance of a vertex in one direction of a query, if the new
+	 * distance is shorter.
+	 */
+	private void reach(int x, double d, int from, double[] distance, int[] previous, int[] stamps, IndexedHeap heap) {
+		if (stamps[x] != stamp || d < distance[x]) {
+			stamps[x] = stamp;
+			distance[x] = d;
+			previous[x] = from;
+			heap.insertOrDecrease(x, d);
+		}
+	}
+
+	/**
+	 * adds the vertexes of the graph's path along a hierarchy edge, without its
+	 * start.
+	 */
+	private void unpack(int u, int x, ArrayList<Integer> indexes) {
+		Integer middle = middles.get(pair(u, x));
+		if (middle == null) {
+			indexes.add(x);
+		} else {
+			unpack(u, middle, indexes);
+			unpack(middle, x, indexes);
+		}
+	}
+
+	/**
+	 * builds the hierarchy from the current graph, unless it has a negative
+	 * weight.
+	 */
+	public synchronized void rebuild() {
+		negative = graph.hasNegativeWeights();
+		if (negative) {
+			middles = new Hashtable<>();
+			stale = false;
+			return;
+		}
+		n = graph.indexCapacity();
+		outTo = new int[n][];
+		outWeight = new double[n][];
+		outCount = new int[n];
+		inFrom = new int[n][];
+		inWeight = new double[n][];
+		inCount = new int[n];
+		contracted = new boolean[n];
+		contractedNeighbors = new int[n];
+		middles = new Hashtable<>();
+		forward = new double[n];
+		backward = new double[n];
+		forwardFrom = new int[n];
+		backwardFrom = new int[n];
+		forwardStamp = new int[n];
+		backwardStamp = new int[n];
+		witness = new double[n];
+		witnessStamp = new int[n];
+		stamp = 0;
+		forwardHeap = new IndexedHeap(4, n);
+		backwardHeap = new IndexedHeap(4, n);
+		for (int v = 0; v < n; v++) {
+			outTo[v] = new int[4];
+			outWeight[v] = new double[4];
+			inFrom[v] = new int[4];
+			inWeight[v] = new double[4];
+			// unused indexes are never searched:
+			contracted[v] = graph.vertexAt(v) == null;
+		}
+		for (int v = 0; v < n; v++) {
+			if (!contracted[v]) {
+				for (Edge<K, V> e : graph.vertexAt(v).getEdgeArray()) {
+					if (e.getEnd().index != v) {
+						addEdge(v, e.getEnd().index, e.getWeight());
+					}
+				}
+			}
+		}
+		// order the vertexes by their cost, which is updated when it is taken from
+		// the heap since removing neighbors changes it:
+		IndexedHeap order = new IndexedHeap(4, n);
+		for (int v = 0; v < n; v++) {
+			if (!contracted[v]) {
+				order.insertOrDecrease(v, cost(v));
+			}
+		}
+		while (!order.isEmpty()) {
+			int v = order.poll();
+			double cost = cost(v);
+			if (!order.isEmpty() && cost > order.peekKey()) {
+				order.insertOrDecrease(v, cost);
+				continue;
+			}
+			contract(v, true);
+		}
+		stale = false;
+	}
+
+	/**
+	 * gets the cost of removing a vertex next.
+	 */
+	private double cost(int v) {
+		return contract(v, false) - (inCount[v] + outCount[v]) + contractedNeighbors[v];
+	}
+
+	/**
+	 * finds the shortcuts needed to remove a vertex, and removes it if asked.
+	 *
+	 * @param v     - the vertex.
+	 * @param apply - true to add the shortcuts and remove the vertex.
+	 * @return the number of shortcuts needed.
+	 */
+	private int contract(int v, boolean apply) {
+		int shortcuts = 0;
+		double longestOut = 0.0;
+		for (int j = 0; j < outCount[v]; j++) {
+			longestOut = Math.max(longestOut, outWeight[v][j]);
+		}
+		for (int i = 0; i < inCount[v]; i++) {
+			int u = inFrom[v][i];
+			double toV = inWeight[v][i];
+			witnessSearch(u, v, toV + longestOut);
+			for (int j = 0; j < outCount[v]; j++) {
+				int x = outTo[v][j];
+				double via = toV + outWeight[v][j];
+				if (x != u && (witnessStamp[x] != stamp || witness[x] > via)) {
+					shortcuts++;
+					if (apply && addEdge(u, x, via)) {
+						middles.put(pair(u, x), v);
+					}
+				}
+			}
+		}
+		if (apply) {
+			contracted[v] = true;
+			// the neighbors forget v, so v's lists keep only its higher neighbors:
+			for (int i = 0; i < inCount[v]; i++) {
+				int u = inFrom[v][i];
+				outCount[u] = remove(outTo[u], outWeight[u], outCount[u], v);
+				contractedNeighbors[u]++;
+			}
+			for (int j = 0; j < outCount[v]; j++) {
+				int x = outTo[v][j];
+				inCount[x] = remove(inFrom[x], inWeight[x], inCount[x], v);
+				contractedNeighbors[x]++;
+			}
+		}
+		return shortcuts;
+	}
+
+	/**
+	 * finds the distances from u without going through v, up to the limit.
+	 */
+	private void witnessSearch(int u, int v, double limit) {
+		stamp++;
+		IndexedHeap heap = forwardHeap;
+		heap.clear();
+		witness[u] = 0.0;
+		witnessStamp[u] = stamp;
+		heap.insertOrDecrease(u, 0.0);
+		int settled = 0;
+		while (!heap.isEmpty() && heap.peekKey() <= limit && settled++ < WITNESS_SETTLED) {
+			int x = heap.poll();
+			for (int i = 0; i < outCount[x]; i++) {
+				int y = outTo[x][i];
+				double d = witness[x] + outWeight[x][i];
+				if (y != v && (witnessStamp[y] != stamp || d < witness[y])) {
+					witness[y] = d;
+					witnessStamp[y] = stamp;
+					heap.insertOrDecrease(y, d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * adds an edge from u to x, or lowers the weight of the one already there.
+	 *
+	 * @return true if the edge was added or made lighter.
+	 */
+	private boolean addEdge(int u, int x, double weight) {
+		for (int i = 0; i < outCount[u]; i++) {
+			if (outTo[u][i] == x) {
+				if (outWeight[u][i] <= weight) {
+					return false;
+				}
+				outWeight[u][i] = weight;
+				for (int j = 0; j < inCount[x]; j++) {
+					if (inFrom[x][j] == u) {
+						inWeight[x][j] = weight;
+					}
+				}
+				return true;
+			}
+		}
+		if (outCount[u] == outTo[u].length) {
+			outTo[u] = Arrays.copyOf(outTo[u], 2 * outCount[u]);
+			outWeight[u] = Arrays.copyOf(outWeight[u], 2 * outCount[u]);
+		}
+		outTo[u][outCount[u]] = x;
+		outWeight[u][outCount[u]++] = weight;
+		if (inCount[x] == inFrom[x].length) {
+			inFrom[x] = Arrays.copyOf(inFrom[x], 2 * inCount[x]);
+			inWeight[x] = Arrays.copyOf(inWeight[x], 2 * inCount[x]);
+		}
+		inFrom[x][inCount[x]] = u;
+		inWeight[x][inCount[x]++] = weight;
+		return true;
+	}
+
+	/**
+	 * removes a vertex from an edge list by moving the last edge into its place.
+	 *
+	 * @return the new length of the list.
+	 */
+	private static int remove(int[] ends, double[] weights, int count, int v) {
+		for (int i = 0; i < count; i++) {
+			if (ends[i] == v) {
+				ends[i] = ends[count - 1];
+				weights[i] = weights[count - 1];
+				return count - 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * gets the key of the edge from u to x.
+	 */
+	private static Long pair(int u, int x) {
+		return ((long) u << 32) | x;
+	}
+
+}
@@ -0,0 +1,220 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * a square matrix of distances stored in one flat array in row order, so a row
+ * is read from memory in order. The distances can be stored as doubles, as
+ * floats to halve the memory, or as floats in a memory mapped file for
+ * matrixes that are too large for the heap. Entries that were never set are
+ * infinite.
+ *
+ * Different rows can be written by different threads at the same time.
+ *
+ * @author joe caffarini
+ */
+public class DistanceMatrix {
+
+	// the most floats that fit in one mapped buffer:
+	private final static int FLOATS_PER_BUFFER = Integer.MAX_VALUE / Float.BYTES;
+
+	private final int n;
+	// only one of these is used:
+	private double[] doubles;
+	private float[] floats;
+	private MappedByteBuffer[] mapped;
+	// the number of rows in each mapped buffer:
+	private int rowsPerBuffer;
+
+	private DistanceMatrix(int n) {
+		this.n = n;
+	}
+
+	/**
+	 * creates a matrix stored in an array of doubles.
+	 *
+	 * @param n - the number of rows and columns.
+	 * @return a matrix with every distance infinite.
+	 */
+	public static DistanceMatrix ofDoubles(int n) {
+		DistanceMatrix m = new DistanceMatrix(n);
+		m.doubles = new double[checkedSize(n)];
+		Arrays.fill(m.doubles, Double.POSITIVE_INFINITY);
+		return m;
+	}
+
+	/**
+	 * creates a matrix stored in an array of floats, which uses half the memory
+	 * but keeps fewer digits of each distance.
+	 *
+	 * @param n - the number of rows and columns.
+	 * @return a matrix with every distance infinite.
+	 */
+	public static DistanceMatrix ofFloats(int n) {
+		DistanceMatrix m = new DistanceMatrix(n);
+		m.floats = new float[checkedSize(n)];
+		Arrays.fill(m.floats, Float.POSITIVE_INFINITY);
+		return m;
+	}
+
+	/**
+	 * creates a matrix of floats stored in a memory mapped file, so it can be
+	 * larger than the heap. The file is created or overwritten, and it is left on
+	 * disk afterwards.
+	 *
+	 * @param n    - the number of rows and columns.
+	 * @param file - the file backing the matrix.
+	 * @return a matrix with every distance infinite.
+	 * @throws IOException - if the file cannot be created or mapped.
+	 */
+	public static DistanceMatrix mapped(int n, File file) throws IOException {
+		DistanceMatrix m = new DistanceMatrix(n);
+		m.rowsPerBuffer = Math.max(1, FLOATS_PER_BUFFER / Math.max(1, n));
+		int buffers = (n + m.rowsPerBuffer - 1) / m.rowsPerBuffer;
+		m.mapped = new MappedByteBuffer[buffers];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			raf.setLength((long) n * n * Float.BYTES);
+			for (int b = 0; b < buffers; b++) {
+				long rows = Math.min(m.rowsPerBuffer, n - (long) b * m.rowsPerBuffer);
+				long start = (long) b * m.rowsPerBuffer * n * Float.BYTES;
+				// the mapping stays valid after the channel is closed:
+				m.mapped[b] = channel.map(FileChannel.MapMode.READ_WRITE, start, rows * n * Float.BYTES);
+			}
+		}
+		double[] row = new double[n];
+		Arrays.fill(row, Double.POSITIVE_INFINITY);
+		for (int i = 0; i < n; i++) {
+			m.setRow(i, row);
+		}
+		return m;
+	}
+
+	/**
+	 * gets the number of rows and columns.
+	 *
+	 * @return the size of the matrix.
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * gets a distance.
+	 *
+	 * @param i - the row, the index of the start vertex.
+	 * @param j - the column, the index of the end vertex.
+	 * @return the distance, infinite if there is no path.
+	 */
+	public double get(int i, int j) {
+		if (doubles != null) {
+			return doubles[i * n + j];
+		} else if (floats != null) {
+			return floats[i * n + j];
+		}
+		return mapped[i / rowsPerBuffer].getFloat(((i % rowsPerBuffer) * n + j) * Float.BYTES);
+	}
+
+	/**
+	 * sets a distance.
+	 *
+	 * @param i        - the row, the index of the start vertex.
+	 * @param j        - the column, the index of the end vertex.
+	 * @param distance - the new distance.
+	 */
+	public void set(int i, int j, double distance) {
+		if (doubles != null) {
+			doubles[i * n + j] = distance;
+		} else if (floats != null) {
+			floats[i * n + j] = (float) distance;
+		} else {
+			mapped[i / rowsPerBuffer].putFloat(((i % rowsPerBuffer) * n + j) * Float.BYTES, (float) distance);
+		}
+	}
+
+	/**
+	 * copies a row of distances into the matrix.
+	 *
+	 * @param i   - the row.
+	 * @param row - the distances from vertex i to every vertex.
+	 */
+	public void setRow(int i, double[] row) {
+		if (doubles != null) {
+			System.arraycopy(row, 0, doubles, i * n, n);
+			return;
+		}
+		for (int j = 0; j < n; j++) {
+			set(i, j, row[j]);
+		}
+	}
+
+	/**
+	 * copies a row of distances out of the matrix.
+	 *
+	 * @param i   - the row.
+	 * @param row - filled with the distances from vertex i to every vertex.
+	 */
+	public void getRow(int i, double[] row) {
+		if (doubles != null) {
+			System.arraycopy(doubles, i * n, row, 0, n);
+			return;
+		}
+		for (int j = 0; j < n; j++) {
+			row[j] = get(i, j);
+		}
+	}
+
+	/**
+	 * gets the array of doubles behind the matrix, so algorithms can work on it
+	 * directly.
+	 *
+	 * @return the array in row order, or null if the matrix is not stored as
+	 *         doubles.
+	 */
+	double[] doubles() {
+		return doubles;
+	}
+
+	/**
+	 * checks that an n by n matrix fits in one array.
+	 *
+	 * @param n - the number of rows and columns.
+	 * @return the number of entries.
+	 */
+	private static int checkedSize(int n) {
+		long size = (long) n * n;
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("a " + n + " by " + n + " matrix is too large for an array");
+		}
+		return (int) size;
+	}
+
+}
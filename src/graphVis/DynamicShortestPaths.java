@@ -0,0 +1,482 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * the shortest paths from one vertex that stay up to date while the graph is
+ * edited, in the style of ramalingam and reps. The distances and the tree of
+ * predecessors are kept, and each change only repairs the vertexes it affects:
+ *
+ * lighter or new edge - if the edge gives its end a shorter distance, the
+ * improvement spreads out from there with dijkstras algorithm, and stops at
+ * vertexes it does not improve.
+ *
+ * heavier or removed tree edge - the vertexes below the edge in the tree are
+ * the only ones that can get further away. They are given the best distance
+ * through their in edges from the rest of the tree, then settled among
+ * themselves with dijkstras algorithm.
+ *
+ * Edges that are not in the tree and do not get lighter change nothing. The
+ * vertexes whose distance or predecessor changed are collected until they are
+ * taken with takeChanged. Only changes made through the Graph's methods are
+ * seen.
+ *
+ * While the graph has a negative weight, the repairs above are not enough, so
+ * every change runs BellmanFord again on the whole graph. If a negative cycle
+ * can be reached from the source, there are no shortest paths until a change
+ * breaks the cycle, see hasNegativeCycle.
+ *
+ * @author joe caffarini
+ * @param <K> - the key data type
+ * @param <V> - the value data type
+ */
+public class DynamicShortestPaths<K extends Comparable<K>, V> implements GraphListener<K, V> {
+
+	private Graph<K, V> graph;
+	private Vertex<K, V> source;
+	// the distance and predecessor of each vertex index:
+	private double[] distance;
+	private int[] predecessor;
+	// the children of each index in the tree, as linked lists through the
+	// siblings:
+	private int[] firstChild;
+	private int[] nextSibling;
+	private int[] previousSibling;
+	private IndexedHeap heap;
+	// the vertexes below a changed tree edge, stamped so nothing is cleared
+	// between changes:
+	private int[] affected;
+	private int stamp = 0;
+	// the indexes that changed since the last call to takeChanged:
+	private boolean[] changed;
+	private ArrayList<Integer> changedIndexes;
+	// true while a negative cycle can be reached from the source:
+	private boolean negativeCycle = false;
+
+	private final static int NONE = -1;
+
+	/**
+	 * finds the shortest paths from the source and starts listening to the graph.
+	 *
+	 * @param graph     - the graph being searched.
+	 * @param sourceKey - the key of the vertex the paths start at. If it is not
+	 *                  in the graph, no vertex can be reached.
+	 */
+	public DynamicShortestPaths(Graph<K, V> graph, K sourceKey) {
+		this.graph = graph;
+		this.source = graph.getVertex(sourceKey);
+		int capacity = Math.max(16, graph.indexCapacity());
+		distance = new double[0];
+		predecessor = new int[0];
+		firstChild = new int[0];
+		nextSibling = new int[0];
+		previousSibling = new int[0];
+		affected = new int[0];
+		changed = new boolean[0];
+		ensureCapacity(capacity);
+		changedIndexes = new ArrayList<>();
+		heap = new IndexedHeap(4, capacity);
+		if (graph.hasNegativeWeights()) {
+			recompute();
+		} else if (source != null) {
+			distance[source.index] = 0.0;
+			heap.insertOrDecrease(source.index, 0.0);
+			settle();
+		}
+		// the first search is not a change:
+		takeChanged();
+		graph.addListener(this);
+	}
+
+	/**
+	 * stops listening to the graph. The paths are not updated after this.
+	 */
+	public void detach() {
+		graph.removeListener(this);
+	}
+
+	/**
+	 * checks if a negative cycle can be reached from the source. Going around the
+	 * cycle again always gives a shorter path, so then no path is the shortest.
+	 *
+	 * @return true if there is a negative cycle.
+	 */
+	public boolean hasNegativeCycle() {
+		return negativeCycle;
+	}
+
+	/**
+	 * gets the length of the shortest path from the source.
+	 *
+	 * @param key - the key of the end of the path.
+	 * @return the distance, infinity if the vertex can not be reached or is not in
+	 *         the graph, or NaN if there is a negative cycle.
+	 */
+	public double getDistance(K key) {
+		if (negativeCycle) {
+			return Double.NaN;
+		}
+		Vertex<K, V> c = graph.getVertex(key);
+		return c == null ? Double.POSITIVE_INFINITY : distance[c.index];
+	}
+
+	/**
+	 * gets the vertex before the given one on its shortest path.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the predecessor, or null for the source, vertexes that can not be
+	 *         reached, and when there is a negative cycle.
+	 */
+	public Vertex<K, V> getPredecessor(K key) {
+		Vertex<K, V> c = graph.getVertex(key);
+		if (negativeCycle || c == null || predecessor[c.index] == NONE) {
+			return null;
+		}
+		return graph.vertexAt(predecessor[c.index]);
+	}
+
+	/**
+	 * gets the shortest path from the source.
+	 *
+	 * @param key - the key of the end of the path.
+	 * @return the vertexes on the path, empty if there is no path, or null if the
+	 *         key is not in the graph or there is a negative cycle.
+	 */
+	public ArrayList<Vertex<K, V>> getPath(K key) {
+		Vertex<K, V> c = graph.getVertex(key);
+		if (negativeCycle || c == null) {
+			return null;
+		}
+		ArrayList<Vertex<K, V>> path = new ArrayList<>();
+		if (distance[c.index] == Double.POSITIVE_INFINITY) {
+			return path;
+		}
+		for (int i = c.index; i != NONE; i = predecessor[i]) {
+			path.add(graph.vertexAt(i));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * gets the vertexes whose distance or predecessor changed since the last call,
+	 * and starts collecting again.
+	 *
+	 * @return the changed vertexes that are still in the graph.
+	 */
+	public ArrayList<Vertex<K, V>> takeChanged() {
+		ArrayList<Vertex<K, V>> vertexes = new ArrayList<>();
+		for (int i : changedIndexes) {
+			changed[i] = false;
+			Vertex<K, V> c = graph.vertexAt(i);
+			if (c != null) {
+				vertexes.add(c);
+			}
+		}
+		changedIndexes.clear();
+		return vertexes;
+	}
+
+	/**
+	 * makes room for the new vertex, which can not be reached until an edge leads
+	 * to it.
+	 *
+	 * @param vertex - the new vertex.
+	 */
+	@Override
+	public void vertexAdded(Vertex<K, V> vertex) {
+		ensureCapacity(vertex.index + 1);
+		distance[vertex.index] = Double.POSITIVE_INFINITY;
+		predecessor[vertex.index] = NONE;
+		firstChild[vertex.index] = NONE;
+	}
+
+	/**
+	 * repairs the paths that went through the removed vertex.
+	 *
+	 * @param vertex - the removed vertex, which has no edges left.
+	 */
+	@Override
+	public void vertexRemoved(Vertex<K, V> vertex) {
+		int v = vertex.index;
+		if (vertex == source) {
+			// nothing can be reached without the source:
+			source = null;
+			negativeCycle = false;
+			for (int i = 0; i < distance.length; i++) {
+				if (distance[i] != Double.POSITIVE_INFINITY) {
+					distance[i] = Double.POSITIVE_INFINITY;
+					markChanged(i);
+				}
+				predecessor[i] = NONE;
+				firstChild[i] = NONE;
+			}
+			return;
+		}
+		if (source == null) {
+			return;
+		}
+		if (graph.hasNegativeWeights() || negativeCycle) {
+			recompute();
+			return;
+		}
+		if (distance[v] == Double.POSITIVE_INFINITY) {
+			return;
+		}
+		// the vertex has no edges, so repairing its subtree leaves it unreachable:
+		repairSubtree(v);
+	}
+
+	/**
+	 * repairs the paths after the edges between two vertexes changed, in either
+	 * direction.
+	 *
+	 * @param start - the vertex at the start of the edge.
+	 * @param end   - the vertex at the end of the edge.
+	 */
+	@Override
+	public void edgeChanged(Vertex<K, V> start, Vertex<K, V> end) {
+		if (source == null) {
+			return;
+		}
+		// a negative weight, even on a loop, can shorten paths the repairs do not
+		// look at:
+		if (graph.hasNegativeWeights() || negativeCycle) {
+			recompute();
+			return;
+		}
+		if (start == end) {
+			return;
+		}
+		// undirected connections are reported once, so check both directions:
+		edgeChanged(start.index, end.index);
+		edgeChanged(end.index, start.index);
+	}
+
+	/**
+	 * repairs the paths after the edge from u to v changed.
+	 */
+	private void edgeChanged(int u, int v) {
+		Vertex<K, V> end = graph.vertexAt(v);
+		Edge<K, V> e = graph.vertexAt(u).getOutEdge(end.getKey());
+		double through = e == null ? Double.POSITIVE_INFINITY : distance[u] + e.getWeight();
+		if (predecessor[v] == u && through > distance[v]) {
+			// the tree edge got heavier or was removed:
+			repairSubtree(v);
+		} else if (through < distance[v]) {
+			setPath(v, u, through);
+			heap.insertOrDecrease(v, through);
+			settle();
+		}
+	}
+
+	/**
+	 * finds the new distances of the vertexes below v in the tree, which are the
+	 * only ones that can get further away when the edge into v gets heavier.
+	 *
+	 * @param v - the top of the subtree.
+	 */
+	private void repairSubtree(int v) {
+		// collect the subtree and cut it from the tree:
+		stamp++;
+		ArrayList<Integer> subtree = new ArrayList<>();
+		subtree.add(v);
+		affected[v] = stamp;
+		for (int k = 0; k < subtree.size(); k++) {
+			for (int c = firstChild[subtree.get(k)]; c != NONE; c = nextSibling[c]) {
+				affected[c] = stamp;
+				subtree.add(c);
+			}
+		}
+		for (int x : subtree) {
+			unlink(x);
+			firstChild[x] = NONE;
+			distance[x] = Double.POSITIVE_INFINITY;
+			markChanged(x);
+		}
+		// the best way into each affected vertex from the rest of the tree:
+		for (int x : subtree) {
+			for (Edge<K, V> e : graph.vertexAt(x).getInEdges().values()) {
+				int p = e.getStart().index;
+				double through = distance[p] + e.getWeight();
+				if (affected[p] != stamp && through < distance[x]) {
+					distance[x] = through;
+					predecessor[x] = p;
+				}
+			}
+			if (predecessor[x] != NONE) {
+				link(x, predecessor[x]);
+				heap.insertOrDecrease(x, distance[x]);
+			}
+		}
+		settle();
+	}
+
+	/**
+	 * finds every path again with BellmanFord, which allows negative weights, and
+	 * rebuilds the tree from the predecessors it finds.
+	 */
+	private void recompute() {
+		heap.clear();
+		ensureCapacity(graph.indexCapacity());
+		int n = distance.length;
+		double[] newDistance = new double[n];
+		int[] newPredecessor = new int[n];
+		Arrays.fill(newDistance, Double.POSITIVE_INFINITY);
+		Arrays.fill(newPredecessor, NONE);
+		negativeCycle = false;
+		if (source != null) {
+			// the ids of the copy are the vertex indexes:
+			int onCycle = BellmanFord.search(graph.indexSnapshot(), source.index, newDistance, newPredecessor);
+			negativeCycle = onCycle != IntGraph.NONE;
+		}
+		for (int i = 0; i < n; i++) {
+			if (newDistance[i] != distance[i] || newPredecessor[i] != predecessor[i]) {
+				markChanged(i);
+			}
+		}
+		System.arraycopy(newDistance, 0, distance, 0, n);
+		Arrays.fill(predecessor, NONE);
+		Arrays.fill(firstChild, NONE);
+		for (int i = 0; i < n; i++) {
+			if (newPredecessor[i] != NONE) {
+				link(i, newPredecessor[i]);
+			}
+		}
+	}
+
+	/**
+	 * runs dijkstras algorithm from the vertexes in the heap, moving each vertex
+	 * that gets closer to its new predecessor. A vertex whose distance drops again
+	 * after it was settled is searched again, and if the distances keep dropping
+	 * the predecessors are checked for a negative cycle, which can only come from
+	 * weights changed without the graph seeing it.
+	 */
+	private void settle() {
+		long relaxed = 0;
+		int[] mark = null;
+		while (!heap.isEmpty()) {
+			int x = heap.poll();
+			for (Edge<K, V> e : graph.vertexAt(x).getEdgeArray()) {
+				int y = e.getEnd().index;
+				double through = distance[x] + e.getWeight();
+				if (through < distance[y]) {
+					setPath(y, x, through);
+					heap.insertOrDecrease(y, through);
+					// checking the predecessors costs n, so do it once every n changes:
+					if (++relaxed % distance.length == 0) {
+						if (mark == null) {
+							mark = new int[distance.length];
+						}
+						if (BellmanFord.findParentCycle(predecessor, mark) != NONE) {
+							heap.clear();
+							negativeCycle = true;
+							return;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * gives a vertex a new distance and predecessor.
+	 */
+	private void setPath(int x, int p, double newDistance) {
+		if (predecessor[x] != p) {
+			unlink(x);
+			link(x, p);
+		}
+		distance[x] = newDistance;
+		markChanged(x);
+	}
+
+	/**
+	 * adds x to the children of p.
+	 */
+	private void link(int x, int p) {
+		predecessor[x] = p;
+		previousSibling[x] = NONE;
+		nextSibling[x] = firstChild[p];
+		if (firstChild[p] != NONE) {
+			previousSibling[firstChild[p]] = x;
+		}
+		firstChild[p] = x;
+	}
+
+	/**
+	 * removes x from the children of its predecessor.
+	 */
+	private void unlink(int x) {
+		int p = predecessor[x];
+		if (p == NONE) {
+			return;
+		}
+		if (previousSibling[x] != NONE) {
+			nextSibling[previousSibling[x]] = nextSibling[x];
+		} else {
+			firstChild[p] = nextSibling[x];
+		}
+		if (nextSibling[x] != NONE) {
+			previousSibling[nextSibling[x]] = previousSibling[x];
+		}
+		predecessor[x] = NONE;
+	}
+
+	/**
+	 * adds the index to the changed vertexes, once.
+	 */
+	private void markChanged(int x) {
+		if (!changed[x]) {
+			changed[x] = true;
+			changedIndexes.add(x);
+		}
+	}
+
+	/**
+	 * grows the arrays indexed by vertex.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (distance.length < capacity) {
+			int length = Math.max(capacity, distance.length * 2);
+			int old = distance.length;
+			distance = Arrays.copyOf(distance, length);
+			predecessor = Arrays.copyOf(predecessor, length);
+			firstChild = Arrays.copyOf(firstChild, length);
+			nextSibling = Arrays.copyOf(nextSibling, length);
+			previousSibling = Arrays.copyOf(previousSibling, length);
+			affected = Arrays.copyOf(affected, length);
+			changed = Arrays.copyOf(changed, length);
+			Arrays.fill(distance, old, length, Double.POSITIVE_INFINITY);
+			Arrays.fill(predecessor, old, length, NONE);
+			Arrays.fill(firstChild, old, length, NONE);
+		}
+	}
+
+}
@@ -0,0 +1,410 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+/**
+ * a minimum spanning forest that stays up to date while its graph is edited.
+ * The forest listens to the graph, and each change only touches the part of
+ * the forest it affects:
+ *
+ * new edge or lighter edge - if the ends are in different trees the edge joins
+ * them, otherwise it replaces the heaviest edge on the tree path between its
+ * ends if it is lighter. The heaviest edge is found with a link cut tree in
+ * logarithmic amortized time.
+ *
+ * removed or heavier tree edge - the tree is cut in two, and the lightest edge
+ * between the two halves joins them again. The halves are searched at the same
+ * time and the search stops when the smaller one is finished, so only the
+ * smaller half and its edges are looked at.
+ *
+ * Edges are treated as undirected, with the lighter weight if there is an edge
+ * in both directions. The forest only sees changes made through the Graph's
+ * methods.
+ *
+ * @author joe caffarini
+ * @param <K> - the key data type
+ * @param <V> - the value data type
+ */
+public class DynamicSpanningForest<K extends Comparable<K>, V> implements GraphListener<K, V> {
+
+	private Graph<K, V> graph;
+	private LinkCutForest links;
+	// the link cut node of each vertex index, NONE if the index is not in use:
+	private int[] vertexNode;
+	// the link cut node of each tree edge, by the indexes of its ends:
+	private Hashtable<Long, Integer> edgeNodes;
+	// the ends of the tree edge at each link cut node:
+	private int[] edgeStart;
+	private int[] edgeEnd;
+	// the tree neighbors of each vertex index, and the node of the edge to each:
+	private ArrayList<Hashtable<Integer, Integer>> treeNeighbors;
+	private double totalCost = 0.0;
+	// the search of the two halves of a cut tree, stamped so nothing is cleared
+	// between searches:
+	private int[] seen;
+	private boolean[] sideB;
+	private int stamp = 0;
+
+	private final static int NONE = -1;
+
+	/**
+	 * builds the minimum spanning forest of the graph and starts listening to it.
+	 *
+	 * @param graph - the graph being spanned.
+	 */
+	public DynamicSpanningForest(Graph<K, V> graph) {
+		this.graph = graph;
+		int capacity = Math.max(16, graph.indexCapacity());
+		links = new LinkCutForest(2 * capacity);
+		vertexNode = new int[capacity];
+		Arrays.fill(vertexNode, NONE);
+		edgeNodes = new Hashtable<>();
+		edgeStart = new int[2 * capacity];
+		edgeEnd = new int[2 * capacity];
+		treeNeighbors = new ArrayList<>();
+		seen = new int[capacity];
+		sideB = new boolean[capacity];
+		for (K key : graph.getKeys()) {
+			vertexAdded(graph.getVertex(key));
+		}
+		for (K key : graph.getKeys()) {
+			Vertex<K, V> c = graph.getVertex(key);
+			for (Edge<K, V> e : c.getEdgeArray()) {
+				edgeChanged(c, e.getEnd());
+			}
+		}
+		graph.addListener(this);
+	}
+
+	/**
+	 * stops listening to the graph. The forest is not updated after this.
+	 */
+	public void detach() {
+		graph.removeListener(this);
+	}
+
+	/**
+	 * gets the total weight of the forest.
+	 *
+	 * @return the cost of the forest.
+	 */
+	public double getCost() {
+		return totalCost;
+	}
+
+	/**
+	 * gets the number of edges in the forest, each counted once.
+	 *
+	 * @return the number of edges.
+	 */
+	public int getNumberOfEdges() {
+		return edgeNodes.size();
+	}
+
+	/**
+	 * checks if the vertexes are joined by an edge of the forest.
+	 *
+	 * @param startKey - the key of one end.
+	 * @param endKey   - the key of the other end.
+	 * @return true if the edge is in the forest.
+	 */
+	public boolean isTreeEdge(K startKey, K endKey) {
+		Vertex<K, V> start = graph.getVertex(startKey);
+		Vertex<K, V> end = graph.getVertex(endKey);
+		return start != null && end != null && edgeNodes.containsKey(pair(start.index, end.index));
+	}
+
+	/**
+	 * copies the forest into a new graph, like the graph made by kruskals.
+	 *
+	 * @return a graph with the vertexes on forest edges, and the edges connected in
+	 *         both directions. Its cost is the total weight of the forest.
+	 */
+	public Graph<K, V> toGraph() {
+		Graph<K, V> g = new Graph<K, V>();
+		for (Integer node : edgeNodes.values()) {
+			Vertex<K, V> start = graph.vertexAt(edgeStart[node]);
+			Vertex<K, V> end = graph.vertexAt(edgeEnd[node]);
+			// add copies, so the vertexes keep their indexes in this graph:
+			g.add(start);
+			g.add(end);
+			g.connect(start.getKey(), end.getKey(), links.getValue(node));
+		}
+		g.setCost(totalCost);
+		return g;
+	}
+
+	/**
+	 * gives the new vertex a node of its own.
+	 *
+	 * @param vertex - the new vertex.
+	 */
+	@Override
+	public void vertexAdded(Vertex<K, V> vertex) {
+		ensureCapacity(vertex.index + 1);
+		vertexNode[vertex.index] = links.newNode(Double.NEGATIVE_INFINITY);
+		treeNeighbors.set(vertex.index, new Hashtable<>());
+	}
+
+	/**
+	 * cuts every tree edge of the removed vertex, joining the pieces back together
+	 * where other edges allow.
+	 *
+	 * @param vertex - the removed vertex.
+	 */
+	@Override
+	public void vertexRemoved(Vertex<K, V> vertex) {
+		int v = vertex.index;
+		for (Integer neighbor : new ArrayList<>(treeNeighbors.get(v).keySet())) {
+			removeTreeEdge(v, neighbor);
+		}
+		links.freeNode(vertexNode[v]);
+		vertexNode[v] = NONE;
+		treeNeighbors.set(v, null);
+	}
+
+	/**
+	 * updates the forest for the new weight of the edges between two vertexes.
+	 *
+	 * @param start - the vertex at the start of the edge.
+	 * @param end   - the vertex at the end of the edge.
+	 */
+	@Override
+	public void edgeChanged(Vertex<K, V> start, Vertex<K, V> end) {
+		int u = start.index;
+		int v = end.index;
+		if (u == v) {
+			return;
+		}
+		double weight = pairWeight(start, end);
+		Integer node = edgeNodes.get(pair(u, v));
+		if (node != null) {
+			if (weight <= links.getValue(node)) {
+				// a lighter tree edge keeps the forest minimal:
+				totalCost += weight - links.getValue(node);
+				links.setValue(node, weight);
+			} else {
+				// the edge is gone or heavier, so a lighter edge may join the halves:
+				removeTreeEdge(u, v);
+			}
+		} else if (weight != Double.POSITIVE_INFINITY) {
+			insert(u, v, weight);
+		}
+	}
+
+	/**
+	 * adds an edge that is not in the forest, if it makes the forest lighter.
+	 *
+	 * @param u      - the index of one end.
+	 * @param v      - the index of the other end.
+	 * @param weight - the weight of the edge.
+	 */
+	private void insert(int u, int v, double weight) {
+		if (!links.connected(vertexNode[u], vertexNode[v])) {
+			addTreeEdge(u, v, weight);
+			return;
+		}
+		int heaviest = links.pathMax(vertexNode[u], vertexNode[v]);
+		if (links.getValue(heaviest) > weight) {
+			cutTreeEdge(heaviest);
+			addTreeEdge(u, v, weight);
+		}
+	}
+
+	/**
+	 * cuts a tree edge, then joins the two halves with the lightest edge between
+	 * them if there is one.
+	 *
+	 * @param u - the index of one end.
+	 * @param v - the index of the other end.
+	 */
+	private void removeTreeEdge(int u, int v) {
+		cutTreeEdge(edgeNodes.get(pair(u, v)));
+		// search both halves at once, and keep the one that finishes first:
+		stamp++;
+		ArrayDeque<Integer> queueA = new ArrayDeque<>();
+		ArrayDeque<Integer> queueB = new ArrayDeque<>();
+		ArrayList<Integer> halfA = new ArrayList<>();
+		ArrayList<Integer> halfB = new ArrayList<>();
+		visit(u, false, queueA, halfA);
+		visit(v, true, queueB, halfB);
+		while (!queueA.isEmpty() && !queueB.isEmpty()) {
+			expand(queueA.poll(), false, queueA, halfA);
+			expand(queueB.poll(), true, queueB, halfB);
+		}
+		// the half whose search finished has been found completely:
+		boolean smallIsB = queueB.isEmpty();
+		ArrayList<Integer> small = smallIsB ? halfB : halfA;
+		// the lightest edge leaving the smaller half:
+		int bestStart = NONE;
+		int bestEnd = NONE;
+		double bestWeight = Double.POSITIVE_INFINITY;
+		for (int x : small) {
+			Vertex<K, V> c = graph.vertexAt(x);
+			for (Edge<K, V> e : c.getEdgeArray()) {
+				int y = e.getEnd().index;
+				if (isOtherSide(y, smallIsB) && e.getWeight() < bestWeight) {
+					bestStart = x;
+					bestEnd = y;
+					bestWeight = e.getWeight();
+				}
+			}
+			for (Edge<K, V> e : c.getInEdges().values()) {
+				int y = e.getStart().index;
+				if (isOtherSide(y, smallIsB) && e.getWeight() < bestWeight) {
+					bestStart = x;
+					bestEnd = y;
+					bestWeight = e.getWeight();
+				}
+			}
+		}
+		if (bestStart != NONE) {
+			addTreeEdge(bestStart, bestEnd, bestWeight);
+		}
+	}
+
+	/**
+	 * checks if a vertex is on the other half from the smaller half.
+	 */
+	private boolean isOtherSide(int y, boolean smallIsB) {
+		if (smallIsB) {
+			// side B is complete, so anything not marked B is on the other side:
+			return seen[y] != stamp || !sideB[y];
+		}
+		// side A is complete, so anything not marked A is on the other side:
+		return seen[y] != stamp || sideB[y];
+	}
+
+	/**
+	 * adds the tree neighbors of a vertex to the search of its half.
+	 */
+	private void expand(int x, boolean b, ArrayDeque<Integer> queue, ArrayList<Integer> half) {
+		for (Integer y : treeNeighbors.get(x).keySet()) {
+			if (seen[y] != stamp) {
+				visit(y, b, queue, half);
+			}
+		}
+	}
+
+	/**
+	 * marks a vertex as found by the search of one half.
+	 */
+	private void visit(int x, boolean b, ArrayDeque<Integer> queue, ArrayList<Integer> half) {
+		seen[x] = stamp;
+		sideB[x] = b;
+		queue.add(x);
+		half.add(x);
+	}
+
+	/**
+	 * adds an edge to the forest.
+	 */
+	private void addTreeEdge(int u, int v, double weight) {
+		int node = links.newNode(weight);
+		ensureEdgeCapacity(node + 1);
+		edgeStart[node] = u;
+		edgeEnd[node] = v;
+		links.link(vertexNode[u], node);
+		links.link(node, vertexNode[v]);
+		edgeNodes.put(pair(u, v), node);
+		treeNeighbors.get(u).put(v, node);
+		treeNeighbors.get(v).put(u, node);
+		totalCost += weight;
+	}
+
+	/**
+	 * removes an edge from the forest.
+	 */
+	private void cutTreeEdge(int node) {
+		int u = edgeStart[node];
+		int v = edgeEnd[node];
+		totalCost -= links.getValue(node);
+		links.cut(vertexNode[u], node);
+		links.cut(node, vertexNode[v]);
+		links.freeNode(node);
+		edgeNodes.remove(pair(u, v));
+		treeNeighbors.get(u).remove(v);
+		treeNeighbors.get(v).remove(u);
+	}
+
+	/**
+	 * gets the weight of the lighter of the edges between two vertexes.
+	 *
+	 * @return the weight, or infinity if there is no edge either way.
+	 */
+	private double pairWeight(Vertex<K, V> a, Vertex<K, V> b) {
+		double weight = Double.POSITIVE_INFINITY;
+		Edge<K, V> forward = a.getOutEdge(b.getKey());
+		Edge<K, V> reverse = b.getOutEdge(a.getKey());
+		if (forward != null) {
+			weight = forward.getWeight();
+		}
+		if (reverse != null) {
+			weight = Math.min(weight, reverse.getWeight());
+		}
+		return weight;
+	}
+
+	/**
+	 * gets the same key for both orders of two indexes.
+	 */
+	private static Long pair(int u, int v) {
+		return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+	}
+
+	/**
+	 * grows the arrays indexed by vertex.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (vertexNode.length < capacity) {
+			int length = Math.max(capacity, vertexNode.length * 2);
+			int old = vertexNode.length;
+			vertexNode = Arrays.copyOf(vertexNode, length);
+			Arrays.fill(vertexNode, old, length, NONE);
+			seen = Arrays.copyOf(seen, length);
+			sideB = Arrays.copyOf(sideB, length);
+		}
+		while (treeNeighbors.size() < capacity) {
+			treeNeighbors.add(null);
+		}
+	}
+
+	/**
+	 * grows the arrays indexed by link cut node.
+	 */
+	private void ensureEdgeCapacity(int capacity) {
+		if (edgeStart.length < capacity) {
+			int length = Math.max(capacity, edgeStart.length * 2);
+			edgeStart = Arrays.copyOf(edgeStart, length);
+			edgeEnd = Arrays.copyOf(edgeEnd, length);
+		}
+	}
+
+}
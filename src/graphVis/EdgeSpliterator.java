@@ -0,0 +1,144 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * spliterator over the out edges of a range of vertexes. The range is split in
+ * half by vertex, so the edges of a graph can be processed by a parallel stream
+ * without copying them into a collection first. The graph should not be changed
+ * while its edges are being streamed.
+ *
+ * @author joe caffarini
+ * @param <K> - the key data type
+ * @param <V> - the value data type
+ */
+public class EdgeSpliterator<K extends Comparable<K>, V> implements Spliterator<Edge<K, V>> {
+
+	private Vertex<K, V>[] vertexes;
+	// the next vertex whose edges are returned, and one past the last vertex:
+	private int next;
+	private int end;
+	// the remaining edges of the vertex before next:
+	private Iterator<Edge<K, V>> edges;
+	private long estimate;
+
+	/**
+	 * creates a spliterator over the out edges of the given vertexes.
+	 *
+	 * @param vertexes - the vertexes whose edges are returned.
+	 * @param start    - the index of the first vertex.
+	 * @param end      - one past the index of the last vertex.
+	 * @param estimate - the expected number of edges in the range.
+	 */
+	public EdgeSpliterator(Vertex<K, V>[] vertexes, int start, int end, long estimate) {
+		this.vertexes = vertexes;
+		this.next = start;
+		this.end = end;
+		this.estimate = estimate;
+	}
+
+	/**
+	 * gives the next edge to the action.
+	 *
+	 * @param action - the action performed on the edge.
+	 * @return false if there are no edges left.
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super Edge<K, V>> action) {
+		while (edges == null || !edges.hasNext()) {
+			if (next >= end) {
+				return false;
+			}
+			edges = vertexes[next++].getEdges().values().iterator();
+		}
+		action.accept(edges.next());
+		return true;
+	}
+
+	/**
+	 * gives every remaining edge to the action.
+	 *
+	 * @param action - the action performed on each edge.
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super Edge<K, V>> action) {
+		if (edges != null) {
+			edges.forEachRemaining(action);
+			edges = null;
+		}
+		for (; next < end; next++) {
+			for (Edge<K, V> c : vertexes[next].getEdges().values()) {
+				action.accept(c);
+			}
+		}
+	}
+
+	/**
+	 * splits off the first half of the remaining vertexes.
+	 *
+	 * @return a spliterator over the edges of the first half, or null if there are
+	 *         too few vertexes left to split.
+	 */
+	@Override
+	public Spliterator<Edge<K, V>> trySplit() {
+		int mid = (next + end) >>> 1;
+		if (mid <= next) {
+			return null;
+		}
+		long half = estimate / 2;
+		EdgeSpliterator<K, V> prefix = new EdgeSpliterator<K, V>(vertexes, next, mid, half);
+		// the edges that were started belong to the first half:
+		prefix.edges = edges;
+		edges = null;
+		next = mid;
+		estimate -= half;
+		return prefix;
+	}
+
+	/**
+	 * estimates the number of edges left.
+	 *
+	 * @return the expected number of edges.
+	 */
+	@Override
+	public long estimateSize() {
+		return estimate;
+	}
+
+	/**
+	 * the edges are never null, and each edge is only returned once.
+	 *
+	 * @return the characteristics of the spliterator.
+	 */
+	@Override
+	public int characteristics() {
+		return Spliterator.NONNULL | Spliterator.DISTINCT;
+	}
+
+}
@@ -0,0 +1,185 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * cooperative scheduler for work that is too expensive to finish in a single
+ * frame. Work is split into resumable units that are stepped a little at a
+ * time, and each subsystem only gets its own time budget every frame, so the
+ * frame rate stays steady while the work finishes over the next few frames.
+ *
+ * @author joe caffarini
+ */
+public class FrameScheduler {
+
+	/**
+	 * a job that can be paused between frames. Each call to step should do a
+	 * small, bounded piece of the job.
+	 */
+	public interface WorkUnit {
+		/**
+		 * does the next piece of work.
+		 *
+		 * @return true if the job is finished, false if there is more work left.
+		 */
+		boolean step();
+	}
+
+	/**
+	 * a named queue of jobs and the time it is allowed each frame.
+	 */
+	private static class Subsystem {
+		String name;
+		long budget;
+		ArrayDeque<WorkUnit> jobs;
+
+		Subsystem(String name, long budget) {
+			this.name = name;
+			this.budget = budget;
+			jobs = new ArrayDeque<>();
+		}
+	}
+
+	// subsystems are run in the order they were added:
+	private ArrayList<Subsystem> subsystems;
+
+	/**
+	 * creates a scheduler with no subsystems.
+	 */
+	public FrameScheduler() {
+		subsystems = new ArrayList<>();
+	}
+
+	/**
+	 * adds a subsystem with the given budget, or changes the budget if the
+	 * subsystem already exists.
+	 *
+	 * @param name   - the name of the subsystem.
+	 * @param budget - the time the subsystem can use each frame in nanoseconds.
+	 */
+	public void addSubsystem(String name, long budget) {
+		Subsystem s = getSubsystem(name);
+		if (s == null) {
+			subsystems.add(new Subsystem(name, budget));
+		} else {
+			s.budget = budget;
+		}
+	}
+
+	/**
+	 * queues a job on the given subsystem. A job that is already queued is not
+	 * added a second time.
+	 *
+	 * @param name - the name of the subsystem.
+	 * @param job  - the job being queued.
+	 * @return true if the job was queued, false if the subsystem does not exist or
+	 *         the job was already queued.
+	 */
+	public boolean submit(String name, WorkUnit job) {
+		Subsystem s = getSubsystem(name);
+		if (s == null || job == null || s.jobs.contains(job)) {
+			return false;
+		}
+		s.jobs.add(job);
+		return true;
+	}
+
+	/**
+	 * drops all of the unfinished jobs of the given subsystem.
+	 *
+	 * @param name - the name of the subsystem.
+	 */
+	public void cancel(String name) {
+		Subsystem s = getSubsystem(name);
+		if (s != null) {
+			s.jobs.clear();
+		}
+	}
+
+	/**
+	 * checks if any subsystem still has unfinished jobs.
+	 *
+	 * @return true if there is work left.
+	 */
+	public boolean hasWork() {
+		for (Subsystem s : subsystems) {
+			if (!s.jobs.isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * checks if the given subsystem still has unfinished jobs.
+	 *
+	 * @param name - the name of the subsystem.
+	 * @return true if the subsystem has work left.
+	 */
+	public boolean hasWork(String name) {
+		Subsystem s = getSubsystem(name);
+		return s != null && !s.jobs.isEmpty();
+	}
+
+	/**
+	 * runs the queued jobs for one frame. Each subsystem steps its jobs in order
+	 * until its budget runs out. Every subsystem with work gets at least one step
+	 * per frame so that no job is starved.
+	 */
+	public void runFrame() {
+		for (Subsystem s : subsystems) {
+			long deadline = System.nanoTime() + s.budget;
+			do {
+				WorkUnit job = s.jobs.peek();
+				if (job == null) {
+					break;
+				}
+				if (job.step()) {
+					// remove finished jobs:
+					s.jobs.poll();
+				}
+			} while (System.nanoTime() < deadline);
+		}
+	}
+
+	/**
+	 * gets the subsystem with the given name.
+	 *
+	 * @param name - the name of the subsystem.
+	 * @return the subsystem, or null if there is no subsystem with that name.
+	 */
+	private Subsystem getSubsystem(String name) {
+		for (Subsystem s : subsystems) {
+			if (s.name.equals(name)) {
+				return s;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,257 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * a breadth first search that visits the graph one level at a time. The
+ * vertexes of the current level, the next level and every visited vertex are
+ * kept in bitsets, one bit per id. Each level is expanded in one of two
+ * directions:
+ *
+ * top down - every vertex of the current level claims its unvisited
+ * successors, which is cheap while the level is small.
+ *
+ * bottom up - every unvisited vertex looks through its in edges for a parent
+ * in the current level, and stops at the first one. Once the level holds most
+ * of the edges this looks at far fewer edges than top down.
+ *
+ * The words of the bitsets are split between the cores on large graphs. The
+ * parent that finds a vertex can differ between runs, but every parent is on
+ * the level before the vertex, so the parents always form a breadth first tree.
+ *
+ * @author joe caffarini
+ */
+public class FrontierSearch {
+
+	// switch to bottom up once the level has more than 1/ALPHA of the unvisited
+	// edges:
+	private final static int ALPHA = 14;
+	// switch back to top down once the level has fewer than 1/BETA of the
+	// vertexes:
+	private final static int BETA = 24;
+	// graphs with fewer ids than this are searched on one thread:
+	private final static int PARALLEL_IDS = 1 << 14;
+
+	/**
+	 * finds the parent of every vertex reachable from the start.
+	 *
+	 * @param g        - the graph, which is frozen if it was not already.
+	 * @param startKey - the key where the search is starting.
+	 * @return the id of the parent of each id, the start is its own parent and
+	 *         vertexes that were not reached have -1. Returns null if the key is
+	 *         not in the graph.
+	 */
+	public static int[] parents(IntGraph<?> g, int startKey) {
+		int start = g.indexOf(startKey);
+		if (start == IntGraph.NONE) {
+			return null;
+		}
+		g.freeze();
+		int n = g.idCount();
+		int words = (n + 63) >>> 6;
+		int[] parent = new int[n];
+		Arrays.fill(parent, IntGraph.NONE);
+		parent[start] = start;
+		AtomicLongArray visited = new AtomicLongArray(words);
+		AtomicLongArray frontier = new AtomicLongArray(words);
+		AtomicLongArray next = new AtomicLongArray(words);
+		visited.set(start >>> 6, 1L << start);
+		frontier.set(start >>> 6, 1L << start);
+		long frontierSize = 1;
+		long frontierEdges = g.outDegree(start);
+		long unvisitedEdges = g.getNumberOfEdges() - frontierEdges;
+		boolean parallel = n >= PARALLEL_IDS;
+		boolean bottomUp = false;
+		while (frontierSize > 0) {
+			if (!bottomUp && frontierEdges > unvisitedEdges / ALPHA) {
+				bottomUp = true;
+			} else if (bottomUp && frontierSize < n / BETA) {
+				bottomUp = false;
+			}
+			IntStream range = IntStream.range(0, words);
+			if (parallel) {
+				range = range.parallel();
+			}
+			final AtomicLongArray current = frontier;
+			final AtomicLongArray found = next;
+			if (bottomUp) {
+				range.forEach(w -> bottomUpWord(g, w, n, parent, visited, current, found));
+			} else {
+				range.forEach(w -> topDownWord(g, w, parent, visited, current, found));
+			}
+			// measure the next level, and clear the current one for reuse:
+			range = IntStream.range(0, words);
+			if (parallel) {
+				range = range.parallel();
+			}
+			frontierSize = 0;
+			for (int w = 0; w < words; w++) {
+				frontierSize += Long.bitCount(found.get(w));
+			}
+			frontierEdges = range.mapToLong(w -> {
+				current.set(w, 0L);
+				return outDegrees(g, found.get(w), w);
+			}).sum();
+			unvisitedEdges -= frontierEdges;
+			frontier = found;
+			next = current;
+		}
+		return parent;
+	}
+
+	/**
+	 * builds the breadth first spanning tree from the start, found with parents.
+	 *
+	 * @param g        - the graph.
+	 * @param startKey - the key where the search is starting.
+	 * @return the tree, with every reached vertex and the edge from its parent.
+	 *         Returns null if the key is not in the graph.
+	 */
+	public static <V> IntGraph<V> spanning(IntGraph<V> g, int startKey) {
+		int[] parent = parents(g, startKey);
+		if (parent == null) {
+			return null;
+		}
+		IntGraph<V> tree = new IntGraph<V>();
+		for (int id = 0; id < parent.length; id++) {
+			if (parent[id] != IntGraph.NONE) {
+				tree.add(g.keyOf(id), g.getValue(id));
+			}
+		}
+		for (int id = 0; id < parent.length; id++) {
+			if (parent[id] != IntGraph.NONE && parent[id] != id) {
+				int p = g.keyOf(parent[id]);
+				int c = g.keyOf(id);
+				tree.directedConnect(p, c, g.getOutEdgeWeight(p, c));
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * expands one word of the current level top down.
+	 *
+	 * @param g        - the graph.
+	 * @param w        - the index of the word.
+	 * @param parent   - the parent of each id.
+	 * @param visited  - the visited ids.
+	 * @param frontier - the ids of the current level.
+	 * @param next     - the ids of the next level.
+	 */
+	private static void topDownWord(IntGraph<?> g, int w, int[] parent, AtomicLongArray visited,
+			AtomicLongArray frontier, AtomicLongArray next) {
+		long bits = frontier.get(w);
+		while (bits != 0) {
+			int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+			bits &= bits - 1;
+			for (int i = 0; i < g.outDegree(c); i++) {
+				int s = g.outEnd(c, i);
+				// only the thread that sets the visited bit writes the parent:
+				if (parent[s] == IntGraph.NONE && claim(visited, s)) {
+					parent[s] = c;
+					claim(next, s);
+				}
+			}
+		}
+	}
+
+	/**
+	 * expands one word of unvisited ids bottom up. Only this call writes the word,
+	 * so the bits are gathered locally and stored once.
+	 *
+	 * @param g        - the graph.
+	 * @param w        - the index of the word.
+	 * @param n        - the number of ids.
+	 * @param parent   - the parent of each id.
+	 * @param visited  - the visited ids.
+	 * @param frontier - the ids of the current level.
+	 * @param next     - the ids of the next level.
+	 */
+	private static void bottomUpWord(IntGraph<?> g, int w, int n, int[] parent, AtomicLongArray visited,
+			AtomicLongArray frontier, AtomicLongArray next) {
+		long unvisited = ~visited.get(w);
+		if ((w << 6) + 64 > n) {
+			// ignore the bits past the last id:
+			unvisited &= (1L << (n & 63)) - 1;
+		}
+		long found = 0;
+		while (unvisited != 0) {
+			int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+			unvisited &= unvisited - 1;
+			if (!g.isAlive(v)) {
+				continue;
+			}
+			for (int i = 0; i < g.inDegree(v); i++) {
+				int u = g.inStart(v, i);
+				if ((frontier.get(u >>> 6) & (1L << u)) != 0) {
+					parent[v] = u;
+					found |= 1L << v;
+					break;
+				}
+			}
+		}
+		if (found != 0) {
+			visited.set(w, visited.get(w) | found);
+			next.set(w, found);
+		}
+	}
+
+	/**
+	 * adds up the out degrees of the ids in one word.
+	 */
+	private static long outDegrees(IntGraph<?> g, long bits, int w) {
+		long edges = 0;
+		while (bits != 0) {
+			edges += g.outDegree((w << 6) + Long.numberOfTrailingZeros(bits));
+			bits &= bits - 1;
+		}
+		return edges;
+	}
+
+	/**
+	 * sets a bit, unless another thread set it first.
+	 *
+	 * @param bits - the bitset.
+	 * @param i    - the bit.
+	 * @return true if this call set the bit.
+	 */
+	private static boolean claim(AtomicLongArray bits, int i) {
+		int w = i >>> 6;
+		long mask = 1L << i;
+		long old;
+		do {
+			old = bits.get(w);
+			if ((old & mask) != 0) {
+				return false;
+			}
+		} while (!bits.compareAndSet(w, old, old | mask));
+		return true;
+	}
+
+}
@@ -25,12 +25,25 @@
 package graphVis;
 
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.PriorityQueue;
-import java.util.Stack;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /***
  * a graph implementation
@@ -47,9 +60,92 @@ public class Graph<K extends Comparable<K>, V> {
 
 	private Hashtable<K, Vertex<K, V>> members;
 	private double totalCost = 0;
+	// each vertex has a dense index so traversal state can be kept in arrays. The
+	// vertex at each index, and the indexes of removed vertexes that can be reused:
+	private ArrayList<Vertex<K, V>> indexes;
+	private ArrayDeque<Integer> freeIndexes;
+	// structures that are kept up to date with the graph, see GraphListener:
+	private ArrayList<GraphListener<K, V>> listeners;
+	// the number of edges with a negative weight, so shortest path queries know
+	// if dijkstras algorithm can be used without looking at every edge:
+	private int negativeEdges = 0;
+	// the copy made by indexSnapshot, kept until a vertex or edge changes:
+	private IntGraph<Void> snapshot;
 
 	public Graph() {
 		members = new Hashtable<K, Vertex<K, V>>();
+		indexes = new ArrayList<Vertex<K, V>>();
+		freeIndexes = new ArrayDeque<Integer>();
+		listeners = new ArrayList<GraphListener<K, V>>();
+	}
+
+	/**
+	 * adds a listener that is told about every change made through this graph's
+	 * methods. Copies of the graph do not have the listener.
+	 *
+	 * @param listener - the listener being added.
+	 */
+	public void addListener(GraphListener<K, V> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * removes a listener.
+	 *
+	 * @param listener - the listener being removed.
+	 * @return true if the listener was found.
+	 */
+	public boolean removeListener(GraphListener<K, V> listener) {
+		return listeners.remove(listener);
+	}
+
+	/**
+	 * counts the edges with a negative weight between two vertexes, in both
+	 * directions.
+	 *
+	 * @param startKey - the key of one vertex.
+	 * @param endKey   - the key of the other vertex.
+	 * @return the number of negative edges, from 0 to 2.
+	 */
+	private int negativeBetween(K startKey, K endKey) {
+		Vertex<K, V> start = members.get(startKey);
+		Vertex<K, V> end = members.get(endKey);
+		if (start == null || end == null) {
+			return 0;
+		}
+		int count = 0;
+		Edge<K, V> forward = start.getOutEdge(endKey);
+		if (forward != null && forward.getWeight() < 0) {
+			count++;
+		}
+		Edge<K, V> reverse = end.getOutEdge(startKey);
+		if (start != end && reverse != null && reverse.getWeight() < 0) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * updates the count of negative edges and tells the listeners that the edges
+	 * between two vertexes changed.
+	 *
+	 * @param startKey - the key of the start of the edge.
+	 * @param endKey   - the key of the end of the edge.
+	 * @param before   - the negative edges between the vertexes before the change.
+	 */
+	private void fireEdgeChanged(K startKey, K endKey, int before) {
+		negativeEdges += negativeBetween(startKey, endKey) - before;
+		snapshot = null;
+		if (listeners.isEmpty()) {
+			return;
+		}
+		Vertex<K, V> start = members.get(startKey);
+		Vertex<K, V> end = members.get(endKey);
+		if (start != null && end != null) {
+			for (GraphListener<K, V> listener : listeners) {
+				listener.edgeChanged(start, end);
+			}
+		}
 	}
 
 	/**
@@ -62,6 +158,15 @@ public class Graph<K extends Comparable<K>, V> {
 		}
 	}
 
+	/**
+	 * comparator that sorts edges in increasing order by weight.
+	 */
+	private class CompareEdgeWeights implements Comparator<Edge<K, V>> {
+		public int compare(Edge<K, V> edge1, Edge<K, V> edge2) {
+			return Double.compare(edge1.getWeight(), edge2.getWeight());
+		}
+	}
+
 	/**
 	 * adds a vertex with the given key value pair to the graph
 	 *
@@ -71,7 +176,11 @@ public class Graph<K extends Comparable<K>, V> {
 	public void add(K key, V value) {
 		Vertex<K, V> newMember = new Vertex<K, V>(key, value);
 		if (members.get(key) == null) {
+			assignIndex(newMember);
 			members.put(key, newMember);
+			for (GraphListener<K, V> listener : listeners) {
+				listener.vertexAdded(newMember);
+			}
 		} else {
 			members.get(key).setValue(value);
 		}
@@ -86,12 +195,91 @@ public class Graph<K extends Comparable<K>, V> {
 	public void add(Vertex<K, V> vertex) {
 		Vertex<K, V> newMember = new Vertex<K, V>(vertex.getKey(), vertex.getValue());
 		if (members.get(newMember.getKey()) == null) {
+			assignIndex(newMember);
 			members.put(newMember.getKey(), newMember);
+			for (GraphListener<K, V> listener : listeners) {
+				listener.vertexAdded(newMember);
+			}
 		} else {
 			members.get(newMember.getKey()).setValue(vertex.getValue());
 		}
 	}
 
+	/**
+	 * copies the structure of this graph. The copy has its own vertexes and edges,
+	 * so traversals of the copy never touch the state of this graph, but the
+	 * values stored in the vertexes are shared.
+	 *
+	 * @return a new graph with the same vertexes, edges and weights.
+	 */
+	public Graph<K, V> copy() {
+		Graph<K, V> g = new Graph<K, V>();
+		Enumeration<K> keys = members.keys();
+		K key = null;
+		while (keys.hasMoreElements()) {
+			key = keys.nextElement();
+			g.add(members.get(key));
+		}
+		// connect the vertexes once they are all in the copy:
+		keys = members.keys();
+		while (keys.hasMoreElements()) {
+			key = keys.nextElement();
+			for (Edge<K, V> c : members.get(key).getEdges().values()) {
+				g.directedConnect(key, c.getEnd().getKey(), c.getWeight());
+			}
+		}
+		g.setCost(totalCost);
+		return g;
+	}
+
+	/**
+	 * gives a new vertex the lowest free index.
+	 *
+	 * @param vertex - the vertex being added.
+	 */
+	private synchronized void assignIndex(Vertex<K, V> vertex) {
+		snapshot = null;
+		Integer index = freeIndexes.poll();
+		if (index == null) {
+			vertex.index = indexes.size();
+			indexes.add(vertex);
+		} else {
+			vertex.index = index;
+			indexes.set(index, vertex);
+		}
+	}
+
+	/**
+	 * frees the index of a removed vertex so it can be reused.
+	 *
+	 * @param vertex - the vertex being removed.
+	 */
+	private synchronized void releaseIndex(Vertex<K, V> vertex) {
+		snapshot = null;
+		indexes.set(vertex.index, null);
+		freeIndexes.push(vertex.index);
+	}
+
+	/**
+	 * gets the number of vertex indexes, arrays indexed by vertex need to be this
+	 * long.
+	 *
+	 * @return one past the largest index.
+	 */
+	int indexCapacity() {
+		return indexes.size();
+	}
+
+	/**
+	 * gets the vertex with the given index.
+	 *
+	 * @param index - the index of the vertex.
+	 * @return the vertex, or null if the index is not in use.
+	 */
+	Vertex<K, V> vertexAt(int index) {
+		return indexes.get(index);
+	}
+
 	/**
 	 * gets the total cost of the current graph. Useful for spanning trees
 	 * algorithms.
@@ -112,28 +300,88 @@ public class Graph<K extends Comparable<K>, V> {
 	}
 
 	/**
-	 * removes the specified vertex, and all edges ending at it.
+	 * removes the specified vertex, and all edges starting or ending at it. The in
+	 * edges of the vertex say which vertexes point to it, so only its neighbors
+	 * are touched.
 	 *
 	 * @param key - the key of the specified vertex.
 	 * @return - true if successful, false if item was not found or removed.
 	 */
 	public boolean remove(K key) {
-		if (members.get(key) == null) {
+		Vertex<K, V> c = members.remove(key);
+		if (c == null) {
 			return false;
 		}
-		PriorityQueue<Vertex<K, V>> q = sortVertexes();
-		while (q.size() > 0) {
-			Vertex<K, V> c = q.poll();
-			// completely remove all edges to and from this vertex:
-			if (isThereAnEdge(c.getKey(), key)) {
-				disconnectAll(c.getKey(), key);
+		detach(c, null);
+		for (GraphListener<K, V> listener : listeners) {
+			listener.vertexRemoved(c);
+		}
+		releaseIndex(c);
+		return true;
+	}
+
+	/**
+	 * removes all of the specified vertexes, and all edges starting or ending at
+	 * them. Edges between two removed vertexes are dropped with the vertexes
+	 * instead of being disconnected one at a time.
+	 *
+	 * @param keys - the keys of the vertexes being removed.
+	 * @return the number of vertexes that were removed.
+	 */
+	public int removeAll(Collection<K> keys) {
+		Hashtable<K, Vertex<K, V>> removed = new Hashtable<>();
+		for (K key : keys) {
+			Vertex<K, V> c = members.remove(key);
+			if (c != null) {
+				removed.put(key, c);
+			}
+		}
+		for (Vertex<K, V> c : removed.values()) {
+			detach(c, removed);
+		}
+		for (Vertex<K, V> c : removed.values()) {
+			for (GraphListener<K, V> listener : listeners) {
+				listener.vertexRemoved(c);
 			}
 		}
-		// delete the vertex after all its edges are deleted:
-		if (members.remove(key) == null) {
-			return false;
+		for (Vertex<K, V> c : removed.values()) {
+			releaseIndex(c);
 		}
-		return true;
+		return removed.size();
+	}
+
+	/**
+	 * disconnects a vertex that was taken out of the graph from its remaining
+	 * neighbors.
+	 *
+	 * @param c       - the vertex being removed.
+	 * @param removed - the other vertexes being removed at the same time, or null.
+	 */
+	private void detach(Vertex<K, V> c, Hashtable<K, Vertex<K, V>> removed) {
+		for (Edge<K, V> e : c.getInEdges().values()) {
+			Vertex<K, V> start = e.getStart();
+			if (start != c && (removed == null || !removed.containsKey(start.getKey()))) {
+				// remove the edge from the neighbor's out edges:
+				start.removeOutEdge(c.getKey());
+				if (e.getWeight() < 0) {
+					negativeEdges--;
+				}
+			}
+		}
+		for (Edge<K, V> e : c.getEdges().values()) {
+			// every out edge is dropped, and each edge is the out edge of one vertex:
+			if (e.getWeight() < 0) {
+				negativeEdges--;
+			}
+			Vertex<K, V> end = e.getEnd();
+			if (end != c && (removed == null || !removed.containsKey(end.getKey()))) {
+				// remove the edge from the neighbor's in edges:
+				end.removeInEdge(c.getKey());
+			}
+		}
+		c.getInEdges().clear();
+		c.clearOutEdges();
+		snapshot = null;
 	}
 
 	/**
@@ -143,7 +391,12 @@ public class Graph<K extends Comparable<K>, V> {
 	 * @return
 	 */
 	public boolean disconnect(K startKey, K endKey) {
-		return members.get(startKey).disconnect(endKey);
+		int before = negativeBetween(startKey, endKey);
+		boolean removed = members.get(startKey).disconnect(endKey);
+		if (removed) {
+			fireEdgeChanged(startKey, endKey, before);
+		}
+		return removed;
 	}
 
 	/**
@@ -153,7 +406,10 @@ public class Graph<K extends Comparable<K>, V> {
 	 * @return
 	 */
 	public boolean disconnectAll(K startKey, K endKey) {
-		return (members.get(startKey).disconnect(endKey) && members.get(endKey).disconnect(startKey));
+		int before = negativeBetween(startKey, endKey);
+		boolean removed = (members.get(startKey).disconnect(endKey) && members.get(endKey).disconnect(startKey));
+		fireEdgeChanged(startKey, endKey, before);
+		return removed;
 	}
 
 	/**
@@ -165,8 +421,12 @@ public class Graph<K extends Comparable<K>, V> {
 	 *         edge already exists.
 	 */
 	public boolean directedConnect(K startKey, K endKey) {
-		return members.get(startKey).connect(members.get(endKey));
-
+		int before = negativeBetween(startKey, endKey);
+		boolean added = members.get(startKey).connect(members.get(endKey));
+		if (added) {
+			fireEdgeChanged(startKey, endKey, before);
+		}
+		return added;
 	}
 
 	/**
@@ -183,7 +443,11 @@ public class Graph<K extends Comparable<K>, V> {
 		if (startKey == null || endKey == null || members.get(startKey) == null) {
 			return false;
 		}
-		return members.get(startKey).connect(members.get(endKey), weight);
+		int before = negativeBetween(startKey, endKey);
+		boolean added = members.get(startKey).connect(members.get(endKey), weight);
+		// an edge that already existed has its weight changed:
+		fireEdgeChanged(startKey, endKey, before);
+		return added;
 	}
 
 	/**
@@ -194,8 +458,10 @@ public class Graph<K extends Comparable<K>, V> {
 	 * @param newWeight - the new weight of the specified edge.
 	 */
 	public void changeEdgeWeight(K startKey, K endKey, double newWeight) {
+		int before = negativeBetween(startKey, endKey);
 		members.get(startKey).getOutEdge(endKey).setWeight(newWeight);
 		members.get(endKey).getInEdge(startKey).setWeight(newWeight);
+		fireEdgeChanged(startKey, endKey, before);
 	}
 
 	/**
@@ -221,8 +487,12 @@ public class Graph<K extends Comparable<K>, V> {
 		if (members.get(startKey) == null || members.get(endKey) == null) {
 			return false;
 		}
+		int before = negativeBetween(startKey, endKey);
 		boolean forward = members.get(startKey).connect(members.get(endKey));
 		boolean reverse = members.get(endKey).connect(members.get(startKey));
+		if (forward || reverse) {
+			fireEdgeChanged(startKey, endKey, before);
+		}
 		return (forward && reverse);
 	}
 
@@ -239,11 +509,23 @@ public class Graph<K extends Comparable<K>, V> {
 		if (members.get(startKey) == null || members.get(endKey) == null) {
 			return false;
 		}
+		int before = negativeBetween(startKey, endKey);
 		boolean forward = members.get(startKey).connect(members.get(endKey), weight);
 		boolean reverse = members.get(endKey).connect(members.get(startKey), weight);
+		// edges that already existed have their weights changed:
+		fireEdgeChanged(startKey, endKey, before);
 		return (forward && reverse);
 	}
 
+	/**
+	 * gets the keys of all of the vertexes in the graph.
+	 *
+	 * @return a list of the keys.
+	 */
+	public ArrayList<K> getKeys() {
+		return new ArrayList<K>(members.keySet());
+	}
+
 	/**
 	 * gets the number of vertexes in the graph
 	 *
@@ -282,7 +564,9 @@ public class Graph<K extends Comparable<K>, V> {
 	}
 
 	/**
-	 * Gets all edges in the graph - meant for testing purposes only.
+	 * Gets all edges in the graph - meant for testing purposes only. The edges are
+	 * keyed by their ending vertex, so edges that end at the same vertex replace
+	 * each other. Use forEachEdge or edgeStream to see every edge.
 	 *
 	 * @return an object containing all edges in the graph.
 	 */
@@ -297,6 +581,79 @@ public class Graph<K extends Comparable<K>, V> {
 		return edges;
 	}
 
+	/**
+	 * gets the number of edges in the graph, an undirected connection counts as
+	 * two. This adds up the out degrees, so it does not copy any edges.
+	 *
+	 * @return the number of edges.
+	 */
+	public int getNumberOfEdges() {
+		int count = 0;
+		for (Vertex<K, V> c : members.values()) {
+			count += c.getOutDegree();
+		}
+		return count;
+	}
+
+	/**
+	 * performs the action on every edge in the graph, without copying the edges
+	 * into a new collection.
+	 *
+	 * @param action - the action performed on each edge.
+	 */
+	public void forEachEdge(Consumer<? super Edge<K, V>> action) {
+		for (Vertex<K, V> c : members.values()) {
+			for (Edge<K, V> e : c.getEdges().values()) {
+				action.accept(e);
+			}
+		}
+	}
+
+	/**
+	 * spliterator over every edge in the graph. It splits by vertex, so the edges
+	 * can be processed by a parallel stream.
+	 *
+	 * @return a spliterator of the edges.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Spliterator<Edge<K, V>> edgeSpliterator() {
+		Vertex<K, V>[] vertexes = members.values().toArray(new Vertex[0]);
+		return new EdgeSpliterator<K, V>(vertexes, 0, vertexes.length, getNumberOfEdges());
+	}
+
+	/**
+	 * stream of every edge in the graph.
+	 *
+	 * @return a sequential stream of the edges.
+	 */
+	public Stream<Edge<K, V>> edgeStream() {
+		return StreamSupport.stream(edgeSpliterator(), false);
+	}
+
+	/**
+	 * parallel stream of every edge in the graph. The graph should not be changed
+	 * while the stream is running.
+	 *
+	 * @return a parallel stream of the edges.
+	 */
+	public Stream<Edge<K, V>> parallelEdgeStream() {
+		return StreamSupport.stream(edgeSpliterator(), true);
+	}
+
+	/**
+	 * gets every edge in the graph sorted in increasing order by weight. The list
+	 * is built when this is called, so it should be kept instead of being asked
+	 * for again while the graph has not changed.
+	 *
+	 * @return a new list of the edges, sorted by weight.
+	 */
+	public ArrayList<Edge<K, V>> sortedEdges() {
+		ArrayList<Edge<K, V>> edges = new ArrayList<>(getNumberOfEdges());
+		forEachEdge(edges::add);
+		edges.sort(new CompareEdgeWeights());
+		return edges;
+	}
+
 	/**
 	 * gets and sorts all edges in a graph.
 	 *
@@ -312,10 +669,13 @@ public class Graph<K extends Comparable<K>, V> {
 		}
 		PriorityQueue<Edge<K, V>> edges = members.get(startKey).sortOutEdgesByWeight();
 		// members.get(startKey).visited = true;
-		// add all edges to the same priority queue:
+		// add all edges to the same priority queue, the start's edges are already in
+		// it:
 		while (keys.hasMoreElements()) {
 			nextKey = keys.nextElement();
-			edges.addAll(members.get(nextKey).sortOutEdgesByWeight());
+			if (!nextKey.equals(startKey)) {
+				edges.addAll(members.get(nextKey).getEdges().values());
+			}
 		}
 
 		return edges;
@@ -330,17 +690,119 @@ public class Graph<K extends Comparable<K>, V> {
 	public ArrayList<Vertex<K, V>> depthFirstTraversal(K startKey) {
 		// get the vertex with the respective key:
 
+		Vertex<K, V> start = members.get(startKey);
 		ArrayList<Vertex<K, V>> traversal = new ArrayList<>();
-		dftHelper(startKey, traversal);
-
-		// iterate through traversal list and reset visited status:
-		for (Vertex<K, V> vertex : traversal) {
-			vertex.visited = false;
+		if (start == null) {
+			return traversal;
+		}
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			depthFirst(start, context, traversal, null);
+		} finally {
+			context.release();
 		}
-
 		return traversal;
 	}
 
+	/**
+	 * lazy depth first traversal, the vertexes are visited in the same order as
+	 * depthFirstTraversal, but only as they are asked for.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return an iterator over the vertexes, it is empty if the starting vertex is
+	 *         not in the graph.
+	 */
+	public Iterator<Vertex<K, V>> depthFirstIterator(K startKey) {
+		return new TraversalIterator<K, V>(getVertex(startKey), true);
+	}
+
+	/**
+	 * lazy breadth first traversal, the vertexes are visited in the same order as
+	 * breadthFirstTraversal, but only as they are asked for.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return an iterator over the vertexes, it is empty if the starting vertex is
+	 *         not in the graph.
+	 */
+	public Iterator<Vertex<K, V>> breadthFirstIterator(K startKey) {
+		return new TraversalIterator<K, V>(getVertex(startKey), false);
+	}
+
+	/**
+	 * spliterator over the lazy depth first traversal.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return an ordered spliterator of the distinct vertexes in the traversal.
+	 */
+	public Spliterator<Vertex<K, V>> depthFirstSpliterator(K startKey) {
+		return Spliterators.spliteratorUnknownSize(depthFirstIterator(startKey),
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/**
+	 * spliterator over the lazy breadth first traversal.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return an ordered spliterator of the distinct vertexes in the traversal.
+	 */
+	public Spliterator<Vertex<K, V>> breadthFirstSpliterator(K startKey) {
+		return Spliterators.spliteratorUnknownSize(breadthFirstIterator(startKey),
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/**
+	 * stream of the lazy depth first traversal. Short circuiting operations such as
+	 * findFirst or anyMatch stop the traversal as soon as they are done.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return a stream of the vertexes in depth first order.
+	 */
+	public Stream<Vertex<K, V>> depthFirstStream(K startKey) {
+		return StreamSupport.stream(depthFirstSpliterator(startKey), false);
+	}
+
+	/**
+	 * stream of the lazy breadth first traversal. Short circuiting operations such
+	 * as findFirst or anyMatch stop the traversal as soon as they are done.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return a stream of the vertexes in breadth first order.
+	 */
+	public Stream<Vertex<K, V>> breadthFirstStream(K startKey) {
+		return StreamSupport.stream(breadthFirstSpliterator(startKey), false);
+	}
+
+	/**
+	 * checks if there is a path from the starting vertex to the target vertex. The
+	 * search stops as soon as the target is found.
+	 *
+	 * @param startKey  - the key of the starting vertex.
+	 * @param targetKey - the key of the vertex being searched for.
+	 * @return true if the target can be reached from the start.
+	 */
+	public boolean isReachable(K startKey, K targetKey) {
+		return findFirst(startKey, vertex -> vertex.equals(targetKey)) != null;
+	}
+
+	/**
+	 * finds the closest vertex to the start that matches the condition, using a
+	 * breadth first search that stops at the first match.
+	 *
+	 * @param startKey  - the key of the starting vertex.
+	 * @param condition - the condition the vertex has to match.
+	 * @return the first matching vertex, or null if no reachable vertex matches.
+	 */
+	public Vertex<K, V> findFirst(K startKey, Predicate<Vertex<K, V>> condition) {
+		Iterator<Vertex<K, V>> traversal = breadthFirstIterator(startKey);
+		while (traversal.hasNext()) {
+			Vertex<K, V> c = traversal.next();
+			if (condition.test(c)) {
+				return c;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * sorts vertexes in increasing order by total weight.
 	 *
@@ -358,34 +820,57 @@ public class Graph<K extends Comparable<K>, V> {
 	}
 
 	/**
-	 * performs the work for the depth first traversal.
+	 * performs the work for the depth first traversal and spanning. The path from
+	 * the start is kept on an explicit stack of vertex indexes, with the position
+	 * of the next edge to follow from each vertex, so long paths cannot overflow
+	 * the thread's stack. Vertexes and edges are visited in the same order as
+	 * following the edges recursively.
 	 *
-	 * @param key       - the key of the vertex being visited.
-	 * @param traversal - the list containing the depth first traversal.
+	 * @param start     - the vertex where the traversal is starting.
+	 * @param context   - the visited vertexes.
+	 * @param traversal - the list the vertexes are added to, or null.
+	 * @param tree      - the graph the spanning tree is added to, or null.
 	 */
-	private void dftHelper(K key, ArrayList<Vertex<K, V>> traversal) {
-		Vertex<K, V> currentVertex = members.get(key);
-		// if the graph is empty or the vertex has already been visited then terminate
-		// program.
-		if (currentVertex == null || currentVertex.visited == true) {
-			return;
-		}
-
-		// add current vertex to traversal list if it hasn't already been visited:
-		traversal.add(currentVertex);
-		// mark vertex as visited:
-		currentVertex.visited = true;
-
-		// get the list of edges originating from this vertex:
-		Hashtable<K, Edge<K, V>> edgesOfCurrentVertex = currentVertex.getEdges();
-		// build iterator for the edges:
-		Enumeration<K> keys = edgesOfCurrentVertex.keys();
-		K nextKey = null;
-		while (keys.hasMoreElements()) {
-			nextKey = keys.nextElement();
-			if (!edgesOfCurrentVertex.get(nextKey).getEnd().visited) {
-				// if the ending node has not been visited, then move to that vertex:
-				dftHelper(edgesOfCurrentVertex.get(nextKey).getEnd().getKey(), traversal);
+	private void depthFirst(Vertex<K, V> start, TraversalContext<K, V> context, ArrayList<Vertex<K, V>> traversal,
+			Graph<K, V> tree) {
+		int[] stack = context.getStack();
+		int[] cursor = context.getCursors();
+		int top = 0;
+		Vertex<K, V> c = start;
+		while (true) {
+			if (c != null) {
+				// visit the vertex and start following its edges:
+				context.setVisited(c);
+				if (traversal != null) {
+					traversal.add(c);
+				}
+				if (tree != null) {
+					tree.add(c);
+				}
+				stack[top] = c.index;
+				cursor[top++] = 0;
+			}
+			if (top == 0) {
+				break;
+			}
+			c = null;
+			Vertex<K, V> currentVertex = vertexAt(stack[top - 1]);
+			Edge<K, V>[] edges = currentVertex.getEdgeArray();
+			int i = cursor[top - 1];
+			if (i < edges.length) {
+				cursor[top - 1] = i + 1;
+				if (!context.isVisited(edges[i].getEnd())) {
+					// if the ending node has not been visited, then move to that vertex:
+					c = edges[i].getEnd();
+				}
+			} else {
+				// every edge has been followed, so back up:
+				top--;
+				if (tree != null && top > 0) {
+					// add the edge that led here once its subtree is finished:
+					Edge<K, V> e = vertexAt(stack[top - 1]).getEdgeArray()[cursor[top - 1] - 1];
+					tree.directedConnect(e.getStart().getKey(), currentVertex.getKey(), e.getWeight());
+				}
 			}
 		}
 	}
@@ -411,92 +896,352 @@ public class Graph<K extends Comparable<K>, V> {
 	public ArrayList<Vertex<K, V>> breadthFirstTraversal(K startKey) {
 		// get the vertex with the respective key:
 		Vertex<K, V> currentVertex = members.get(startKey);
-		Vertex<K, V> tmp = null;
-		Hashtable<K, Edge<K, V>> edgesOfCurrentVertex;
-		Enumeration<K> keys;
-		K nextKey = null;
 
 		// if current vertex is not in the graph, then return null.
 		if (currentVertex == null) {
 			return null;
 		}
 
-		ArrayList<Vertex<K, V>> queue = new ArrayList<>();
+		ArrayDeque<Vertex<K, V>> queue = new ArrayDeque<>();
 		ArrayList<Vertex<K, V>> traversal = new ArrayList<>();
-		// add initial vertex to the queue:
-		currentVertex.visited = true;
-		traversal.add(currentVertex);
-		queue.add(currentVertex);
-		while (0 < queue.size()) {
-			// dequeue the first element:
-			currentVertex = queue.remove(0);
-			// get the list of edges originating from this vertex:
-			edgesOfCurrentVertex = currentVertex.getEdges();
-			// build iterator for the edges:
-			keys = edgesOfCurrentVertex.keys();
-			nextKey = null;
-			// add each unvisited successor of the current node to the queue:
-			while (keys.hasMoreElements()) {
-				nextKey = keys.nextElement();
-				if (!edgesOfCurrentVertex.get(nextKey).getEnd().visited) {
-					tmp = edgesOfCurrentVertex.get(nextKey).getEnd();
-					tmp.visited = true;
-					queue.add(tmp);
-					traversal.add(tmp);
-				}
-			}
-		}
-		// iterate through traversal list and reset visited status:
-		for (Vertex<K, V> vertex : traversal) {
-			vertex.visited = false;
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			// add initial vertex to the queue:
+			context.setVisited(currentVertex);
+			traversal.add(currentVertex);
+			queue.add(currentVertex);
+			while (!queue.isEmpty()) {
+				// dequeue the first element:
+				currentVertex = queue.poll();
+				// add each unvisited successor of the current node to the queue:
+				for (Edge<K, V> e : currentVertex.getEdges().values()) {
+					if (!context.isVisited(e.getEnd())) {
+						context.setVisited(e.getEnd());
+						queue.add(e.getEnd());
+						traversal.add(e.getEnd());
+					}
+				}
+			}
+		} finally {
+			context.release();
 		}
 		return traversal;
 	}
 
 	/**
-	 * topologically sorts the given graph this algorithm is from lecture26 for
-	 * cs400
+	 * topologically sorts the given graph with kahns algorithm. Each vertex keeps
+	 * a count of its in edges from vertexes that have not been ordered yet, and a
+	 * vertex is ordered once its count reaches zero. The vertexes that are ready
+	 * are taken from a stack, so the last one found is ordered first.
 	 *
-	 * @return array containing the topological sorted vertexes.
+	 * @return array containing the topological sorted vertexes, or null if the
+	 *         graph has a cycle, which can be found with findCycle.
 	 */
 	public ArrayList<Vertex<K, V>> topologicalOrdering() {
-		ArrayList<Vertex<K, V>> topologicalOrdering = new ArrayList<>();
-		Integer NUM = members.size();
-		Vertex<K, V>[] ordered = new Vertex[NUM];
-		Stack<Vertex<K, V>> stack = new Stack<>();
-		Vertex<K, V> c = null;
-		Vertex<K, V> unvisitedSuccessor = null;
-		Enumeration<K> keys = members.keys();
-		K key = null;
-		while (keys.hasMoreElements()) {
-			key = keys.nextElement();
-			if (members.get(key).getInDegree() == 0) {
-				members.get(key).visited = true;
-				stack.add(members.get(key));
+		ArrayList<Vertex<K, V>> topologicalOrdering = new ArrayList<>(members.size());
+		int[] remaining = new int[indexCapacity()];
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			int[] stack = context.getStack();
+			int top = 0;
+			for (Vertex<K, V> c : members.values()) {
+				remaining[c.index] = c.getInDegree();
+				if (remaining[c.index] == 0) {
+					stack[top++] = c.index;
+				}
 			}
+			while (top > 0) {
+				Vertex<K, V> c = vertexAt(stack[--top]);
+				topologicalOrdering.add(c);
+				for (Edge<K, V> e : c.getEdgeArray()) {
+					if (--remaining[e.getEnd().index] == 0) {
+						stack[top++] = e.getEnd().index;
+					}
+				}
+			}
+		} finally {
+			context.release();
 		}
-		while (!stack.isEmpty()) {
-			c = stack.peek();
-			unvisitedSuccessor = c.getUnvisitedSuccessor();
-			// if current node has no unvisited successors, then remove it from the stack
-			// and add it to the ordered list:
-			if (unvisitedSuccessor == null) {
-				c = stack.pop();
-				ordered[NUM - 1] = c;
-				NUM--;
+		// vertexes on a cycle never run out of in edges:
+		return topologicalOrdering.size() == members.size() ? topologicalOrdering : null;
+	}
 
-			} else {
-				unvisitedSuccessor.visited = true;
-				stack.add(unvisitedSuccessor);
+	/**
+	 * groups the vertexes into levels, where every edge goes from a lower level to
+	 * a higher one. The first level has the vertexes with no in edges, and each
+	 * vertex is on the level after the last of its predecessors. There are no
+	 * edges within a level, so the vertexes of a level can be processed at the
+	 * same time.
+	 *
+	 * @return the levels in order, or null if the graph has a cycle.
+	 */
+	public ArrayList<ArrayList<Vertex<K, V>>> topologicalLevels() {
+		ArrayList<ArrayList<Vertex<K, V>>> levels = new ArrayList<>();
+		int[] remaining = new int[indexCapacity()];
+		ArrayList<Vertex<K, V>> level = new ArrayList<>();
+		for (Vertex<K, V> c : members.values()) {
+			remaining[c.index] = c.getInDegree();
+			if (remaining[c.index] == 0) {
+				level.add(c);
 			}
 		}
+		int count = 0;
+		while (!level.isEmpty()) {
+			levels.add(level);
+			count += level.size();
+			ArrayList<Vertex<K, V>> next = new ArrayList<>();
+			for (Vertex<K, V> c : level) {
+				for (Edge<K, V> e : c.getEdgeArray()) {
+					if (--remaining[e.getEnd().index] == 0) {
+						next.add(e.getEnd());
+					}
+				}
+			}
+			level = next;
+		}
+		return count == members.size() ? levels : null;
+	}
 
-		// iterate through traversal list and reset visited status:
-		for (int i = 0; i < ordered.length; i++) {
-			ordered[i].visited = false;
-			topologicalOrdering.add(ordered[i]);
+	/**
+	 * performs the action on every vertex in topological order. The vertexes of a
+	 * level are shared between the threads of the common fork join pool, and the
+	 * next level is started once every vertex of the level is done, so the action
+	 * is always finished on a vertex's predecessors before it starts on the
+	 * vertex.
+	 *
+	 * @param action - the action performed on each vertex, it must be safe to call
+	 *               from several threads.
+	 * @return false if the graph has a cycle, in which case nothing is done.
+	 */
+	public boolean processTopologicalLevels(Consumer<? super Vertex<K, V>> action) {
+		ArrayList<ArrayList<Vertex<K, V>>> levels = topologicalLevels();
+		if (levels == null) {
+			return false;
+		}
+		for (ArrayList<Vertex<K, V>> level : levels) {
+			level.parallelStream().forEach(action);
+		}
+		return true;
+	}
+
+	/**
+	 * finds a cycle in the graph.
+	 *
+	 * @return the vertexes on the cycle in the order of its edges, the edge from
+	 *         the last vertex goes back to the first. Empty if the graph has no
+	 *         cycle.
+	 */
+	public ArrayList<Vertex<K, V>> findCycle() {
+		ArrayList<Vertex<K, V>> cycle = new ArrayList<>();
+		int[] remaining = new int[indexCapacity()];
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			// peel off the vertexes that are not on or after a cycle, like kahns
+			// algorithm:
+			int[] stack = context.getStack();
+			int top = 0;
+			for (Vertex<K, V> c : members.values()) {
+				remaining[c.index] = c.getInDegree();
+				if (remaining[c.index] == 0) {
+					stack[top++] = c.index;
+				}
+			}
+			while (top > 0) {
+				for (Edge<K, V> e : vertexAt(stack[--top]).getEdgeArray()) {
+					if (--remaining[e.getEnd().index] == 0) {
+						stack[top++] = e.getEnd().index;
+					}
+				}
+			}
+			Vertex<K, V> c = null;
+			for (Vertex<K, V> v : members.values()) {
+				if (remaining[v.index] > 0) {
+					c = v;
+					break;
+				}
+			}
+			// every vertex left has an in edge from another vertex that is left, so
+			// walking backwards along those edges must come back around:
+			while (c != null && !context.isVisited(c)) {
+				context.setVisited(c);
+				Vertex<K, V> previous = null;
+				for (Edge<K, V> e : c.getInEdges().values()) {
+					if (remaining[e.getStart().index] > 0) {
+						previous = e.getStart();
+						break;
+					}
+				}
+				context.setPredecessor(c, previous);
+				c = previous;
+			}
+			if (c != null) {
+				// c is the first vertex seen twice, so it is on the cycle:
+				Vertex<K, V> v = c;
+				do {
+					cycle.add(v);
+					v = context.getPredecessor(v);
+				} while (v != c);
+				// the walk followed the edges backwards:
+				Collections.reverse(cycle);
+			}
+		} finally {
+			context.release();
+		}
+		return cycle;
+	}
+
+	/**
+	 * finds the strongly connected components with pearce's version of tarjans
+	 * algorithm. Every vertex gets a rank when it is reached, lowered to the
+	 * lowest rank it can reach, and a vertex whose rank is not lowered is the
+	 * root of a component. Finished components reuse the same array for their
+	 * ids, so besides the stacks only one int and one flag are kept per vertex.
+	 * The search runs on explicit stacks, so long paths cannot overflow the
+	 * thread's stack.
+	 *
+	 * @return the component of each vertex, indexed by indexOf, -1 for unused
+	 *         indexes. Components are numbered from 0 in the order they are
+	 *         finished, so every edge between two components goes from a higher
+	 *         id to a lower one.
+	 */
+	public int[] stronglyConnectedComponents() {
+		int n = indexCapacity();
+		// the rank of each vertex while it is on the stack, 0 if it has not been
+		// reached, and its component counting down from n - 1 once it is finished:
+		int[] rindex = new int[n];
+		boolean[] root = new boolean[n];
+		// vertexes whose component is not finished yet:
+		int[] pending = new int[n];
+		int sp = 0;
+		int rank = 1;
+		int component = n - 1;
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			int[] stack = context.getStack();
+			int[] cursor = context.getCursors();
+			for (Vertex<K, V> start : members.values()) {
+				if (rindex[start.index] != 0) {
+					continue;
+				}
+				int top = 0;
+				rindex[start.index] = rank++;
+				root[start.index] = true;
+				stack[top] = start.index;
+				cursor[top++] = 0;
+				while (top > 0) {
+					int v = stack[top - 1];
+					Edge<K, V>[] edges = vertexAt(v).getEdgeArray();
+					int i = cursor[top - 1];
+					if (i < edges.length) {
+						cursor[top - 1] = i + 1;
+						int w = edges[i].getEnd().index;
+						if (rindex[w] == 0) {
+							// move to the unreached vertex:
+							rindex[w] = rank++;
+							root[w] = true;
+							stack[top] = w;
+							cursor[top++] = 0;
+						} else if (rindex[w] < rindex[v]) {
+							rindex[v] = rindex[w];
+							root[v] = false;
+						}
+						continue;
+					}
+					// every edge has been followed, so finish the vertex:
+					top--;
+					if (root[v]) {
+						// the pending vertexes above v form its component:
+						rank--;
+						while (sp > 0 && rindex[v] <= rindex[pending[sp - 1]]) {
+							rindex[pending[--sp]] = component;
+							rank--;
+						}
+						rindex[v] = component--;
+					} else {
+						pending[sp++] = v;
+					}
+					if (top > 0 && rindex[v] < rindex[stack[top - 1]]) {
+						rindex[stack[top - 1]] = rindex[v];
+						root[stack[top - 1]] = false;
+					}
+				}
+			}
+		} finally {
+			context.release();
+		}
+		for (int i = 0; i < n; i++) {
+			rindex[i] = vertexAt(i) == null ? -1 : n - 1 - rindex[i];
+		}
+		return rindex;
+	}
+
+	/**
+	 * builds the condensation of the graph, with one vertex for each strongly
+	 * connected component. There is an edge between two components if any vertex
+	 * of the first has an edge to the second, weighted with the lightest such
+	 * edge. The condensation never has a cycle, so it can be topologically sorted.
+	 *
+	 * @param components - the component of each vertex, from
+	 *                   stronglyConnectedComponents.
+	 * @return a graph keyed by component id, with the vertexes of each component
+	 *         as its value.
+	 */
+	public Graph<Integer, ArrayList<Vertex<K, V>>> condensation(int[] components) {
+		Graph<Integer, ArrayList<Vertex<K, V>>> g = new Graph<Integer, ArrayList<Vertex<K, V>>>();
+		for (Vertex<K, V> c : members.values()) {
+			Integer id = components[c.index];
+			if (g.get(id) == null) {
+				g.add(id, new ArrayList<Vertex<K, V>>());
+			}
+			g.get(id).add(c);
 		}
-		return topologicalOrdering;
+		for (Vertex<K, V> c : members.values()) {
+			for (Edge<K, V> e : c.getEdgeArray()) {
+				Integer start = components[c.index];
+				Integer end = components[e.getEnd().index];
+				if (start.equals(end)) {
+					continue;
+				}
+				Edge<Integer, ArrayList<Vertex<K, V>>> existing = g.getVertex(start).getOutEdge(end);
+				if (existing == null) {
+					g.directedConnect(start, end, e.getWeight());
+				} else if (e.getWeight() < existing.getWeight()) {
+					// connecting again changes the weight:
+					g.directedConnect(start, end, e.getWeight());
+				}
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * copies the vertexes of one strongly connected component and the edges
+	 * between them into a new graph, so the other algorithms can be run on the
+	 * component alone.
+	 *
+	 * @param components - the component of each vertex, from
+	 *                   stronglyConnectedComponents.
+	 * @param id         - the component being copied.
+	 * @return the component, empty if no vertex has the id.
+	 */
+	public Graph<K, V> componentGraph(int[] components, int id) {
+		Graph<K, V> g = new Graph<K, V>();
+		for (Vertex<K, V> c : members.values()) {
+			if (components[c.index] == id) {
+				g.add(c);
+			}
+		}
+		for (Vertex<K, V> c : members.values()) {
+			if (components[c.index] != id) {
+				continue;
+			}
+			for (Edge<K, V> e : c.getEdgeArray()) {
+				if (components[e.getEnd().index] == id) {
+					g.directedConnect(c.getKey(), e.getEnd().getKey(), e.getWeight());
+				}
+			}
+		}
+		return g;
 	}
 
 	/**
@@ -508,179 +1253,443 @@ public class Graph<K extends Comparable<K>, V> {
 	public Graph<K, V> breadthFirstSpanning(K startKey) {
 		// get the vertex with the respective key:
 		Vertex<K, V> currentVertex = members.get(startKey);
-		Vertex<K, V> tmp = null;
 		Graph<K, V> g = new Graph<K, V>();
-		Hashtable<K, Edge<K, V>> edgesOfCurrentVertex;
-		Enumeration<K> keys;
-		K nextKey = null;
 
 		// if current vertex is not in the graph, then return null.
 		if (currentVertex == null) {
 			return null;
 		}
 
-		ArrayList<Vertex<K, V>> queue = new ArrayList<>();
-		ArrayList<Vertex<K, V>> traversal = new ArrayList<>();
-		// add initial vertex to the queue:
-		currentVertex.visited = true;
-		traversal.add(currentVertex);
-		// add first node to the graph:
-		g.add(currentVertex);
-		queue.add(currentVertex);
-		while (0 < queue.size()) {
-			// dequeue the first element:
-			currentVertex = queue.remove(0);
-			// get the list of edges originating from this vertex:
-			edgesOfCurrentVertex = currentVertex.getEdges();
-			// build iterator for the edges:
-			keys = edgesOfCurrentVertex.keys();
-			nextKey = null;
-			// add each unvisited successor of the current node to the queue:
-			while (keys.hasMoreElements()) {
-				nextKey = keys.nextElement();
-				if (!edgesOfCurrentVertex.get(nextKey).getEnd().visited) {
-					tmp = edgesOfCurrentVertex.get(nextKey).getEnd();
-					// add new node to the graph:
-					g.add(tmp);
-					// form directed connection between the current node and the next:
-					g.directedConnect(currentVertex.getKey(), tmp.getKey(),
-							edgesOfCurrentVertex.get(nextKey).getWeight());
-					tmp.visited = true;
-					queue.add(tmp);
-					traversal.add(tmp);
-				}
-			}
-		}
-		// iterate through traversal list and reset visited status:
-		resetTraversalVariables();
+		ArrayDeque<Vertex<K, V>> queue = new ArrayDeque<>();
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			// add initial vertex to the queue:
+			context.setVisited(currentVertex);
+			// add first node to the graph:
+			g.add(currentVertex);
+			queue.add(currentVertex);
+			while (!queue.isEmpty()) {
+				// dequeue the first element:
+				currentVertex = queue.poll();
+				// add each unvisited successor of the current node to the queue:
+				for (Edge<K, V> e : currentVertex.getEdges().values()) {
+					Vertex<K, V> tmp = e.getEnd();
+					if (!context.isVisited(tmp)) {
+						// add new node to the graph:
+						g.add(tmp);
+						// form directed connection between the current node and the next:
+						g.directedConnect(currentVertex.getKey(), tmp.getKey(), e.getWeight());
+						context.setVisited(tmp);
+						queue.add(tmp);
+					}
+				}
+			}
+		} finally {
+			context.release();
+		}
 		return g;
 	}
 
 	/**
-	 * Dijkstras algorithm for finding the shortest path:
+	 * breadth first spanning of large graphs. The search runs on a compact copy
+	 * of the graph, one level at a time with the levels split between the cores,
+	 * see FrontierSearch. Each vertex is at the same depth as in
+	 * breadthFirstSpanning, but its parent may be a different vertex on the level
+	 * above.
+	 *
+	 * @param startKey - the key where the search is starting.
+	 * @return the spanning tree from the starting node, null if the key is not in
+	 *         the graph.
+	 */
+	public Graph<K, V> parallelBreadthFirstSpanning(K startKey) {
+		Vertex<K, V> start = members.get(startKey);
+		if (start == null) {
+			return null;
+		}
+		// the ids of the copy are the vertex indexes:
+		int[] parent = FrontierSearch.parents(indexSnapshot(), start.index);
+		Graph<K, V> g = new Graph<K, V>();
+		for (int i = 0; i < parent.length; i++) {
+			if (parent[i] != IntGraph.NONE) {
+				g.add(vertexAt(i));
+			}
+		}
+		for (int i = 0; i < parent.length; i++) {
+			if (parent[i] != IntGraph.NONE && parent[i] != i) {
+				Vertex<K, V> p = vertexAt(parent[i]);
+				Vertex<K, V> c = vertexAt(i);
+				g.directedConnect(p.getKey(), c.getKey(), p.getEdges().get(c.getKey()).getWeight());
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Dijkstras algorithm for finding the shortest path. The vertexes are kept in
+	 * an indexed heap, so each vertex is queued once and its distance is lowered
+	 * in place. The search ends at the last vertex it reaches, and the path
+	 * returned is the shortest path to the end of the heaviest edge leaving that
+	 * vertex.
 	 *
 	 * @param startingKey - the key to start the search:
 	 * @return the list containing the vertexes on the shortest path.
 	 */
 	public ArrayList<Vertex<K, V>> dijShortestPath(K startingKey) {
 		ArrayList<Vertex<K, V>> shortestPath = new ArrayList<>();
-		PriorityQueue<Vertex<K, V>> q = new PriorityQueue<>(new CompareWeights());
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		IndexedHeap q = context.getHeap();
 		Vertex<K, V> start = members.get(startingKey);
 		Vertex<K, V> c = null;
 		Vertex<K, V> s = null;
-		Edge<K, V> currentEdge;
-		PriorityQueue<Edge<K, V>> edges;
-		start.totalWeight = 0.0;
-		q.add(start);
-		// for each vertex
-		while (!q.isEmpty()) {
-			c = q.remove();
-			// mark c as visited
-			c.visited = true;
-			// build iterator for the edges:
-			edges = c.sortOutEdgesByWeight();
-			// evaluate the
-			while (!edges.isEmpty()) {
-				currentEdge = edges.remove();
-				s = currentEdge.getEnd();
-				// if the next vertex has not been visited, and the cost to move to that node is
-				// less, then update the weight:
-				if (!s.visited || (s.totalWeight > (c.totalWeight + currentEdge.getWeight()))) {
-					s.totalWeight = c.totalWeight + currentEdge.getWeight();
-					// store pred
-					s.predecessor = c;
-					// add successor node to queue.
-					q.add(s);
-				}
-			}
-
-		}
-		// work backwards through the list to get the shortest path
-		// and reset the variables.
-		while (s != null) {
-			shortestPath.add(0, s);
-			s = s.predecessor;
-		}
-		// reset traversal variables for all nodes - if this step is not done, then the
-		// search results will be the same every time this method is
-		// called for this graph, so long as all the vertexes are still present.
-		resetTraversalVariables();
+		Edge<K, V> heaviest;
+		try {
+			context.setDistance(start, 0.0);
+			q.insertOrDecrease(start.index, 0.0);
+			// for each vertex
+			while (!q.isEmpty()) {
+				c = vertexAt(q.poll());
+				// mark c as visited
+				context.setVisited(c);
+				heaviest = null;
+				// relax each out edge, the edges do not need to be sorted:
+				for (Edge<K, V> currentEdge : c.getEdges().values()) {
+					if (heaviest == null || currentEdge.getWeight() > heaviest.getWeight()) {
+						heaviest = currentEdge;
+					}
+					Vertex<K, V> next = currentEdge.getEnd();
+					double weight = context.getDistance(c) + currentEdge.getWeight();
+					// if the next vertex has not been visited, and the cost to move to that node is
+					// less, then update the weight:
+					if (!context.isVisited(next) && context.getDistance(next) > weight) {
+						context.setDistance(next, weight);
+						// store pred
+						context.setPredecessor(next, c);
+						q.insertOrDecrease(next.index, weight);
+					}
+				}
+				if (heaviest != null) {
+					s = heaviest.getEnd();
+				}
+			}
+			// work backwards through the list to get the shortest path:
+			while (s != null) {
+				shortestPath.add(0, s);
+				s = context.getPredecessor(s);
+			}
+		} finally {
+			// the state is kept in the context, so the vertexes do not need to be reset:
+			context.release();
+		}
 		return shortestPath;
 	}
 
 	/**
-	 * resets the state variables for all vertexes for dijkstras and other
-	 * traversal/ search algorithms
+	 * finds the shortest path between two vertexes with Dijkstras algorithm. The
+	 * search stops as soon as the target is reached, so only the vertexes closer to
+	 * the source than the target are looked at. Dijkstras algorithm is wrong when
+	 * weights are negative, so graphs with a negative weight are searched with
+	 * bellmanFordShortestPath instead.
+	 *
+	 * @param sourceKey - the key of the start of the path.
+	 * @param targetKey - the key of the end of the path.
+	 * @return the vertexes on the shortest path, empty if there is no path, or null
+	 *         if either key is not in the graph or a negative cycle can be reached
+	 *         from the source.
 	 */
-	private void resetTraversalVariables() {
-		Enumeration<K> keys = members.keys();
-		Vertex<K, V> c;
-		K nextKey = null;
-		while (keys.hasMoreElements()) {
-			nextKey = keys.nextElement();
-			c = members.get(nextKey);
-			c.visited = false;
-			c.totalWeight = (double) Integer.MAX_VALUE;
-			c.predecessor = null;
+	public ArrayList<Vertex<K, V>> shortestPath(K sourceKey, K targetKey) {
+		if (hasNegativeWeights()) {
+			return bellmanFordShortestPath(sourceKey, targetKey);
 		}
+		return aStarShortestPath(sourceKey, targetKey, null);
 	}
 
 	/**
-	 * generate a depth first spanning graph of the current graph structure.
+	 * checks if any edge has a negative weight. The edges with negative weights are
+	 * counted as they are changed through the graph's methods, so this does not
+	 * look at the edges. Weights changed directly on an Edge are not counted.
 	 *
-	 * @param startKey - the key of the vertex from which to start spanning.
-	 * @return - the depth first spanning tree.
+	 * @return true if there is an edge with a negative weight.
 	 */
-	public Graph<K, V> depthFirstSpanning(K startKey) {
-		// get the vertex with the respective key:
-		Graph<K, V> g = new Graph<K, V>();
-		ArrayList<Vertex<K, V>> traversal = new ArrayList<>();
-		dfSpanningHelper(startKey, traversal, g);
+	public boolean hasNegativeWeights() {
+		return negativeEdges > 0;
+	}
 
-		// iterate through traversal list and reset visited status:
-		for (Vertex<K, V> vertex : traversal) {
-			vertex.visited = false;
+	/**
+	 * finds the shortest path between two vertexes when weights can be negative,
+	 * on a compact copy of the graph, see BellmanFord. Small graphs are searched
+	 * with a queue, and large graphs with rounds split between the cores.
+	 *
+	 * @param sourceKey - the key of the start of the path.
+	 * @param targetKey - the key of the end of the path.
+	 * @return the vertexes on the shortest path, empty if there is no path, or null
+	 *         if either key is not in the graph or a negative cycle can be reached
+	 *         from the source, since then there is no shortest path.
+	 */
+	public ArrayList<Vertex<K, V>> bellmanFordShortestPath(K sourceKey, K targetKey) {
+		Vertex<K, V> source = members.get(sourceKey);
+		Vertex<K, V> target = members.get(targetKey);
+		if (source == null || target == null) {
+			return null;
+		}
+		double[] distance = new double[indexCapacity()];
+		int[] parent = new int[indexCapacity()];
+		if (BellmanFord.search(indexSnapshot(), source.index, distance, parent) != IntGraph.NONE) {
+			return null;
 		}
+		ArrayList<Vertex<K, V>> path = new ArrayList<>();
+		if (distance[target.index] == Double.POSITIVE_INFINITY) {
+			return path;
+		}
+		for (int i = target.index; i != IntGraph.NONE; i = parent[i]) {
+			path.add(vertexAt(i));
+		}
+		Collections.reverse(path);
+		return path;
+	}
 
-		return g;
+	/**
+	 * finds a cycle whose edges add up to less than zero, which can be reached
+	 * from the source. Shortest paths through such a cycle can always be made
+	 * shorter by going around it again.
+	 *
+	 * @param sourceKey - the key of the vertex the search starts at.
+	 * @return the vertexes of the cycle in the order of its edges, empty if there
+	 *         is no negative cycle, or null if the key is not in the graph.
+	 */
+	public ArrayList<Vertex<K, V>> findNegativeCycle(K sourceKey) {
+		Vertex<K, V> source = members.get(sourceKey);
+		if (source == null) {
+			return null;
+		}
+		ArrayList<Vertex<K, V>> cycle = new ArrayList<>();
+		double[] distance = new double[indexCapacity()];
+		int[] parent = new int[indexCapacity()];
+		int onCycle = BellmanFord.search(indexSnapshot(), source.index, distance, parent);
+		if (onCycle != IntGraph.NONE) {
+			for (int i : BellmanFord.cycle(parent, onCycle)) {
+				cycle.add(vertexAt(i));
+			}
+		}
+		return cycle;
 	}
 
 	/**
-	 * helper function for depth first spanning
+	 * finds the shortest path between two vertexes with the A* algorithm. The
+	 * heuristic guesses the distance left to the target, which sends the search
+	 * towards the target. The guess must never be more than the real distance,
+	 * otherwise the path found might not be the shortest.
 	 *
-	 * @param key       - key of the current vertex.
-	 * @param traversal - the list containg all nodes in the traversal.
-	 * @param gMain     - the new graph containing the spanning tree.
+	 * @param sourceKey - the key of the start of the path.
+	 * @param targetKey - the key of the end of the path.
+	 * @param heuristic - gets a lower bound on the distance between the values of
+	 *                  two vertexes, or null to search like Dijkstras algorithm.
+	 * @return the vertexes on the shortest path, empty if there is no path, or null
+	 *         if either key is not in the graph.
 	 */
-	private void dfSpanningHelper(K key, ArrayList<Vertex<K, V>> traversal, Graph<K, V> g) {
-		Vertex<K, V> currentVertex = members.get(key);
-		// if the graph is empty or the vertex has already been visited then terminate
-		// program.
-		if (currentVertex == null || currentVertex.visited == true) {
-			return;
+	public ArrayList<Vertex<K, V>> aStarShortestPath(K sourceKey, K targetKey, ToDoubleBiFunction<V, V> heuristic) {
+		Vertex<K, V> source = members.get(sourceKey);
+		Vertex<K, V> target = members.get(targetKey);
+		if (source == null || target == null) {
+			return null;
+		}
+		ArrayList<Vertex<K, V>> path = new ArrayList<>();
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		IndexedHeap q = context.getHeap();
+		try {
+			context.setDistance(source, 0.0);
+			q.insertOrDecrease(source.index, 0.0);
+			while (!q.isEmpty()) {
+				Vertex<K, V> c = vertexAt(q.poll());
+				if (c == target) {
+					// work backwards from the target to get the path:
+					for (Vertex<K, V> s = target; s != null; s = context.getPredecessor(s)) {
+						path.add(0, s);
+					}
+					break;
+				}
+				for (Edge<K, V> currentEdge : c.getEdges().values()) {
+					Vertex<K, V> s = currentEdge.getEnd();
+					double weight = context.getDistance(c) + currentEdge.getWeight();
+					if (context.getDistance(s) > weight) {
+						context.setDistance(s, weight);
+						context.setPredecessor(s, c);
+						// the queue is ordered by the distance so far plus the guess of the distance
+						// left, a vertex whose distance drops is queued again:
+						double guess = heuristic == null ? 0.0 : heuristic.applyAsDouble(s.getValue(), target.getValue());
+						q.insertOrDecrease(s.index, weight + guess);
+					}
+				}
+			}
+		} finally {
+			context.release();
 		}
+		return path;
+	}
 
-		// add current vertex to traversal list if it hasn't already been visited:
-		traversal.add(currentVertex);
-		g.add(currentVertex);
-		// mark vertex as visited:
-		currentVertex.visited = true;
+	/**
+	 * finds the shortest path between two vertexes with a bidirectional Dijkstras
+	 * search. One search follows the out edges from the source while the other
+	 * follows the in edges back from the target, and they stop once the shortest
+	 * path through a vertex reached by both cannot get any shorter.
+	 *
+	 * @param sourceKey - the key of the start of the path.
+	 * @param targetKey - the key of the end of the path.
+	 * @return the vertexes on the shortest path, empty if there is no path, or null
+	 *         if either key is not in the graph.
+	 */
+	public ArrayList<Vertex<K, V>> bidirectionalShortestPath(K sourceKey, K targetKey) {
+		Vertex<K, V> source = members.get(sourceKey);
+		Vertex<K, V> target = members.get(targetKey);
+		if (source == null || target == null) {
+			return null;
+		}
+		ArrayList<Vertex<K, V>> path = new ArrayList<>();
+		TraversalContext<K, V> forward = TraversalContext.acquire(this);
+		TraversalContext<K, V> backward = TraversalContext.acquire(this);
+		IndexedHeap forwardQueue = forward.getHeap();
+		IndexedHeap backwardQueue = backward.getHeap();
+		// the length of the shortest path found so far, and the vertex where the two
+		// searches met on it:
+		double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+		Vertex<K, V> meeting = source == target ? source : null;
+		try {
+			forward.setDistance(source, 0.0);
+			forwardQueue.insertOrDecrease(source.index, 0.0);
+			backward.setDistance(target, 0.0);
+			backwardQueue.insertOrDecrease(target.index, 0.0);
+			while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+				if (forwardQueue.peekKey() + backwardQueue.peekKey() >= best) {
+					// no path through the unsettled vertexes can be shorter:
+					break;
+				}
+				// step the search whose next vertex is closer:
+				boolean isForward = forwardQueue.peekKey() <= backwardQueue.peekKey();
+				TraversalContext<K, V> context = isForward ? forward : backward;
+				TraversalContext<K, V> other = isForward ? backward : forward;
+				IndexedHeap q = isForward ? forwardQueue : backwardQueue;
+				Vertex<K, V> c = vertexAt(q.poll());
+				Hashtable<K, Edge<K, V>> edges = isForward ? c.getEdges() : c.getInEdges();
+				for (Edge<K, V> currentEdge : edges.values()) {
+					Vertex<K, V> s = isForward ? currentEdge.getEnd() : currentEdge.getStart();
+					double weight = context.getDistance(c) + currentEdge.getWeight();
+					if (context.getDistance(s) > weight) {
+						context.setDistance(s, weight);
+						context.setPredecessor(s, c);
+						q.insertOrDecrease(s.index, weight);
+					}
+					// check for a shorter path through this vertex:
+					if (context.getDistance(s) + other.getDistance(s) < best) {
+						best = context.getDistance(s) + other.getDistance(s);
+						meeting = s;
+					}
+				}
+			}
+			if (meeting != null) {
+				// the forward predecessors lead back to the source, and the backward ones lead
+				// on to the target:
+				for (Vertex<K, V> s = meeting; s != null; s = forward.getPredecessor(s)) {
+					path.add(0, s);
+				}
+				for (Vertex<K, V> s = backward.getPredecessor(meeting); s != null; s = backward.getPredecessor(s)) {
+					path.add(s);
+				}
+			}
+		} finally {
+			backward.release();
+			forward.release();
+		}
+		return path;
+	}
 
-		// get the list of edges originating from this vertex:
-		Hashtable<K, Edge<K, V>> edgesOfCurrentVertex = currentVertex.getEdges();
-		// build iterator for the edges:
-		Enumeration<K> keys = edgesOfCurrentVertex.keys();
-		K nextKey = null;
-		while (keys.hasMoreElements()) {
-			nextKey = keys.nextElement();
-			if (!edgesOfCurrentVertex.get(nextKey).getEnd().visited) {
-				// if the ending node has not been visited, then move to that vertex:
-				dfSpanningHelper(edgesOfCurrentVertex.get(nextKey).getEnd().getKey(), traversal, g);
-				// add edge to graph:
-				g.directedConnect(currentVertex.getKey(), edgesOfCurrentVertex.get(nextKey).getEnd().getKey(),
-						edgesOfCurrentVertex.get(nextKey).getWeight());
+	/**
+	 * gets the row and column of a vertex in the matrixes made by
+	 * allPairsShortestPaths.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the index, or -1 if the key is not in the graph.
+	 */
+	public int indexOf(K key) {
+		Vertex<K, V> c = members.get(key);
+		return c == null ? -1 : c.index;
+	}
+
+	/**
+	 * finds the shortest distance between every pair of vertexes. The distances
+	 * are found on a compact copy of the graph, in parallel, see
+	 * AllPairsShortestPaths. Negative weights are allowed.
+	 *
+	 * @return the distances, where the row and column of each vertex is its
+	 *         indexOf, or null if there is a negative cycle.
+	 */
+	public DistanceMatrix allPairsShortestPaths() {
+		return AllPairsShortestPaths.compute(indexSnapshot());
+	}
+
+	/**
+	 * finds the shortest distance between every pair of vertexes, stored as floats
+	 * in a memory mapped file for graphs whose matrix does not fit in memory.
+	 *
+	 * @param file - the file backing the matrix.
+	 * @return the distances, where the row and column of each vertex is its
+	 *         indexOf, or null if there is a negative cycle.
+	 * @throws IOException - if the file cannot be created or mapped.
+	 */
+	public DistanceMatrix allPairsShortestPaths(File file) throws IOException {
+		IntGraph<Void> copy = indexSnapshot();
+		DistanceMatrix out = DistanceMatrix.mapped(copy.idCount(), file);
+		if (!AllPairsShortestPaths.compute(copy, out)) {
+			return null;
+		}
+		return out;
+	}
+
+	/**
+	 * copies the edges into a frozen IntGraph whose keys are the vertex indexes.
+	 * Unused indexes become vertexes without edges, so the id of every vertex in
+	 * the copy is its index. The copy is kept and reused until a vertex is added
+	 * or removed or an edge changes through the graph's methods.
+	 *
+	 * @return the copy, which must not be changed.
+	 */
+	IntGraph<Void> indexSnapshot() {
+		if (snapshot != null) {
+			return snapshot;
+		}
+		IntGraph<Void> copy = new IntGraph<Void>();
+		int capacity = indexCapacity();
+		for (int i = 0; i < capacity; i++) {
+			copy.add(i, null);
+		}
+		for (Vertex<K, V> c : members.values()) {
+			for (Edge<K, V> e : c.getEdges().values()) {
+				copy.directedConnect(c.index, e.getEnd().index, e.getWeight());
 			}
 		}
+		copy.freeze();
+		snapshot = copy;
+		return copy;
+	}
+
+	/**
+	 * generate a depth first spanning graph of the current graph structure.
+	 *
+	 * @param startKey - the key of the vertex from which to start spanning.
+	 * @return - the depth first spanning tree.
+	 */
+	public Graph<K, V> depthFirstSpanning(K startKey) {
+		// get the vertex with the respective key:
+		Vertex<K, V> start = members.get(startKey);
+		Graph<K, V> g = new Graph<K, V>();
+		if (start == null) {
+			return g;
+		}
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			depthFirst(start, context, null, g);
+		} finally {
+			context.release();
+		}
+		return g;
 	}
 
 	/**
@@ -690,49 +1699,47 @@ public class Graph<K extends Comparable<K>, V> {
 	 * @return a graph containing the minimum spanning tree.
 	 */
 	public Graph<K, V> primms(K startKey) {
-		PriorityQueue<Vertex<K, V>> q = new PriorityQueue<>(new CompareWeights());
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		IndexedHeap q = context.getHeap();
 		Vertex<K, V> start = members.get(startKey);
 		Graph<K, V> g = new Graph<K, V>();
 		Vertex<K, V> c = null;
 		Vertex<K, V> s = null;
-		Edge<K, V> currentEdge;
-		PriorityQueue<Edge<K, V>> edges;
-		start.totalWeight = 0.0;
-		q.add(start);
-		while (!q.isEmpty()) {
-			c = q.remove();
-			// NOTE - this algorithm does not need to mark items as visited, because it
-			// sorts both the edges and the vertexes in priority queues based
-			// on the current weight and we have the current weights maxed out for unvisited
-			// nodes.
-			// add current vertex to graph:
-			g.add(c);
-			// if the current node has a predecessor, then make a connection from it in the
-			// spanning tree:
-			if (c.predecessor != null) {
-				g.directedConnect(c.predecessor.getKey(), c.getKey(), c.getInEdge(c.predecessor.getKey()).getWeight());
-			}
-			// build iterator for the edges:
-			edges = c.sortOutEdgesByWeight();
-			// evaluate the
-			while (!edges.isEmpty()) {
-				currentEdge = edges.remove();
-				s = currentEdge.getEnd();
-				// if the next vertex has not been visited, and the cost to move to that node is
-				// less, then update the weight:
-				if ((s.totalWeight > (c.totalWeight + currentEdge.getWeight()))) {
-					// update successor's total weight:
-					s.totalWeight = c.totalWeight + currentEdge.getWeight();
-					// store predecessor:
-					s.predecessor = c;
-					// add successor node to priority queue:
-					q.add(s);
+		Vertex<K, V> predecessor = null;
+		try {
+			context.setDistance(start, 0.0);
+			q.insertOrDecrease(start.index, 0.0);
+			while (!q.isEmpty()) {
+				c = vertexAt(q.poll());
+				context.setVisited(c);
+				// add current vertex to graph:
+				g.add(c);
+				// if the current node has a predecessor, then make a connection from it in the
+				// spanning tree:
+				predecessor = context.getPredecessor(c);
+				if (predecessor != null) {
+					g.directedConnect(predecessor.getKey(), c.getKey(), c.getInEdge(predecessor.getKey()).getWeight());
+				}
+				// relax each out edge, the edges do not need to be sorted:
+				for (Edge<K, V> currentEdge : c.getEdges().values()) {
+					s = currentEdge.getEnd();
+					double weight = context.getDistance(c) + currentEdge.getWeight();
+					// if the next vertex is not in the tree, and the cost to move to that node is
+					// less, then update the weight:
+					if (!context.isVisited(s) && context.getDistance(s) > weight) {
+						// update successor's total weight:
+						context.setDistance(s, weight);
+						// store predecessor:
+						context.setPredecessor(s, c);
+						// lower the successor's place in the priority queue:
+						q.insertOrDecrease(s.index, weight);
+					}
 				}
-			}
 
+			}
+		} finally {
+			context.release();
 		}
-		// iterate through traversal list and reset visited status:
-		resetTraversalVariables();
 		return g;
 	}
 
@@ -760,25 +1767,224 @@ public class Graph<K extends Comparable<K>, V> {
 		Graph<K, V> g = new Graph<>();
 		// sort edges in increasing order by weight:
 		PriorityQueue<Edge<K, V>> edges = getEdges(startKey);
-		// initialize traversal variables:
-		makeSet();
+		// the predecessor of each vertex is its parent in the set, and the distance is
+		// the rank of the set:
+		TraversalContext<K, V> context = TraversalContext.acquire(this);
+		try {
+			// initialize traversal variables:
+			makeSet(context);
+			double totalCost = 0.0;
+			while (!edges.isEmpty()) {
+				c = edges.remove();
+				// check if this edge is part of a larger subtree that contains both vertexes in
+				// the edge::
+				if (!findSet(c.getStart(), context).equals(findSet(c.getEnd(), context))) {
+					totalCost = totalCost + c.getWeight();
+					// if not, then connect the vertexes:
+					g.add(c.getStart());
+					g.add(c.getEnd());
+					traveledEdges.add(c);
+					g.connect(c.getStart().getKey(), c.getEnd().getKey(), c.getWeight());
+					g.setCost(totalCost);
+					union(c.getStart(), c.getEnd(), context);
+				}
+			}
+		} finally {
+			context.release();
+		}
+		return g;
+	}
+
+	/**
+	 * forms a minimum spanning forest with the filter kruskal algorithm. The edges
+	 * are split around a pivot weight taken from a sample, and the light half is
+	 * handled first. Its tree usually joins most of the vertexes, so most of the
+	 * heavy edges join vertexes that are already connected and are dropped before
+	 * the heavy half is split or sorted. Edges are treated as undirected, and are
+	 * kept in primitive arrays with a union find on parent and rank arrays.
+	 *
+	 * @return a graph with the vertexes and edges of the forest, connected in both
+	 *         directions. Its cost is the total weight of the forest.
+	 */
+	public Graph<K, V> filterKruskals() {
+		// list each undirected edge once, by the indexes of its ends:
+		int m = 0;
+		int[] starts = new int[getNumberOfEdges()];
+		int[] ends = new int[starts.length];
+		double[] weights = new double[starts.length];
+		for (Vertex<K, V> c : members.values()) {
+			for (Edge<K, V> e : c.getEdgeArray()) {
+				Vertex<K, V> end = e.getEnd();
+				// a connection is listed from its lower index, with the lighter weight of
+				// its two directions:
+				Edge<K, V> reverse = end.getOutEdge(c.getKey());
+				if (end.index > c.index || (end.index < c.index && reverse == null)) {
+					starts[m] = c.index;
+					ends[m] = end.index;
+					weights[m++] = reverse == null ? e.getWeight() : Math.min(e.getWeight(), reverse.getWeight());
+				}
+			}
+		}
+		int[] order = new int[m];
+		for (int e = 0; e < m; e++) {
+			order[e] = e;
+		}
+		KruskalState state = new KruskalState(indexCapacity(), starts, ends, weights);
+		state.filterKruskal(order, 0, m, members.size() - 1);
+
+		Graph<K, V> g = new Graph<>();
 		double totalCost = 0.0;
-		while (!edges.isEmpty()) {
-			c = edges.remove();
-			// check if this edge is part of a larger subtree that contains both vertexes in
-			// the edge::
-			if (!findSet(c.getStart()).equals(findSet(c.getEnd()))) {
-				totalCost = totalCost + c.getWeight();
-				// if not, then connect the vertexes:
-				g.add(c.getStart());
-				g.add(c.getEnd());
-				traveledEdges.add(c);
-				g.connect(c.getStart().getKey(), c.getEnd().getKey(), c.getWeight());
-				g.setCost(totalCost);
-				union(c.getStart(), c.getEnd());
-			}
-		}
-		resetTraversalVariables();
+		for (int k = 0; k < state.count; k++) {
+			int e = state.chosen[k];
+			Vertex<K, V> start = vertexAt(starts[e]);
+			Vertex<K, V> end = vertexAt(ends[e]);
+			g.add(start);
+			g.add(end);
+			g.connect(start.getKey(), end.getKey(), weights[e]);
+			totalCost = totalCost + weights[e];
+		}
+		g.setCost(totalCost);
+		return g;
+	}
+
+	/**
+	 * the edges and union find of one run of filterKruskals.
+	 */
+	private static class KruskalState {
+		// ranges with at most this many edges are sorted instead of split:
+		private final static int SORT_SIZE = 256;
+		// the number of weights the pivot is chosen from:
+		private final static int SAMPLES = 15;
+
+		final int[] starts;
+		final int[] ends;
+		final double[] weights;
+		final int[] parent;
+		final int[] rank;
+		// the edges of the forest:
+		final int[] chosen;
+		int count = 0;
+
+		KruskalState(int capacity, int[] starts, int[] ends, double[] weights) {
+			this.starts = starts;
+			this.ends = ends;
+			this.weights = weights;
+			parent = new int[capacity];
+			rank = new int[capacity];
+			for (int i = 0; i < capacity; i++) {
+				parent[i] = i;
+			}
+			chosen = new int[Math.max(0, capacity - 1)];
+		}
+
+		/**
+		 * adds the forest edges among order[low, high) in increasing weight order.
+		 *
+		 * @param order - the edge numbers.
+		 * @param low   - the first position of the range.
+		 * @param high  - one past the last position of the range.
+		 * @param most  - the largest number of edges a forest can have.
+		 */
+		void filterKruskal(int[] order, int low, int high, int most) {
+			if (count >= most) {
+				return;
+			}
+			if (high - low <= SORT_SIZE) {
+				kruskal(order, low, high, most);
+				return;
+			}
+			double pivot = samplePivot(order, low, high);
+			// move the edges no heavier than the pivot to the front:
+			int split = low;
+			for (int i = low; i < high; i++) {
+				if (weights[order[i]] <= pivot) {
+					int tmp = order[i];
+					order[i] = order[split];
+					order[split++] = tmp;
+				}
+			}
+			if (split == high) {
+				// every edge is as light as the pivot, so splitting does not help:
+				kruskal(order, low, high, most);
+				return;
+			}
+			filterKruskal(order, low, split, most);
+			// drop the heavy edges whose ends are already connected:
+			int kept = split;
+			for (int i = split; i < high; i++) {
+				int e = order[i];
+				if (IntGraph.find(parent, starts[e]) != IntGraph.find(parent, ends[e])) {
+					order[kept++] = e;
+				}
+			}
+			filterKruskal(order, split, kept, most);
+		}
+
+		/**
+		 * sorts the range and adds each edge that joins two trees.
+		 */
+		private void kruskal(int[] order, int low, int high, int most) {
+			IntGraph.sortByWeight(order, low, high - 1, weights);
+			for (int i = low; i < high && count < most; i++) {
+				int e = order[i];
+				int u = IntGraph.find(parent, starts[e]);
+				int v = IntGraph.find(parent, ends[e]);
+				if (u == v) {
+					continue;
+				}
+				// link the shorter tree under the taller one:
+				if (rank[u] < rank[v]) {
+					parent[u] = v;
+				} else {
+					parent[v] = u;
+					if (rank[u] == rank[v]) {
+						rank[u]++;
+					}
+				}
+				chosen[count++] = e;
+			}
+		}
+
+		/**
+		 * gets the median weight of evenly spaced edges in the range.
+		 */
+		private double samplePivot(int[] order, int low, int high) {
+			double[] sample = new double[SAMPLES];
+			long step = (high - low) / SAMPLES;
+			for (int i = 0; i < SAMPLES; i++) {
+				sample[i] = weights[order[(int) (low + i * step)]];
+			}
+			Arrays.sort(sample);
+			return sample[SAMPLES / 2];
+		}
+	}
+
+	/**
+	 * forms a minimum spanning forest with boruvkas algorithm, on a compact copy
+	 * of the graph with the work split between the cores, see BoruvkaForest.
+	 * Edges are treated as undirected, and a graph in several pieces gets one tree
+	 * for each piece.
+	 *
+	 * @return a graph with every vertex and the edges of the forest, connected in
+	 *         both directions. Its cost is the total weight of the forest.
+	 */
+	public Graph<K, V> boruvkas() {
+		// the ids of the copy are the vertex indexes:
+		IntGraph<Void> copy = indexSnapshot();
+		int[] edges = BoruvkaForest.forestEdges(copy);
+		Graph<K, V> g = new Graph<K, V>();
+		for (Vertex<K, V> c : members.values()) {
+			g.add(c);
+		}
+		double totalCost = 0.0;
+		for (int k = 0; k < edges.length; k += 2) {
+			K start = vertexAt(edges[k]).getKey();
+			K end = vertexAt(copy.edgeEnd(edges[k + 1])).getKey();
+			double weight = copy.edgeWeight(edges[k + 1]);
+			g.connect(start, end, weight);
+			totalCost = totalCost + weight;
+		}
+		g.setCost(totalCost);
 		return g;
 	}
 
@@ -786,59 +1992,57 @@ public class Graph<K extends Comparable<K>, V> {
 	 * finds the start of a subtree - it should iterate backwards in reverse weight
 	 * order.
 	 *
-	 * @param u - the current vertex being searched.
+	 * @param u       - the current vertex being searched.
+	 * @param context - the sets of the vertexes.
 	 * @return - the root of the subtre containing the vertex.
 	 */
-	private Vertex<K, V> findSet(Vertex<K, V> u) {
-		if (u != u.predecessor) {
-			u.predecessor = findSet(u.predecessor);
+	private Vertex<K, V> findSet(Vertex<K, V> u, TraversalContext<K, V> context) {
+		if (u != context.getPredecessor(u)) {
+			context.setPredecessor(u, findSet(context.getPredecessor(u), context));
 		}
-		return u.predecessor;
+		return context.getPredecessor(u);
 
 	}
 
 	/**
 	 * Combines the two sets of vertexes into a larger subtree
 	 *
-	 * @param u - the starting vertex of an edge.
-	 * @param v - the ending vertex of an edge.
+	 * @param u       - the starting vertex of an edge.
+	 * @param v       - the ending vertex of an edge.
+	 * @param context - the sets of the vertexes.
 	 */
-	private void link(Vertex<K, V> u, Vertex<K, V> v) {
-		if (u.totalWeight > v.totalWeight)
-			v.predecessor = u;
+	private void link(Vertex<K, V> u, Vertex<K, V> v, TraversalContext<K, V> context) {
+		if (context.getDistance(u) > context.getDistance(v))
+			context.setPredecessor(v, u);
 		else {
-			u.predecessor = v;
-			if (u.totalWeight == v.totalWeight)
-				v.totalWeight += 1;
+			context.setPredecessor(u, v);
+			if (context.getDistance(u) == context.getDistance(v))
+				context.setDistance(v, context.getDistance(v) + 1);
 		}
 	}
 
 	/**
 	 * initializes the sets for kruskals. All vertexes start as being sets with
 	 * themselves, i.e they are their own pred.
+	 *
+	 * @param context - the sets of the vertexes.
 	 */
-	private void makeSet() {
-		// build iterator for the edges:
-		Hashtable<K, Vertex<K, V>> clone = (Hashtable<K, Vertex<K, V>>) members.clone();
-		Enumeration<K> keys = clone.keys();
-		K nextKey = null;
-		Vertex<K, V> u = null;
-		while (keys.hasMoreElements()) {
-			nextKey = keys.nextElement();
-			u = clone.remove(nextKey);
-			u.predecessor = u;
-			u.totalWeight = 0.0;
+	private void makeSet(TraversalContext<K, V> context) {
+		for (Vertex<K, V> u : members.values()) {
+			context.setPredecessor(u, u);
+			context.setDistance(u, 0.0);
 		}
 	}
 
 	/**
 	 * combines the roots of the two subtrees
 	 *
-	 * @param u - the subtree containing the start vertex of the new edge
-	 * @param v - the subtree containing the end vertex of the new edge.
+	 * @param u       - the subtree containing the start vertex of the new edge
+	 * @param v       - the subtree containing the end vertex of the new edge.
+	 * @param context - the sets of the vertexes.
 	 */
-	private void union(Vertex<K, V> u, Vertex<K, V> v) {
-		link(findSet(u), findSet(v));
+	private void union(Vertex<K, V> u, Vertex<K, V> v, TraversalContext<K, V> context) {
+		link(findSet(u, context), findSet(v, context), context);
 	}
 
 	/**
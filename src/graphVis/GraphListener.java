@@ -0,0 +1,62 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+/**
+ * gets told about every change made through the methods of a Graph, so
+ * structures built from the graph can be updated instead of rebuilt. Changes
+ * made directly to a Vertex are not reported.
+ *
+ * @author joe caffarini
+ * @param <K> - the key data type
+ * @param <V> - the value data type
+ */
+public interface GraphListener<K extends Comparable<K>, V> {
+
+	/**
+	 * called after a vertex is added to the graph.
+	 *
+	 * @param vertex - the new vertex.
+	 */
+	void vertexAdded(Vertex<K, V> vertex);
+
+	/**
+	 * called after a vertex and all of its edges are removed from the graph. The
+	 * vertex still has its index until every listener has been told.
+	 *
+	 * @param vertex - the removed vertex, which has no edges left.
+	 */
+	void vertexRemoved(Vertex<K, V> vertex);
+
+	/**
+	 * called after an edge between two vertexes is added, removed or has its
+	 * weight changed.
+	 *
+	 * @param start - the vertex at the start of the edge.
+	 * @param end   - the vertex at the end of the edge.
+	 */
+	void edgeChanged(Vertex<K, V> start, Vertex<K, V> end);
+
+}
@@ -27,8 +27,20 @@ package graphVis;
 import static org.junit.Assert.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.After;
 import org.junit.Before;
@@ -624,4 +636,1298 @@ public class GraphTest {
 		}
 	}
 
+	@Test
+	public void Test11_copy() {
+		Graph<String, Integer> gLocal = new Graph<String, Integer>();
+		Graph<String, Integer> gCopy;
+		gLocal.add("A", 0);
+		gLocal.add("B", 1);
+		gLocal.add("C", 2);
+
+		assertEquals(true, gLocal.connect("A", "B", 2.0));
+		assertEquals(true, gLocal.directedConnect("B", "C", 3.0));
+
+		gCopy = gLocal.copy();
+		assertEquals(3, gCopy.size());
+		assertEquals(true, gCopy.isThereAnEdge("A", "B"));
+		assertEquals(true, gCopy.isThereAnEdge("B", "A"));
+		assertEquals(false, gCopy.isThereAnEdge("C", "B"));
+		if (3.0 != gCopy.getOutEdgeWeight("B", "C")) {
+			fail("weights not copied");
+		}
+		if (gCopy.getVertex("A") == gLocal.getVertex("A") || gCopy.get("A") != gLocal.get("A")) {
+			fail("vertexes should be copied and values shared");
+		}
+
+		// changing the copy should not change the original:
+		gCopy.changeEdgeWeight("B", "C", 5.0);
+		assertEquals(true, gCopy.remove("A"));
+		assertEquals(3, gLocal.size());
+		assertEquals(true, gLocal.isThereAnEdge("B", "A"));
+		if (3.0 != gLocal.getOutEdgeWeight("B", "C")) {
+			fail("changing the copy changed the original");
+		}
+	}
+
+	@Test
+	public void Test12_lazy_traversals() {
+		Graph<String, Integer> gLocal = new Graph<String, Integer>();
+		String returnString = "";
+		gLocal.add("A", 0);
+		gLocal.add("B", 1);
+		gLocal.add("C", 2);
+		gLocal.add("D", 3);
+		gLocal.add("E", 4);
+		gLocal.add("F", 5);
+		gLocal.add("G", 6);
+
+		assertEquals(true, gLocal.directedConnect("A", "B"));
+		assertEquals(true, gLocal.directedConnect("A", "C"));
+		assertEquals(true, gLocal.directedConnect("A", "D"));
+		assertEquals(true, gLocal.directedConnect("C", "E"));
+		assertEquals(true, gLocal.directedConnect("D", "F"));
+		assertEquals(true, gLocal.directedConnect("F", "C"));
+		assertEquals(true, gLocal.directedConnect("E", "A"));
+
+		// the lazy traversals should visit the vertexes in the same order:
+		Iterator<Vertex<String, Integer>> lazy = gLocal.depthFirstIterator("D");
+		for (Vertex<String, Integer> elem : gLocal.depthFirstTraversal("D")) {
+			assertEquals(elem, lazy.next());
+		}
+		assertEquals(false, lazy.hasNext());
+
+		lazy = gLocal.breadthFirstIterator("A");
+		for (Vertex<String, Integer> elem : gLocal.breadthFirstTraversal("A")) {
+			assertEquals(elem, lazy.next());
+		}
+		assertEquals(false, lazy.hasNext());
+
+		returnString = gLocal.breadthFirstStream("A").limit(3).map(Vertex::toString).reduce("", String::concat);
+		assertEquals("ADC", returnString);
+
+		assertEquals(false, gLocal.depthFirstIterator("Z").hasNext());
+		assertEquals(true, gLocal.isReachable("D", "B"));
+		assertEquals(false, gLocal.isReachable("B", "D"));
+		assertEquals(false, gLocal.isReachable("A", "G"));
+		assertEquals("F", gLocal.findFirst("A", elem -> elem.getValue() > 4).toString());
+		assertEquals(null, gLocal.findFirst("A", elem -> elem.getValue() > 5));
+		for (Vertex<String, Integer> elem : gLocal.depthFirstStream("A").collect(Collectors.toList())) {
+			assertEquals(false, elem.visited);
+		}
+	}
+
+	@Test
+	public void Test13_int_graph() {
+		Graph<Integer, String> gLocal = new Graph<Integer, String>();
+		IntGraph<String> gInt;
+		for (int i = 0; i < 9; i++) {
+			gLocal.add(i, "" + i);
+		}
+		assertEquals(true, gLocal.connect(0, 1, 1.0));
+		assertEquals(true, gLocal.connect(0, 3, 2.0));
+		assertEquals(true, gLocal.connect(1, 4, 3.0));
+		assertEquals(true, gLocal.connect(1, 2, 2.0));
+		assertEquals(true, gLocal.connect(2, 5, 5.0));
+		assertEquals(true, gLocal.connect(3, 4, 3.0));
+		assertEquals(true, gLocal.connect(3, 6, 4.0));
+		assertEquals(true, gLocal.connect(4, 7, 4.0));
+		assertEquals(true, gLocal.connect(4, 5, 1.0));
+		assertEquals(true, gLocal.connect(5, 8, 3.0));
+		assertEquals(true, gLocal.connect(7, 8, 6.0));
+		assertEquals(true, gLocal.connect(6, 7, 1.0));
+
+		gInt = IntGraph.fromGraph(gLocal);
+		assertEquals(9, gInt.size());
+		assertEquals(24, gInt.getNumberOfEdges());
+		assertEquals("4", gInt.get(4));
+
+		// the traversals should visit the vertexes in the same order as the graph:
+		ArrayList<Vertex<Integer, String>> traversal = gLocal.depthFirstTraversal(4);
+		int[] keys = gInt.depthFirstTraversal(4);
+		assertEquals(traversal.size(), keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(traversal.get(i).getKey().intValue(), keys[i]);
+		}
+		traversal = gLocal.breadthFirstTraversal(4);
+		gInt.freeze();
+		keys = gInt.breadthFirstTraversal(4);
+		assertEquals(traversal.size(), keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(traversal.get(i).getKey().intValue(), keys[i]);
+		}
+
+		if (17.0 != gInt.kruskals().getCost()) {
+			fail("minimum tree not found");
+		}
+		assertEquals("[0, 1, 4, 5, 8]", Arrays.toString(gInt.dijShortestPath(0, 8)));
+		assertEquals(8, gInt.primms(0).getNumberOfEdges());
+		assertEquals(8, gInt.depthFirstSpanning(0).getNumberOfEdges());
+		assertEquals(null, gInt.topologicalOrdering());
+
+		// removing a vertex removes its edges, and its id is reused:
+		assertEquals(true, gInt.remove(4));
+		assertEquals(false, gInt.isFrozen());
+		assertEquals(16, gInt.getNumberOfEdges());
+		assertEquals(false, gInt.isThereAnEdge(1, 4));
+		assertEquals(-1, gInt.getInDegree(4));
+		gInt.add(20, "20");
+		assertEquals(4, gInt.idOf(20));
+		assertEquals(true, gInt.directedConnect(20, 0, 7.0));
+		if (7.0 != gInt.getOutEdgeWeight(20, 0)) {
+			fail("edge not added to the reused id");
+		}
+		assertEquals(0, gInt.getInDegree(20));
+
+		IntGraph<String> dag = new IntGraph<String>();
+		for (int i = 0; i < 4; i++) {
+			dag.add(i * 10, "" + i);
+		}
+		dag.directedConnect(0, 10);
+		dag.directedConnect(0, 20);
+		dag.directedConnect(20, 10);
+		dag.directedConnect(10, 30);
+		assertEquals("[0, 20, 10, 30]", Arrays.toString(dag.topologicalOrdering()));
+	}
+
+	@Test
+	public void Test14_edge_iteration() {
+		Graph<Integer, String> gLocal = new Graph<Integer, String>();
+		for (int i = 0; i < 200; i++) {
+			gLocal.add(i, "" + i);
+		}
+		for (int i = 1; i < 200; i++) {
+			assertEquals(true, gLocal.connect(0, i, (double) i));
+		}
+		assertEquals(398, gLocal.getNumberOfEdges());
+
+		// every edge is visited once, even edges that end at the same vertex:
+		int[] count = new int[1];
+		gLocal.forEachEdge(c -> count[0]++);
+		assertEquals(398, count[0]);
+		assertEquals(398, gLocal.edgeStream().count());
+		double weight = gLocal.parallelEdgeStream().mapToDouble(Edge::getWeight).sum();
+		if (2 * 199 * 200 / 2 != weight) {
+			fail("parallel stream missed edges");
+		}
+
+		ArrayList<Edge<Integer, String>> sorted = gLocal.sortedEdges();
+		assertEquals(398, sorted.size());
+		for (int i = 1; i < sorted.size(); i++) {
+			if (sorted.get(i - 1).getWeight() > sorted.get(i).getWeight()) {
+				fail("edges not sorted");
+			}
+		}
+	}
+
+	@Test
+	public void Test15_removal() {
+		Graph<Integer, String> gLocal = new Graph<Integer, String>();
+		for (int i = 0; i < 100000; i++) {
+			gLocal.add(i, "" + i);
+		}
+		for (int i = 1; i < 100000; i++) {
+			assertEquals(true, gLocal.directedConnect(i - 1, i, 1.0));
+		}
+		assertEquals(true, gLocal.directedConnect(5, 7, 1.0));
+		assertEquals(true, gLocal.directedConnect(6, 6, 1.0));
+
+		// removing a vertex removes the edges on both sides of it:
+		assertEquals(true, gLocal.remove(6));
+		assertEquals(false, gLocal.remove(6));
+		assertEquals(99999, gLocal.size());
+		assertEquals(1, gLocal.getVertex(5).getOutDegree());
+		assertEquals(1, gLocal.getVertex(7).getInDegree());
+		assertEquals(false, gLocal.getVertex(7).hasInConnectionFrom(6));
+		assertEquals(99998, gLocal.getNumberOfEdges());
+
+		// removing many vertexes at once:
+		ArrayList<Integer> keys = new ArrayList<>();
+		for (int i = 10; i < 99990; i++) {
+			keys.add(i);
+		}
+		keys.add(6);
+		assertEquals(99980, gLocal.removeAll(keys));
+		assertEquals(19, gLocal.size());
+		assertEquals(0, gLocal.getVertex(9).getOutDegree());
+		assertEquals(0, gLocal.getVertex(99990).getInDegree());
+		assertEquals(17, gLocal.getNumberOfEdges());
+	}
+
+	@Test
+	public void Test16_concurrent_queries() {
+		Graph<Integer, String> gLocal = new Graph<Integer, String>();
+		for (int i = 0; i < 50; i++) {
+			gLocal.add(i, "" + i);
+		}
+		for (int i = 0; i < 50; i++) {
+			gLocal.connect(i, (i * 7 + 3) % 50, (double) (i % 5 + 1));
+			gLocal.connect(i, (i * 11 + 1) % 50, (double) (i % 3 + 1));
+		}
+		String dfs = gLocal.depthFirstTraversal(0).toString();
+		String bfs = gLocal.breadthFirstTraversal(0).toString();
+		String path = gLocal.dijShortestPath(0).toString();
+		double cost = gLocal.kruskals(0).getCost();
+
+		// many queries on the same graph at once should give the same results as one
+		// at a time:
+		long wrong = IntStream.range(0, 400).parallel().filter(i -> {
+			switch (i % 4) {
+			case 0:
+				return !gLocal.depthFirstTraversal(0).toString().equals(dfs);
+			case 1:
+				return !gLocal.breadthFirstTraversal(0).toString().equals(bfs);
+			case 2:
+				return !gLocal.dijShortestPath(0).toString().equals(path);
+			default:
+				return gLocal.kruskals(0).getCost() != cost;
+			}
+		}).count();
+		assertEquals(0, wrong);
+		for (Vertex<Integer, String> elem : gLocal.breadthFirstTraversal(0)) {
+			assertEquals(false, elem.visited);
+		}
+	}
+
+	@Test
+	public void Test17_indexed_heap() {
+		IndexedHeap heap = new IndexedHeap(4, 4);
+		Random r = new Random(7);
+		double[] keys = new double[1000];
+		for (int i = 0; i < 1000; i++) {
+			keys[i] = r.nextDouble() * 100;
+			assertEquals(true, heap.insertOrDecrease(i, keys[i]));
+		}
+		// lowering a key moves the item, raising it does nothing:
+		for (int i = 0; i < 1000; i += 3) {
+			assertEquals(false, heap.insertOrDecrease(i, keys[i] + 1));
+			keys[i] = keys[i] / 2;
+			assertEquals(true, heap.insertOrDecrease(i, keys[i]));
+		}
+		assertEquals(1000, heap.size());
+
+		double last = -1;
+		while (!heap.isEmpty()) {
+			double key = heap.peekKey();
+			int item = heap.poll();
+			if (key != keys[item] || key < last) {
+				fail("items not removed in order");
+			}
+			assertEquals(false, heap.contains(item));
+			last = key;
+		}
+		assertEquals(-1, heap.poll());
+	}
+
+	@Test
+	public void Test18_point_to_point_paths() {
+		Graph<String, Integer> gLocal = new Graph<String, Integer>();
+		gLocal.add("A", 0);
+		gLocal.add("B", 1);
+		gLocal.add("C", 2);
+		gLocal.add("D", 3);
+		gLocal.add("E", 4);
+		gLocal.add("F", 5);
+		gLocal.add("G", 6);
+		gLocal.add("H", 7);
+
+		assertEquals(true, gLocal.directedConnect("A", "B", 4.0));
+		assertEquals(true, gLocal.directedConnect("A", "C", 2.0));
+		assertEquals(true, gLocal.directedConnect("A", "E", 15.0));
+		assertEquals(true, gLocal.directedConnect("C", "D", 5.0));
+		assertEquals(true, gLocal.directedConnect("B", "D", 1.0));
+		assertEquals(true, gLocal.directedConnect("B", "E", 10.0));
+		assertEquals(true, gLocal.directedConnect("D", "E", 3.0));
+		assertEquals(true, gLocal.directedConnect("D", "F", 0.0));
+		assertEquals(true, gLocal.directedConnect("F", "D", 2.0));
+		assertEquals(true, gLocal.directedConnect("F", "H", 4.0));
+		assertEquals(true, gLocal.directedConnect("G", "H", 4.0));
+
+		assertEquals("[A, B, D, F, H]", gLocal.shortestPath("A", "H").toString());
+		assertEquals("[A, B, D, F, H]", gLocal.bidirectionalShortestPath("A", "H").toString());
+		assertEquals("[A, B, D, E]", gLocal.bidirectionalShortestPath("A", "E").toString());
+		assertEquals("[A, B, D, E]", gLocal.aStarShortestPath("A", "E", (v1, v2) -> 0.0).toString());
+		assertEquals("[D]", gLocal.bidirectionalShortestPath("D", "D").toString());
+		assertEquals(0, gLocal.shortestPath("A", "G").size());
+		assertEquals(0, gLocal.bidirectionalShortestPath("A", "G").size());
+		assertEquals(null, gLocal.shortestPath("A", "Z"));
+
+		// on a grid with weights equal to the lengths of the edges, the straight line
+		// distance never overestimates, so all three searches find equally short paths:
+		Graph<Integer, double[]> grid = new Graph<Integer, double[]>();
+		Random r = new Random(3);
+		for (int i = 0; i < 400; i++) {
+			grid.add(i, new double[] { i % 20 + r.nextDouble() * 0.5, i / 20 + r.nextDouble() * 0.5 });
+		}
+		ToDoubleBiFunction<double[], double[]> distance = (p1, p2) -> Math.hypot(p1[0] - p2[0], p1[1] - p2[1]);
+		for (int i = 0; i < 400; i++) {
+			if (i % 20 < 19 && r.nextDouble() < 0.8) {
+				grid.connect(i, i + 1, distance.applyAsDouble(grid.get(i), grid.get(i + 1)));
+			}
+			if (i < 380 && r.nextDouble() < 0.8) {
+				grid.connect(i, i + 20, distance.applyAsDouble(grid.get(i), grid.get(i + 20)));
+			}
+		}
+		for (int target = 1; target < 400; target += 37) {
+			double dijkstra = pathLength(grid, grid.shortestPath(0, target));
+			double both = pathLength(grid, grid.bidirectionalShortestPath(0, target));
+			double aStar = pathLength(grid, grid.aStarShortestPath(0, target, distance));
+			if (Math.abs(dijkstra - both) > 1e-9 || Math.abs(dijkstra - aStar) > 1e-9) {
+				fail("paths to " + target + " are not the same length");
+			}
+		}
+	}
+
+	/**
+	 * adds up the weights of the edges along a path.
+	 */
+	private double pathLength(Graph<Integer, double[]> graph, ArrayList<Vertex<Integer, double[]>> path) {
+		double length = 0;
+		for (int i = 1; i < path.size(); i++) {
+			length += graph.getOutEdgeWeight(path.get(i - 1).getKey(), path.get(i).getKey());
+		}
+		return path.isEmpty() ? -1 : length;
+	}
+
+	@Test
+	public void Test19_all_pairs_shortest_paths() throws IOException {
+		// a dense graph, where floyd warshall and dijkstra from every vertex must agree:
+		Random r = new Random(5);
+		IntGraph<Integer> dense = new IntGraph<Integer>();
+		for (int i = 0; i < 150; i++) {
+			dense.add(i, i);
+		}
+		for (int i = 0; i < 150; i++) {
+			for (int j = 0; j < 150; j++) {
+				if (i != j && r.nextDouble() < 0.3) {
+					dense.directedConnect(i, j, 1 + r.nextInt(100));
+				}
+			}
+		}
+		assertEquals(true, AllPairsShortestPaths.isDense(dense));
+		DistanceMatrix blocked = DistanceMatrix.ofDoubles(150);
+		DistanceMatrix searched = DistanceMatrix.ofDoubles(150);
+		AllPairsShortestPaths.floydWarshall(dense, blocked);
+		AllPairsShortestPaths.parallelDijkstra(dense, searched);
+		for (int i = 0; i < 150; i++) {
+			for (int j = 0; j < 150; j++) {
+				if (blocked.get(i, j) != searched.get(i, j)) {
+					fail("distance from " + i + " to " + j + " differs");
+				}
+			}
+		}
+
+		// a sparse graph with a removed vertex, checked against single searches:
+		Graph<Integer, double[]> sparse = new Graph<Integer, double[]>();
+		for (int i = 0; i < 200; i++) {
+			sparse.add(i, null);
+		}
+		for (int i = 0; i < 600; i++) {
+			sparse.directedConnect(r.nextInt(200), r.nextInt(200), 1 + r.nextInt(10));
+		}
+		sparse.remove(17);
+		DistanceMatrix all = sparse.allPairsShortestPaths();
+		File file = File.createTempFile("distances", ".bin");
+		file.deleteOnExit();
+		DistanceMatrix mapped = sparse.allPairsShortestPaths(file);
+		for (int i = 0; i < 200; i += 7) {
+			for (int j = 0; j < 200; j += 3) {
+				ArrayList<Vertex<Integer, double[]>> path = sparse.shortestPath(i, j);
+				double expected = path == null || path.isEmpty() ? Double.POSITIVE_INFINITY : pathLength(sparse, path);
+				double found = path == null ? Double.POSITIVE_INFINITY : all.get(sparse.indexOf(i), sparse.indexOf(j));
+				assertEquals(expected, found, 1e-9);
+				if (path != null) {
+					assertEquals(expected, mapped.get(sparse.indexOf(i), sparse.indexOf(j)), 1e-3);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void Test20_frontier_search() {
+		// a graph large enough to be searched in parallel, with a hub so the search
+		// switches to bottom up:
+		Random r = new Random(9);
+		int n = 40000;
+		IntGraph<Integer> gLocal = new IntGraph<Integer>();
+		for (int i = 0; i < n; i++) {
+			gLocal.add(i, i);
+		}
+		for (int i = 0; i < 4 * n; i++) {
+			gLocal.directedConnect(r.nextInt(n), r.nextInt(n));
+		}
+		for (int i = 1; i < n; i += 5) {
+			gLocal.directedConnect(0, i);
+		}
+		gLocal.remove(3);
+		// the depth of each key from a plain breadth first search:
+		int[] depth = new int[n];
+		Arrays.fill(depth, -1);
+		depth[0] = 0;
+		int[] bft = gLocal.breadthFirstTraversal(0);
+		for (int key : bft) {
+			for (int s : gLocal.getOutKeys(key)) {
+				if (depth[s] == -1) {
+					depth[s] = depth[key] + 1;
+				}
+			}
+		}
+		int[] parent = FrontierSearch.parents(gLocal, 0);
+		int reached = 0;
+		for (int key = 0; key < n; key++) {
+			if (key == 3) {
+				continue;
+			}
+			int id = gLocal.indexOf(key);
+			if (parent[id] == -1) {
+				assertEquals(-1, depth[key]);
+				continue;
+			}
+			reached++;
+			if (key != 0) {
+				int p = gLocal.keyOf(parent[id]);
+				assertEquals(true, gLocal.isThereAnEdge(p, key));
+				assertEquals(depth[key], depth[p] + 1);
+			}
+		}
+		assertEquals(bft.length, reached);
+		assertEquals(bft.length, FrontierSearch.spanning(gLocal, 0).size());
+		assertEquals(null, FrontierSearch.parents(gLocal, 3));
+
+		// on a small graph the tree has the same vertexes and depths:
+		Graph<String, Integer> small = new Graph<String, Integer>();
+		for (String key : new String[] { "A", "B", "C", "D", "E", "F", "G", "H", "I" }) {
+			small.add(key, 0);
+		}
+		small.connect("A", "B");
+		small.connect("A", "D");
+		small.connect("D", "G");
+		small.connect("G", "H");
+		small.connect("H", "I");
+		small.connect("C", "E");
+		Graph<String, Integer> tree = small.parallelBreadthFirstSpanning("A");
+		assertEquals(6, tree.getKeys().size());
+		assertEquals(5, tree.getNumberOfEdges());
+		assertEquals(true, tree.isThereAnEdge("H", "I"));
+		assertEquals(null, small.parallelBreadthFirstSpanning("Z"));
+	}
+
+	@Test
+	public void Test21_deep_depth_first() {
+		// a chain this long overflows the thread stack if each vertex is a call:
+		int n = 300000;
+		Graph<Integer, Integer> chain = new Graph<Integer, Integer>();
+		for (int i = 0; i < n; i++) {
+			chain.add(i, i);
+		}
+		for (int i = 1; i < n; i++) {
+			chain.directedConnect(i - 1, i, i);
+		}
+		// a branch off the middle, reached after backing up the whole tail:
+		chain.add(-1, -1);
+		chain.directedConnect(n / 2, -1, 0.5);
+		ArrayList<Vertex<Integer, Integer>> traversal = chain.depthFirstTraversal(0);
+		assertEquals(n + 1, traversal.size());
+		assertEquals(n - 1, (int) traversal.get(n - 1).getKey());
+		Graph<Integer, Integer> tree = chain.depthFirstSpanning(0);
+		assertEquals(n + 1, tree.getKeys().size());
+		assertEquals(n, tree.getNumberOfEdges());
+		assertEquals(0.5, tree.getOutEdgeWeight(n / 2, -1), 0.0);
+		assertEquals(n - 1.0, tree.getOutEdgeWeight(n - 2, n - 1), 0.0);
+		assertEquals(0, chain.depthFirstTraversal(n).size());
+	}
+
+	@Test
+	public void Test22_topological_levels_and_cycles() {
+		Graph<String, Integer> gLocal = new Graph<String, Integer>();
+		for (String key : new String[] { "A", "B", "D", "F", "G", "H" }) {
+			gLocal.add(key, 0);
+		}
+		gLocal.directedConnect("A", "B");
+		gLocal.directedConnect("A", "D");
+		gLocal.directedConnect("A", "F");
+		gLocal.directedConnect("F", "G");
+		gLocal.directedConnect("F", "D");
+		gLocal.directedConnect("B", "D");
+		gLocal.directedConnect("B", "H");
+		gLocal.directedConnect("H", "G");
+		gLocal.directedConnect("G", "D");
+		assertEquals("[[A], [B, F], [H], [G], [D]]", sortedLevels(gLocal.topologicalLevels()));
+		assertEquals(0, gLocal.findCycle().size());
+
+		// every vertex is processed after all of its predecessors:
+		Hashtable<String, Integer> finished = new Hashtable<>();
+		int[] clock = new int[1];
+		assertEquals(true, gLocal.processTopologicalLevels(c -> {
+			synchronized (clock) {
+				finished.put(c.getKey(), clock[0]++);
+			}
+		}));
+		for (String key : gLocal.getKeys()) {
+			for (Edge<String, Integer> e : gLocal.getVertex(key).getEdges().values()) {
+				if (finished.get(key) >= finished.get(e.getEnd().getKey())) {
+					fail(key + " was processed after " + e.getEnd().getKey());
+				}
+			}
+		}
+
+		// closing the loop D -> A -> F -> D leaves no order:
+		gLocal.directedConnect("D", "A");
+		assertEquals(null, gLocal.topologicalOrdering());
+		assertEquals(null, gLocal.topologicalLevels());
+		assertEquals(false, gLocal.processTopologicalLevels(c -> fail("cycle was processed")));
+		ArrayList<Vertex<String, Integer>> cycle = gLocal.findCycle();
+		if (cycle.size() < 2) {
+			fail("no cycle found");
+		}
+		for (int i = 0; i < cycle.size(); i++) {
+			String end = cycle.get((i + 1) % cycle.size()).getKey();
+			assertEquals(true, gLocal.isThereAnEdge(cycle.get(i).getKey(), end));
+		}
+
+		// a vertex with an edge to itself is a cycle of one:
+		Graph<String, Integer> loop = new Graph<String, Integer>();
+		loop.add("A", 0);
+		loop.add("B", 0);
+		loop.directedConnect("A", "B");
+		loop.directedConnect("B", "B");
+		assertEquals("[B]", loop.findCycle().toString());
+	}
+
+	/**
+	 * lists the levels with the keys of each level sorted.
+	 */
+	private String sortedLevels(ArrayList<ArrayList<Vertex<String, Integer>>> levels) {
+		ArrayList<String> result = new ArrayList<>();
+		for (ArrayList<Vertex<String, Integer>> level : levels) {
+			String[] keys = new String[level.size()];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = level.get(i).getKey();
+			}
+			Arrays.sort(keys);
+			result.add(Arrays.toString(keys));
+		}
+		return result.toString();
+	}
+
+	@Test
+	public void Test23_strongly_connected_components() {
+		Graph<String, Integer> gLocal = new Graph<String, Integer>();
+		for (String key : new String[] { "A", "B", "C", "D", "E", "F", "G", "H" }) {
+			gLocal.add(key, 0);
+		}
+		// three loops, A B C, D E and F G, joined in a chain, and H on its own:
+		gLocal.directedConnect("A", "B", 1);
+		gLocal.directedConnect("B", "C", 1);
+		gLocal.directedConnect("C", "A", 1);
+		gLocal.directedConnect("C", "D", 5);
+		gLocal.directedConnect("B", "E", 2);
+		gLocal.directedConnect("D", "E", 1);
+		gLocal.directedConnect("E", "D", 1);
+		gLocal.directedConnect("E", "F", 1);
+		gLocal.directedConnect("F", "G", 1);
+		gLocal.directedConnect("G", "F", 1);
+		gLocal.directedConnect("H", "G", 1);
+		int[] components = gLocal.stronglyConnectedComponents();
+		int abc = components[gLocal.indexOf("A")];
+		int de = components[gLocal.indexOf("D")];
+		int fg = components[gLocal.indexOf("F")];
+		int h = components[gLocal.indexOf("H")];
+		assertEquals(abc, components[gLocal.indexOf("B")]);
+		assertEquals(abc, components[gLocal.indexOf("C")]);
+		assertEquals(de, components[gLocal.indexOf("E")]);
+		assertEquals(fg, components[gLocal.indexOf("G")]);
+		// components are finished after everything they reach:
+		if (!(abc > de && de > fg && h > fg)) {
+			fail("components are not in reverse topological order");
+		}
+
+		Graph<Integer, ArrayList<Vertex<String, Integer>>> dag = gLocal.condensation(components);
+		assertEquals(4, dag.getKeys().size());
+		assertEquals(3, dag.getNumberOfEdges());
+		assertEquals(3, dag.get(abc).size());
+		assertEquals(2.0, dag.getOutEdgeWeight(abc, de), 0.0);
+		assertEquals(4, dag.topologicalOrdering().size());
+
+		Graph<String, Integer> loop = gLocal.componentGraph(components, abc);
+		assertEquals(3, loop.getKeys().size());
+		assertEquals(3, loop.getNumberOfEdges());
+		assertEquals("ABC", loop.depthFirstTraversal("A").stream().map(Vertex::toString).reduce("", String::concat));
+
+		// one long loop is a single component, and does not overflow the stack:
+		Graph<Integer, Integer> ring = new Graph<Integer, Integer>();
+		int n = 200000;
+		for (int i = 0; i < n; i++) {
+			ring.add(i, i);
+		}
+		for (int i = 0; i < n; i++) {
+			ring.directedConnect(i, (i + 1) % n);
+		}
+		components = ring.stronglyConnectedComponents();
+		for (int i = 0; i < n; i++) {
+			assertEquals(0, components[ring.indexOf(i)]);
+		}
+		ring.disconnect(n - 1, 0);
+		components = ring.stronglyConnectedComponents();
+		assertEquals(n, ring.condensation(components).getKeys().size());
+	}
+
+	@Test
+	public void Test24_boruvka_forest() {
+		// the same graph as the int graph test, whose minimum tree costs 17:
+		Graph<Integer, String> gLocal = new Graph<Integer, String>();
+		for (int i = 0; i < 9; i++) {
+			gLocal.add(i, "" + i);
+		}
+		gLocal.connect(0, 1, 1.0);
+		gLocal.connect(0, 3, 2.0);
+		gLocal.connect(1, 4, 3.0);
+		gLocal.connect(1, 2, 2.0);
+		gLocal.connect(2, 5, 5.0);
+		gLocal.connect(3, 4, 3.0);
+		gLocal.connect(3, 6, 4.0);
+		gLocal.connect(4, 7, 4.0);
+		gLocal.connect(4, 5, 1.0);
+		gLocal.connect(5, 8, 3.0);
+		gLocal.connect(7, 8, 6.0);
+		gLocal.connect(6, 7, 1.0);
+		Graph<Integer, String> forest = gLocal.boruvkas();
+		assertEquals(17.0, forest.getCost(), 0.0);
+		assertEquals(16, forest.getNumberOfEdges());
+		assertEquals(9, forest.breadthFirstTraversal(0).size());
+
+		// a large graph in two pieces, where every weight is tied, matches kruskals:
+		Random r = new Random(11);
+		int n = 20000;
+		IntGraph<Integer> big = new IntGraph<Integer>();
+		for (int i = 0; i < n; i++) {
+			big.add(i, i);
+		}
+		for (int i = 0; i < 5 * n; i++) {
+			int a = r.nextInt(n / 2);
+			int b = r.nextInt(n / 2);
+			int offset = r.nextBoolean() ? 0 : n / 2;
+			big.connect(a + offset, b + offset, 1 + r.nextInt(4));
+		}
+		IntGraph<Integer> boruvka = BoruvkaForest.spanningForest(big);
+		IntGraph<Integer> kruskal = big.kruskals();
+		assertEquals(kruskal.getCost(), boruvka.getCost(), 1e-9);
+		assertEquals(kruskal.getNumberOfEdges(), boruvka.getNumberOfEdges());
+		// the forest keeps the vertexes with no edges:
+		assertEquals(n, boruvka.size());
+		assertEquals(false, boruvka.breadthFirstTraversal(0).length == n);
+	}
+
+	@Test
+	public void Test25_filter_kruskals() {
+		// large enough that the edges are split around pivots several times, with
+		// tied weights and a directed edge:
+		Random r = new Random(13);
+		int n = 3000;
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < n; i++) {
+			gLocal.add(i, i);
+		}
+		for (int i = 0; i < 4 * n; i++) {
+			gLocal.connect(r.nextInt(n - 10), r.nextInt(n - 10), 1 + r.nextInt(50));
+		}
+		gLocal.directedConnect(n - 1, n - 2, 0.5);
+		Graph<Integer, Integer> filtered = gLocal.filterKruskals();
+		Graph<Integer, Integer> sorted = gLocal.kruskals(0);
+		IntGraph<Integer> compact = IntGraph.fromGraph(gLocal).kruskals();
+		assertEquals(sorted.getCost(), filtered.getCost(), 1e-9);
+		assertEquals(compact.getCost(), filtered.getCost(), 1e-9);
+		assertEquals(compact.getNumberOfEdges(), filtered.getNumberOfEdges());
+		assertEquals(0.5, filtered.getOutEdgeWeight(n - 2, n - 1), 0.0);
+
+		// a connection whose two directions differ costs its lighter direction, even
+		// when that is the one from the higher index:
+		Graph<Integer, Integer> uneven = new Graph<Integer, Integer>();
+		for (int i = 0; i < 3; i++) {
+			uneven.add(i, i);
+		}
+		uneven.directedConnect(0, 1, 5);
+		uneven.directedConnect(1, 0, 2);
+		uneven.connect(1, 2, 3);
+		assertEquals(5.0, uneven.filterKruskals().getCost(), 0.0);
+		assertEquals(uneven.kruskals(0).getCost(), uneven.filterKruskals().getCost(), 0.0);
+		assertEquals(2.0, uneven.filterKruskals().getOutEdgeWeight(0, 1), 0.0);
+
+		// every edge of the start vertex is listed once:
+		assertEquals(gLocal.getNumberOfEdges(), gLocal.getEdges(0).size());
+		assertEquals(0, new Graph<Integer, Integer>().filterKruskals().getKeys().size());
+	}
+
+	@Test
+	public void Test26_dynamic_spanning_forest() {
+		// random edits, checking the live forest against kruskals after each one:
+		Random r = new Random(26);
+		int n = 40;
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < n; i++) {
+			gLocal.add(i, i);
+		}
+		for (int i = 0; i < n; i++) {
+			gLocal.connect(r.nextInt(n), r.nextInt(n), 1 + r.nextInt(20));
+		}
+		DynamicSpanningForest<Integer, Integer> forest = new DynamicSpanningForest<>(gLocal);
+		for (int step = 0; step < 2000; step++) {
+			int a = r.nextInt(n);
+			int b = r.nextInt(n);
+			if (gLocal.getVertex(a) == null) {
+				gLocal.add(a, a);
+				continue;
+			}
+			switch (r.nextInt(6)) {
+			case 0:
+			case 1:
+				gLocal.connect(a, b, 1 + r.nextInt(20));
+				break;
+			case 2:
+				gLocal.directedConnect(a, b, 1 + r.nextInt(20));
+				break;
+			case 3:
+				gLocal.disconnect(a, b);
+				break;
+			case 4:
+				if (gLocal.getVertex(a).hasOutConnectionTo(b)) {
+					gLocal.changeEdgeWeight(a, b, 1 + r.nextInt(20));
+				}
+				break;
+			default:
+				if (r.nextInt(4) == 0) {
+					gLocal.remove(a);
+				}
+			}
+			Graph<Integer, Integer> expected = gLocal.filterKruskals();
+			assertEquals(expected.getCost(), forest.getCost(), 1e-9);
+			assertEquals(expected.getNumberOfEdges(), 2 * forest.getNumberOfEdges());
+		}
+		Graph<Integer, Integer> tree = forest.toGraph();
+		assertEquals(forest.getCost(), tree.getCost(), 1e-9);
+		for (Integer key : tree.getKeys()) {
+			for (Edge<Integer, Integer> e : tree.getVertex(key).getEdges().values()) {
+				if (!forest.isTreeEdge(key, e.getEnd().getKey())) {
+					fail("tree edge missing from the forest");
+				}
+			}
+		}
+
+		// a detached forest stops following the graph:
+		forest.detach();
+		double cost = forest.getCost();
+		gLocal.add(n, n);
+		gLocal.connect(n, gLocal.getKeys().get(0), 100);
+		assertEquals(cost, forest.getCost(), 0.0);
+	}
+
+	@Test
+	public void Test27_dynamic_shortest_paths() {
+		// random edits, checking the live paths against a new search after each one:
+		Random r = new Random(27);
+		int n = 40;
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < n; i++) {
+			gLocal.add(i, i);
+		}
+		for (int i = 0; i < 2 * n; i++) {
+			gLocal.directedConnect(r.nextInt(n), r.nextInt(n), r.nextInt(20));
+		}
+		DynamicShortestPaths<Integer, Integer> paths = new DynamicShortestPaths<>(gLocal, 0);
+		assertEquals(0, paths.takeChanged().size());
+		double[] before = new double[n];
+		for (int step = 0; step < 1000; step++) {
+			for (int i = 0; i < n; i++) {
+				before[i] = paths.getDistance(i);
+			}
+			int a = 1 + r.nextInt(n - 1);
+			int b = r.nextInt(n);
+			if (gLocal.getVertex(a) == null) {
+				gLocal.add(a, a);
+				continue;
+			}
+			if (gLocal.getVertex(b) == null) {
+				continue;
+			}
+			switch (r.nextInt(6)) {
+			case 0:
+				gLocal.connect(b, a, r.nextInt(20));
+				break;
+			case 1:
+				gLocal.directedConnect(b, a, r.nextInt(20));
+				break;
+			case 2:
+			case 3:
+				gLocal.disconnect(b, a);
+				break;
+			case 4:
+				if (gLocal.getVertex(b).hasOutConnectionTo(a)) {
+					gLocal.changeEdgeWeight(b, a, r.nextInt(20));
+				}
+				break;
+			default:
+				if (r.nextInt(4) == 0) {
+					gLocal.remove(a);
+				}
+			}
+			ArrayList<Integer> changed = new ArrayList<>();
+			for (Vertex<Integer, Integer> c : paths.takeChanged()) {
+				changed.add(c.getKey());
+			}
+			for (Integer key : gLocal.getKeys()) {
+				ArrayList<Vertex<Integer, Integer>> expected = gLocal.shortestPath(0, key);
+				ArrayList<Vertex<Integer, Integer>> path = paths.getPath(key);
+				assertEquals(pathLength(expected), paths.getDistance(key), 1e-9);
+				assertEquals(pathLength(expected), pathLength(path), 1e-9);
+				if (paths.getDistance(key) != before[key] && !changed.contains(key)) {
+					fail("changed vertex " + key + " was not reported");
+				}
+			}
+		}
+
+		// without the source nothing can be reached:
+		gLocal.remove(0);
+		for (Integer key : gLocal.getKeys()) {
+			assertEquals(Double.POSITIVE_INFINITY, paths.getDistance(key), 0.0);
+		}
+	}
+
+	/**
+	 * adds up the weights along a path, infinity if the path is empty.
+	 */
+	private double pathLength(ArrayList<Vertex<Integer, Integer>> path) {
+		if (path.isEmpty()) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double length = 0.0;
+		for (int i = 1; i < path.size(); i++) {
+			length += path.get(i - 1).getOutEdge(path.get(i).getKey()).getWeight();
+		}
+		return length;
+	}
+
+	@Test
+	public void Test28_negative_weights() {
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < 5; i++) {
+			gLocal.add(i, i);
+		}
+		gLocal.directedConnect(0, 1, 4);
+		gLocal.directedConnect(0, 2, 5);
+		gLocal.directedConnect(2, 1, -3);
+		gLocal.directedConnect(1, 3, 1);
+		assertEquals(true, gLocal.hasNegativeWeights());
+		// dijkstras algorithm would settle 1 before finding the cheaper way through 2:
+		assertEquals("[0, 2, 1, 3]", keysOf(gLocal.shortestPath(0, 3)));
+		assertEquals(0, gLocal.shortestPath(0, 4).size());
+		assertEquals(0, gLocal.findNegativeCycle(0).size());
+
+		// a negative cycle that can be reached from 0, but not from 4:
+		gLocal.directedConnect(3, 2, 1);
+		assertEquals(null, gLocal.shortestPath(0, 3));
+		ArrayList<Vertex<Integer, Integer>> cycle = gLocal.findNegativeCycle(0);
+		assertEquals(3, cycle.size());
+		double length = 0.0;
+		for (int i = 0; i < cycle.size(); i++) {
+			length += cycle.get(i).getOutEdge(cycle.get((i + 1) % cycle.size()).getKey()).getWeight();
+		}
+		assertEquals(-1.0, length, 0.0);
+		assertEquals(3, gLocal.findNegativeCycle(2).size());
+		assertEquals(0, gLocal.findNegativeCycle(4).size());
+		assertEquals(null, gLocal.findNegativeCycle(5));
+
+		// weights shifted by a potential have no negative cycles, and the distances
+		// shift the same way, so both searches can be checked against dijkstras:
+		Random r = new Random(28);
+		int n = 300;
+		IntGraph<Integer> shifted = new IntGraph<Integer>();
+		IntGraph<Integer> plain = new IntGraph<Integer>();
+		double[] potential = new double[n];
+		for (int i = 0; i < n; i++) {
+			shifted.add(i, i);
+			plain.add(i, i);
+			potential[i] = r.nextInt(50);
+		}
+		for (int i = 0; i < 5 * n; i++) {
+			int a = r.nextInt(n);
+			int b = r.nextInt(n);
+			double w = r.nextInt(20);
+			plain.directedConnect(a, b, w);
+			shifted.directedConnect(a, b, w + potential[a] - potential[b]);
+		}
+		double[] queueDistance = new double[n];
+		double[] parallelDistance = new double[n];
+		int[] parent = new int[n];
+		int start = shifted.indexOf(0);
+		assertEquals(-1, BellmanFord.queueSearch(shifted, start, queueDistance, parent));
+		assertEquals(-1, BellmanFord.parallelSearch(shifted, start, parallelDistance, parent));
+		for (int i = 0; i < n; i++) {
+			int id = shifted.indexOf(i);
+			int[] path = plain.dijShortestPath(0, i);
+			double expected = Double.POSITIVE_INFINITY;
+			if (path.length > 0) {
+				expected = 0.0;
+				for (int k = 1; k < path.length; k++) {
+					expected += plain.getOutEdgeWeight(path[k - 1], path[k]);
+				}
+				expected += potential[0] - potential[i];
+			}
+			assertEquals(expected, queueDistance[id], 1e-9);
+			assertEquals(expected, parallelDistance[id], 1e-9);
+		}
+
+		// a negative cycle is found by both searches:
+		shifted.directedConnect(n - 1, n - 2, -1000);
+		shifted.directedConnect(n - 2, n - 1, 0);
+		shifted.directedConnect(0, n - 1, 0);
+		int onCycle = BellmanFord.queueSearch(shifted, start, queueDistance, parent);
+		assertEquals(2, BellmanFord.cycle(parent, onCycle).length);
+		onCycle = BellmanFord.parallelSearch(shifted, start, parallelDistance, parent);
+		assertEquals(2, BellmanFord.cycle(parent, onCycle).length);
+	}
+
+	/**
+	 * lists the keys of the vertexes.
+	 */
+	private String keysOf(ArrayList<Vertex<Integer, Integer>> vertexes) {
+		ArrayList<Integer> keys = new ArrayList<>();
+		for (Vertex<Integer, Integer> c : vertexes) {
+			keys.add(c.getKey());
+		}
+		return keys.toString();
+	}
+
+	@Test
+	public void Test29_contraction_hierarchy() {
+		Random r = new Random(29);
+		int n = 200;
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < n; i++) {
+			gLocal.add(i, i);
+		}
+		for (int i = 0; i < 3 * n; i++) {
+			gLocal.directedConnect(r.nextInt(n), r.nextInt(n), r.nextInt(20));
+		}
+		gLocal.remove(n / 2);
+		ContractionHierarchy<Integer, Integer> hierarchy = new ContractionHierarchy<>(gLocal);
+		for (int round = 0; round < 3; round++) {
+			for (int query = 0; query < 300; query++) {
+				int a = r.nextInt(n);
+				int b = r.nextInt(n);
+				if (gLocal.getVertex(a) == null || gLocal.getVertex(b) == null) {
+					assertEquals(Double.POSITIVE_INFINITY, hierarchy.distance(a, b), 0.0);
+					continue;
+				}
+				double expected = pathLength(gLocal.shortestPath(a, b));
+				ArrayList<Vertex<Integer, Integer>> path = hierarchy.shortestPath(a, b);
+				assertEquals(expected, hierarchy.distance(a, b), 1e-9);
+				// the unpacked path uses the graph's edges:
+				assertEquals(expected, pathLength(path), 1e-9);
+				if (!path.isEmpty()) {
+					assertEquals(a, (int) path.get(0).getKey());
+					assertEquals(b, (int) path.get(path.size() - 1).getKey());
+				}
+			}
+			assertEquals(false, hierarchy.isStale());
+			// any change makes the next query rebuild the hierarchy:
+			for (int i = 0; i < 10; i++) {
+				gLocal.connect(r.nextInt(n / 2), r.nextInt(n / 2), r.nextInt(5));
+			}
+			gLocal.remove(r.nextInt(n));
+			assertEquals(true, hierarchy.isStale());
+		}
+		assertEquals(null, hierarchy.shortestPath(n, 0));
+	}
+
+	@Test
+	public void Test30_sonification_renderer() throws IOException {
+		// movers without an applet, since the renderer does not draw anything:
+		Graph<Integer, Mover> gLocal = new Graph<Integer, Mover>();
+		gLocal.add(0, new Mover(null, new Vector(300, 300), 0, 15));
+		gLocal.add(1, new Mover(null, new Vector(500, 350), 1, 15));
+		gLocal.connect(0, 1, 5);
+		int sampleRate = 8000;
+		double stepRate = 60;
+		SonificationRenderer renderer = new SonificationRenderer(gLocal, sampleRate, stepRate, 10);
+		File file = File.createTempFile("sonification", ".wav");
+		file.deleteOnExit();
+		renderer.render(file, 0.5);
+
+		ByteBuffer wav = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+		int dataSize = (int) (0.5 * sampleRate) * 2;
+		assertEquals(44 + dataSize, wav.capacity());
+		assertEquals("RIFF", new String(wav.array(), 0, 4, StandardCharsets.US_ASCII));
+		assertEquals(36 + dataSize, wav.getInt(4));
+		assertEquals("WAVE", new String(wav.array(), 8, 4, StandardCharsets.US_ASCII));
+		assertEquals(1, wav.getShort(22));
+		assertEquals(sampleRate, wav.getInt(24));
+		assertEquals(16, wav.getShort(34));
+		assertEquals("data", new String(wav.array(), 36, 4, StandardCharsets.US_ASCII));
+		assertEquals(dataSize, wav.getInt(40));
+
+		// the spring pulls the movers together, so the edge is heard:
+		int loudest = 0;
+		for (int i = 44; i < wav.capacity(); i += 2) {
+			loudest = Math.max(loudest, Math.abs(wav.getShort(i)));
+		}
+		if (loudest == 0) {
+			fail("the moving edge made no sound");
+		}
+	}
+
+	/**
+	 * checks that the count of negative edges follows every change, so a negative
+	 * weight added after a query switches the next query to bellman ford.
+	 */
+	@Test
+	public void Test31_negative_weight_count() {
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < 4; i++) {
+			gLocal.add(i, i);
+		}
+		gLocal.directedConnect(0, 1, 4);
+		gLocal.directedConnect(0, 2, 5);
+		gLocal.directedConnect(2, 1, 1);
+		gLocal.directedConnect(1, 3, 1);
+		assertEquals(false, gLocal.hasNegativeWeights());
+		assertEquals("[0, 1, 3]", keysOf(gLocal.shortestPath(0, 3)));
+
+		// dijkstras algorithm would still answer [0, 1, 3]:
+		gLocal.changeEdgeWeight(2, 1, -3);
+		assertEquals(true, gLocal.hasNegativeWeights());
+		assertEquals("[0, 2, 1, 3]", keysOf(gLocal.shortestPath(0, 3)));
+		gLocal.changeEdgeWeight(2, 1, 1);
+		assertEquals(false, gLocal.hasNegativeWeights());
+
+		// connecting again changes the weight, in one or both directions:
+		gLocal.directedConnect(2, 1, -3);
+		assertEquals("[0, 2, 1, 3]", keysOf(gLocal.shortestPath(0, 3)));
+		gLocal.disconnect(2, 1);
+		assertEquals(false, gLocal.hasNegativeWeights());
+		gLocal.connect(1, 2, -1);
+		gLocal.connect(1, 2, -2);
+		assertEquals(true, gLocal.hasNegativeWeights());
+		gLocal.directedConnect(1, 2, 1);
+		assertEquals(true, gLocal.hasNegativeWeights());
+		gLocal.disconnectAll(1, 2);
+		assertEquals(false, gLocal.hasNegativeWeights());
+
+		// removing a vertex drops its edges in and out, and self loops once:
+		gLocal.directedConnect(3, 3, -1);
+		gLocal.directedConnect(0, 3, -1);
+		gLocal.directedConnect(3, 2, -1);
+		gLocal.remove(3);
+		assertEquals(false, gLocal.hasNegativeWeights());
+		gLocal.connect(0, 2, -1);
+		gLocal.connect(1, 2, -1);
+		ArrayList<Integer> keys = new ArrayList<Integer>();
+		keys.add(0);
+		keys.add(2);
+		gLocal.removeAll(keys);
+		assertEquals(false, gLocal.hasNegativeWeights());
+		gLocal.directedConnect(1, 1, -1);
+		assertEquals(true, gLocal.hasNegativeWeights());
+	}
+
+	/**
+	 * checks the distances between every pair of vertexes when weights are
+	 * negative, against the same graph before its weights were shifted.
+	 */
+	@Test
+	public void Test32_all_pairs_negative_weights() throws IOException {
+		// shifting each weight by the potentials of its ends shifts every distance the
+		// same way, without making a negative cycle:
+		Random r = new Random(32);
+		int n = 120;
+		Graph<Integer, Integer> plain = new Graph<Integer, Integer>();
+		Graph<Integer, Integer> shifted = new Graph<Integer, Integer>();
+		double[] potential = new double[n];
+		for (int i = 0; i < n; i++) {
+			plain.add(i, i);
+			shifted.add(i, i);
+			potential[i] = r.nextInt(50);
+		}
+		for (int i = 0; i < 4 * n; i++) {
+			int a = r.nextInt(n);
+			int b = r.nextInt(n);
+			double w = r.nextInt(20);
+			plain.directedConnect(a, b, w);
+			shifted.directedConnect(a, b, w + potential[a] - potential[b]);
+		}
+		plain.remove(11);
+		shifted.remove(11);
+		assertEquals(true, shifted.hasNegativeWeights());
+		DistanceMatrix expected = plain.allPairsShortestPaths();
+		DistanceMatrix all = shifted.allPairsShortestPaths();
+		File file = File.createTempFile("distances", ".bin");
+		file.deleteOnExit();
+		DistanceMatrix mapped = shifted.allPairsShortestPaths(file);
+		for (int a = 0; a < n; a++) {
+			for (int b = 0; b < n; b++) {
+				if (a == 11 || b == 11) {
+					continue;
+				}
+				double d = expected.get(plain.indexOf(a), plain.indexOf(b));
+				if (d != Double.POSITIVE_INFINITY) {
+					d += potential[a] - potential[b];
+				}
+				int i = shifted.indexOf(a);
+				int j = shifted.indexOf(b);
+				assertEquals(d, all.get(i, j), 1e-9);
+				assertEquals(d, mapped.get(i, j), 1e-3);
+			}
+		}
+
+		// a dense graph runs floyd warshall, which must agree with the shifted searches:
+		IntGraph<Integer> dense = new IntGraph<Integer>();
+		for (int i = 0; i < 100; i++) {
+			dense.add(i, i);
+		}
+		for (int a = 0; a < 100; a++) {
+			for (int b = 0; b < 100; b++) {
+				if (a != b && r.nextDouble() < 0.3) {
+					dense.directedConnect(a, b, r.nextInt(20) + potential[a] - potential[b]);
+				}
+			}
+		}
+		assertEquals(true, AllPairsShortestPaths.isDense(dense));
+		DistanceMatrix blocked = AllPairsShortestPaths.compute(dense);
+		DistanceMatrix searched = DistanceMatrix.ofFloats(100);
+		assertEquals(true, AllPairsShortestPaths.compute(dense, searched));
+		for (int i = 0; i < 100; i++) {
+			for (int j = 0; j < 100; j++) {
+				assertEquals(blocked.get(i, j), searched.get(i, j), 1e-3);
+			}
+		}
+
+		// with a negative cycle there are no shortest distances:
+		dense.directedConnect(0, 1, -1000);
+		assertEquals(null, AllPairsShortestPaths.compute(dense));
+		assertEquals(false, AllPairsShortestPaths.compute(dense, DistanceMatrix.ofFloats(100)));
+		shifted.directedConnect(0, 1, -1000);
+		shifted.directedConnect(1, 0, 0);
+		assertEquals(null, shifted.allPairsShortestPaths());
+
+		// the copy searched by bellman ford is reused until an edge changes:
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < 3; i++) {
+			gLocal.add(i, i);
+		}
+		gLocal.directedConnect(0, 1, -1);
+		gLocal.directedConnect(1, 2, 1);
+		assertEquals("[0, 1, 2]", keysOf(gLocal.shortestPath(0, 2)));
+		assertEquals("[0, 1, 2]", keysOf(gLocal.shortestPath(0, 2)));
+		gLocal.directedConnect(0, 2, -1);
+		assertEquals("[0, 2]", keysOf(gLocal.shortestPath(0, 2)));
+		gLocal.add(3, 3);
+		gLocal.directedConnect(2, 3, 1);
+		assertEquals("[0, 2, 3]", keysOf(gLocal.shortestPath(0, 3)));
+	}
+
+	/**
+	 * checks the live paths when weights are negative, including edits that make
+	 * and break a negative cycle, which must not keep the graph's methods from
+	 * returning.
+	 */
+	@Test(timeout = 10000)
+	public void Test33_dynamic_negative_weights() {
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < 3; i++) {
+			gLocal.add(i, i);
+		}
+		gLocal.directedConnect(0, 1, 1);
+		gLocal.directedConnect(1, 2, 1);
+		gLocal.directedConnect(2, 1, 1);
+		DynamicShortestPaths<Integer, Integer> paths = new DynamicShortestPaths<>(gLocal, 0);
+		gLocal.changeEdgeWeight(2, 1, -5);
+		assertEquals(true, paths.hasNegativeCycle());
+		assertEquals(null, paths.getPath(2));
+		assertEquals(Double.NaN, paths.getDistance(2), 0.0);
+		gLocal.changeEdgeWeight(2, 1, -1);
+		assertEquals(false, paths.hasNegativeCycle());
+		assertEquals(2.0, paths.getDistance(2), 0.0);
+		gLocal.directedConnect(0, 2, -3);
+		assertEquals(-4.0, paths.getDistance(1), 0.0);
+		assertEquals("[0, 2, 1]", keysOf(paths.getPath(1)));
+		// without negative weights the repairs take over from the rebuilt tree:
+		gLocal.changeEdgeWeight(2, 1, 1);
+		gLocal.disconnect(0, 2);
+		assertEquals(false, gLocal.hasNegativeWeights());
+		assertEquals(1.0, paths.getDistance(1), 0.0);
+		assertEquals(2.0, paths.getDistance(2), 0.0);
+
+		// a weight changed behind the graph's back is caught by the repairs:
+		gLocal.getVertex(2).getOutEdge(1).setWeight(-5);
+		gLocal.changeEdgeWeight(0, 1, 0.5);
+		assertEquals(true, paths.hasNegativeCycle());
+		gLocal.changeEdgeWeight(2, 1, 1);
+		assertEquals(false, paths.hasNegativeCycle());
+		assertEquals(1.5, paths.getDistance(2), 0.0);
+
+		// random edits with negative weights, checked against a new search:
+		Random r = new Random(33);
+		int n = 30;
+		for (int i = 3; i < n; i++) {
+			gLocal.add(i, i);
+		}
+		for (int step = 0; step < 500; step++) {
+			int a = r.nextInt(n);
+			int b = r.nextInt(n);
+			switch (r.nextInt(4)) {
+			case 0:
+				gLocal.directedConnect(a, b, r.nextInt(20) - 2);
+				break;
+			case 1:
+				gLocal.directedConnect(a, b, r.nextInt(20));
+				break;
+			default:
+				// removing more than adding keeps breaking the negative cycles:
+				gLocal.disconnect(a, b);
+			}
+			boolean cycle = gLocal.findNegativeCycle(0).size() > 0;
+			assertEquals(cycle, paths.hasNegativeCycle());
+			for (Integer key : gLocal.getKeys()) {
+				ArrayList<Vertex<Integer, Integer>> expected = gLocal.shortestPath(0, key);
+				if (cycle) {
+					assertEquals(null, paths.getPath(key));
+				} else {
+					assertEquals(pathLength(expected), paths.getDistance(key), 1e-9);
+					assertEquals(pathLength(expected), pathLength(paths.getPath(key)), 1e-9);
+				}
+			}
+		}
+	}
+
+	/**
+	 * checks that a hierarchy over negative weights answers with the graph's own
+	 * search, and goes back to contracting once the weights are not negative.
+	 */
+	@Test
+	public void Test34_contraction_hierarchy_negative_weights() {
+		Graph<Integer, Integer> gLocal = new Graph<Integer, Integer>();
+		for (int i = 0; i < 5; i++) {
+			gLocal.add(i, i);
+		}
+		gLocal.directedConnect(0, 1, 4);
+		gLocal.directedConnect(0, 2, 5);
+		gLocal.directedConnect(2, 1, -3);
+		gLocal.directedConnect(1, 3, 1);
+		ContractionHierarchy<Integer, Integer> hierarchy = new ContractionHierarchy<>(gLocal);
+		// going up from 0 and down to 3 would miss the edge into 1:
+		assertEquals(3.0, hierarchy.distance(0, 3), 0.0);
+		assertEquals("[0, 2, 1, 3]", keysOf(hierarchy.shortestPath(0, 3)));
+		assertEquals(Double.POSITIVE_INFINITY, hierarchy.distance(0, 4), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, hierarchy.distance(0, 5), 0.0);
+		assertEquals(0, hierarchy.getNumberOfShortcuts());
+
+		// with a negative cycle there is no shortest path:
+		gLocal.directedConnect(1, 2, 1);
+		assertEquals(Double.NaN, hierarchy.distance(0, 3), 0.0);
+		assertEquals(null, hierarchy.shortestPath(0, 3));
+
+		gLocal.disconnect(1, 2);
+		gLocal.changeEdgeWeight(2, 1, 3);
+		assertEquals(5.0, hierarchy.distance(0, 3), 0.0);
+		assertEquals("[0, 1, 3]", keysOf(hierarchy.shortestPath(0, 3)));
+	}
+
 }
@@ -34,7 +34,13 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import controlP5.ControlEvent;
 import controlP5.ControlP5;
 import controlP5.Textarea;
 import controlP5.Textfield;
@@ -55,6 +61,21 @@ public class GraphVisualizer extends PApplet {
 	final static int GREEN_COLOR_FACTOR = 5;
 	final int SPEED = 100;
 	final double ARROW_SIZE = 10;
+	// number of frames without any change before the sketch stops redrawing:
+	final int IDLE_FRAMES = SPEED;
+	// movers slower than this are considered to be at rest:
+	final double IDLE_VELOCITY = 0.05;
+	// time that each background job can use every frame, in nanoseconds:
+	final long EDGE_BUDGET = 3000000;
+	final long LABEL_BUDGET = 2000000;
+	// damping of the spring force of the edges:
+	final double SPRING_DAMPING = 10;
+	// number of times per second the edge sounds are updated, and how long the
+	// sounds take to follow a change in seconds:
+	final double AUDIO_RATE = 25;
+	final double AUDIO_SMOOTHING = 0.05;
+	// most edges that can be heard at once:
+	final int AUDIO_VOICES = 16;
 	private int numberOfMovers;
 	Vector centroid;
 	Integer anchorKey = null;
@@ -62,6 +83,10 @@ public class GraphVisualizer extends PApplet {
 	boolean mousePresent = false;
 	boolean displaySpanning = false;
 	boolean reset = false;
+	boolean dirty = true;
+	boolean idle = false;
+	int quietFrames = 0;
+	Object hoverTarget = null;
 	Mover mouseOver;
 	int myColorBackground = color(255, 255, 255);
 	ControlP5 cp5;
@@ -75,11 +100,30 @@ public class GraphVisualizer extends PApplet {
 	ArrayList<Mover> flaggedForRemoval;
 	PriorityQueue<Mover> selectedMovers;
 	Graph<Integer, Mover> gMain;
+	// minimum spanning forest of gMain, kept up to date as the graph is edited:
+	DynamicSpanningForest<Integer, Mover> liveForest;
 
 	Mover[] savedMovers;
 	Graph<Integer, Mover> gSpanning;
 	Graph<Integer, Mover> gLast;
 	Textarea keyBoardControlDisplay;
+	LabelCache labels;
+	FrameScheduler scheduler;
+	// edges of the displayed graph sorted by weight, and the graph they belong to:
+	ArrayList<Edge<Integer, Mover>> sortedEdges;
+	Graph<Integer, Mover> sortedGraph;
+	AudioController audio = new AudioController(this, AUDIO_RATE, AUDIO_SMOOTHING, AUDIO_VOICES);
+
+	// spanning trees are computed on background threads from a copy of gMain:
+	ExecutorService spanningExecutor = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "spanning tree");
+		t.setDaemon(true);
+		return t;
+	});
+	// each job returns its own tree, so a cancelled job that is still running can
+	// never replace the result of the job that took its place:
+	Future<Graph<Integer, Mover>> pendingSpanning;
+	String pendingSpanningName = "";
 
 	public GraphVisualizer() {
 		// create a priority queue that will sort selected vertexes from closest to
@@ -103,19 +147,17 @@ public class GraphVisualizer extends PApplet {
 			frameRate(SPEED);
 			background(myColorBackground);
 			resetButtons();
+			audio.start();
 		} else {
-			for (int i : startVertexes) {
-				gMain.remove(i);
-			}
-			while (startVertexes.size() > 0) {
-				endVertexes.remove(startVertexes.remove(0));
-			}
-			while (flaggedForRemoval.size() > 0) {
-				flaggedForRemoval.remove(0);
-			}
+			gMain.removeAll(startVertexes);
+			startVertexes.clear();
+			endVertexes.clear();
+			flaggedForRemoval.clear();
 			while (selectedMovers.size() > 0) {
 				selectedMovers.poll();
 			}
+			labels.clear();
+			edgesChanged();
 			numberOfMovers = 1;
 		}
 
@@ -139,6 +181,7 @@ public class GraphVisualizer extends PApplet {
 		// initialize distance tracking queues:
 		selectedMovers = new PriorityQueue<Mover>(new CompareDistance());
 		gMain = new Graph<>();
+		liveForest = new DynamicSpanningForest<>(gMain);
 		startVertexes = new ArrayList<>();
 		endVertexes = new ArrayList<>();
 		savedMovers = new Mover[2];
@@ -153,6 +196,16 @@ public class GraphVisualizer extends PApplet {
 		textValue = "";
 		gSpanning = null;
 		gLast = null;
+		labels = new LabelCache(this);
+		scheduler = new FrameScheduler();
+		scheduler.addSubsystem("edges", EDGE_BUDGET);
+		scheduler.addSubsystem("labels", LABEL_BUDGET);
+		sortedEdges = new ArrayList<>();
+		sortedGraph = null;
+		cancelSpanning();
+		hoverTarget = null;
+		edgesChanged();
+		markDirty();
 	}
 
 	/**
@@ -181,6 +234,10 @@ public class GraphVisualizer extends PApplet {
 		background(myColorBackground);
 		fill(0);
 		rect(0, 0, GUI_X, MAX_Y);
+		// continue any unfinished background jobs within their frame budgets:
+		scheduler.runFrame();
+		// swap in the spanning tree if it finished computing:
+		collectSpanning();
 
 		// display the spanning tree if one was created:
 		if (displaySpanning) {
@@ -191,6 +248,245 @@ public class GraphVisualizer extends PApplet {
 			graphForces(gMain);
 			displayMovers(gMain);
 		}
+		// render any labels that were drawn as plain text over the next frames:
+		if (labels.hasPending()) {
+			scheduler.submit("labels", labels);
+		}
+		if (pendingSpanning != null) {
+			drawSpanningProgress();
+		}
+		// stop redrawing once the diagram has settled:
+		updateIdleState(displaySpanning ? gSpanning : gMain);
+	}
+
+	/**
+	 * flags that something on screen changed, and restarts the draw loop if the
+	 * sketch was idle.
+	 */
+	public void markDirty() {
+		dirty = true;
+		quietFrames = 0;
+		if (idle) {
+			idle = false;
+			loop();
+		}
+	}
+
+	/**
+	 * counts the frames where nothing changed, and stops the draw loop after
+	 * IDLE_FRAMES of them. The loop is restarted by the next event.
+	 *
+	 * @param g - the graph being displayed.
+	 */
+	private void updateIdleState(Graph<Integer, Mover> g) {
+		if (dirty || scheduler.hasWork() || pendingSpanning != null || isMoving(g)) {
+			dirty = false;
+			quietFrames = 0;
+			return;
+		}
+		quietFrames++;
+		if (quietFrames >= IDLE_FRAMES && !idle) {
+			idle = true;
+			noLoop();
+		}
+	}
+
+	/**
+	 * checks if any unpinned mover in the graph is still moving.
+	 *
+	 * @param g - the graph being displayed.
+	 * @return true if a mover is faster than IDLE_VELOCITY.
+	 */
+	private boolean isMoving(Graph<Integer, Mover> g) {
+		if (g == null) {
+			return false;
+		}
+		for (Integer i : startVertexes) {
+			Mover m = g.get(i);
+			if (m != null && !m.pin && m.velocity.mag() > IDLE_VELOCITY) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * finds the mover or edge that the mouse is over, movers take priority over
+	 * edges.
+	 *
+	 * @param g - the graph being displayed.
+	 * @return the mover or edge under the mouse, null if there is none.
+	 */
+	private Object findHoverTarget(Graph<Integer, Mover> g) {
+		if (g == null) {
+			return null;
+		}
+		for (Integer i : startVertexes) {
+			if (g.get(i) != null && g.get(i).mouseIsOver()) {
+				return g.get(i);
+			}
+		}
+		for (Integer i : startVertexes) {
+			if (g.getVertex(i) != null) {
+				for (Edge<Integer, Mover> c : g.getVertex(i).getEdges().values()) {
+					if (mouseOverEdge(c)) {
+						return c;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * computes the spanning tree on a background thread. The computation runs on
+	 * a copy of gMain so that the main graph can keep being drawn and edited. A
+	 * spanning tree that is still being computed is cancelled, and its result is
+	 * thrown away if it finishes anyway.
+	 *
+	 * @param n       - the number of the dropdown menu option.
+	 * @param startID - the id of the vertex where the spanning tree starts.
+	 */
+	private void computeSpanning(int n, Integer startID) {
+		cancelSpanning();
+		final Graph<Integer, Mover> snapshot = gMain.copy();
+		// kruskal's tree is kept up to date by the live forest, so it is copied instead
+		// of being computed again:
+		final Graph<Integer, Mover> liveTree = n == 3 ? liveForest.toGraph() : null;
+		pendingSpanningName = buttonList.get(n);
+		pendingSpanning = spanningExecutor.submit(() -> {
+			Graph<Integer, Mover> tree = null;
+			switch (n) {
+			case (0): {// DFS
+				tree = snapshot.depthFirstSpanning(startID);
+				break;
+			}
+			case (1): {// BFS
+				tree = snapshot.breadthFirstSpanning(startID);
+				break;
+			}
+			case (2): {// primm's
+				tree = snapshot.primms(startID);
+				break;
+			}
+			case (3): { // kruskal's
+				tree = liveTree;
+				break;
+			}
+			}
+			return tree;
+		});
+	}
+
+	/**
+	 * cancels the spanning tree that is being computed, if there is one.
+	 */
+	private void cancelSpanning() {
+		// the job is forgotten, so its result is never looked at:
+		if (pendingSpanning != null) {
+			pendingSpanning.cancel(true);
+			pendingSpanning = null;
+		}
+	}
+
+	/**
+	 * displays the spanning tree once the background thread finishes computing it.
+	 */
+	private void collectSpanning() {
+		if (pendingSpanning == null || !pendingSpanning.isDone()) {
+			return;
+		}
+		Graph<Integer, Mover> tree = null;
+		try {
+			tree = pendingSpanning.get();
+		} catch (ExecutionException | CancellationException | InterruptedException e) {
+			// the computation failed or was cancelled, so there is nothing to show:
+		}
+		pendingSpanning = null;
+		if (tree != null) {
+			gSpanning = tree;
+			displaySpanning = true;
+			edgesChanged();
+		}
+		markDirty();
+	}
+
+	/**
+	 * draws a spinner and the name of the spanning tree being computed in the
+	 * control panel.
+	 */
+	private void drawSpanningProgress() {
+		pushStyle();
+		noFill();
+		stroke(0, 255, 0);
+		strokeWeight(3);
+		float angle = (frameCount % SPEED) * TWO_PI / SPEED;
+		arc(GUI_X / 2, 490, 30, 30, angle, angle + PI);
+		fill(255);
+		textAlign(CENTER, CENTER);
+		textSize(10);
+		text(pendingSpanningName + "...", GUI_X / 2, 520);
+		popStyle();
+	}
+
+	/**
+	 * stops the background threads when the sketch is closed.
+	 */
+	@Override
+	public void dispose() {
+		cancelSpanning();
+		spanningExecutor.shutdownNow();
+		audio.stop();
+		super.dispose();
+	}
+
+	/**
+	 * starts sorting the edges of the displayed graph again. This is called
+	 * whenever the edges or the displayed graph change.
+	 */
+	private void edgesChanged() {
+		scheduler.cancel("edges");
+		scheduler.submit("edges", new SortEdgesJob(displaySpanning ? gSpanning : gMain));
+	}
+
+	/**
+	 * resumable job that collects the edges of a graph one vertex at a time, then
+	 * sorts them by weight for drawing.
+	 */
+	private class SortEdgesJob implements FrameScheduler.WorkUnit {
+		Graph<Integer, Mover> g;
+		ArrayList<Integer> keys;
+		ArrayList<Edge<Integer, Mover>> edges;
+		int next = 0;
+
+		SortEdgesJob(Graph<Integer, Mover> g) {
+			this.g = g;
+			keys = new ArrayList<>(startVertexes);
+			edges = new ArrayList<>();
+		}
+
+		public boolean step() {
+			if (g == null) {
+				return true;
+			}
+			// collect the out edges of the next vertex:
+			if (next < keys.size()) {
+				Vertex<Integer, Mover> v = g.getVertex(keys.get(next));
+				if (v != null) {
+					edges.addAll(v.getEdges().values());
+				}
+				next++;
+				return false;
+			}
+			// once every vertex is collected, sort and publish the edges:
+			edges.sort(new CompareEdgeWeights());
+			sortedEdges = edges;
+			sortedGraph = g;
+			// play the sounds of the displayed edges:
+			audio.setEdges(edges, SPRING_DAMPING);
+			markDirty();
+			return true;
+		}
 	}
 
 	/**
@@ -202,6 +498,15 @@ public class GraphVisualizer extends PApplet {
 		}
 	}
 
+	/**
+	 * comparator for sorting edges in increasing order by weight.
+	 */
+	class CompareEdgeWeights implements Comparator<Edge<Integer, Mover>> {
+		public int compare(Edge<Integer, Mover> c1, Edge<Integer, Mover> c2) {
+			return c1.compareTo(c2);
+		}
+	}
+
 	/**
 	 * Forms or Changes an undirected edge between the vertexes with the specified
 	 * id numbers
@@ -217,6 +522,8 @@ public class GraphVisualizer extends PApplet {
 		// add weight to matrix only if the original graph is being displayed:
 		if (weight != 0 && !displaySpanning) {
 			gMain.connect(start, end, weight);
+			edgesChanged();
+			markDirty();
 		}
 	}
 
@@ -234,6 +541,8 @@ public class GraphVisualizer extends PApplet {
 		// add weight to matrix
 		if (weight != 0 && !displaySpanning) {
 			gMain.directedConnect(start, end, weight);
+			edgesChanged();
+			markDirty();
 		}
 	}
 
@@ -248,7 +557,9 @@ public class GraphVisualizer extends PApplet {
 			return;
 		}
 		if (!displaySpanning) {
-			gMain.getVertex(start).disconnect(gMain.getVertex(end));
+			gMain.disconnect(start, end);
+			edgesChanged();
+			markDirty();
 		}
 	}
 
@@ -264,20 +575,15 @@ public class GraphVisualizer extends PApplet {
 			if (gMain.get(idToRemove) != null) {
 				// remove all edges ending at this vertex:
 				clearSaved();
-				// turn sound off for mover:
-				gMain.get(idToRemove).soundOn = false;
-				// remove sounds from this mover
-				gMain.get(idToRemove).removeSoundsFromEdgesStartingHere();
-				// remove the sounds of all edges connecting to this vertex:
-				for (int i : startVertexes) {
-					gMain.get(i).removeSoundsEndingAt(idToRemove);
-				}
 
 			}
 			startVertexes.remove(idToRemove);
 			endVertexes.remove(idToRemove);
+			labels.invalidate(idToRemove);
 			selectedMovers.remove(gMain.get(idToRemove));
 			gMain.remove(idToRemove);
+			edgesChanged();
+			markDirty();
 		}
 	}
 
@@ -292,6 +598,7 @@ public class GraphVisualizer extends PApplet {
 			startVertexes.add(idToAdd);
 			endVertexes.add(idToAdd);
 			numberOfMovers++;
+			markDirty();
 
 		}
 	}
@@ -303,10 +610,8 @@ public class GraphVisualizer extends PApplet {
 		for (Integer i : startVertexes) {
 			if (g.get(i) != null) {
 				g.get(i).display();
-				textAlign(CENTER, CENTER);
-				textSize((int) g.get(i).radius);
-				fill(0);
-				text(Integer.toString(i), (float) g.get(i).location.x, (float) g.get(i).location.y);
+				// draw the pre-rendered label, it is only rendered again if the radius changes:
+				labels.draw(i, (int) g.get(i).radius, (float) g.get(i).location.x, (float) g.get(i).location.y);
 			}
 		}
 	}
@@ -318,6 +623,8 @@ public class GraphVisualizer extends PApplet {
 	private void graphForces(Graph<Integer, Mover> g) {
 		Edge<Integer, Mover> c;
 		Double weight;
+		// count the edges once for the whole frame:
+		int numberOfEdges = gMain.getNumberOfEdges();
 		// draw all edges:
 		drawEdges(g);
 		// apply physics to each edge:
@@ -338,7 +645,7 @@ public class GraphVisualizer extends PApplet {
 							// apply the spring force from the edge weights between these objects:
 							// using the weights as the spring constants:
 							weight = c.getWeight();
-							g.get(j).springForce(g.get(i), weight, 10);
+							g.get(j).springForce(g.get(i), weight, SPRING_DAMPING);
 						}
 						// add collisions between movers:
 						g.get(i).collision(g.get(j), (float) 0.9);
@@ -346,7 +653,7 @@ public class GraphVisualizer extends PApplet {
 						c = g.getVertex(i).getOutEdge(j);
 						drawArrow(c);
 						// visualize in and out degree:
-						changeColorBasedOnDegree(i);
+						changeColorBasedOnDegree(i, numberOfEdges);
 					}
 				}
 				// move edge in bounds:
@@ -374,12 +681,22 @@ public class GraphVisualizer extends PApplet {
 		if (startVertexes.size() == 0 || g.size() == 0) {
 			return;
 		}
-		PriorityQueue<Edge<Integer, Mover>> edges = g.getEdges(startVertexes.get(0));
-		Edge<Integer, Mover> c;
-		while (edges.size() > 0) {
-			c = edges.poll();
-			selectEndsOfEdge(c);
-			drawEdge(c);
+		// the edges are sorted by a background job. Until the list for this graph is
+		// published, draw its edges in any order so nothing disappears:
+		if (sortedGraph != g) {
+			g.forEachEdge(c -> {
+				selectEndsOfEdge(c);
+				drawEdge(c);
+			});
+			return;
+		}
+		for (Edge<Integer, Mover> c : sortedEdges) {
+			// skip edges that were removed after the list was sorted:
+			if (g.getVertex(c.getEnd().getKey()) == c.getEnd() && g.getVertex(c.getStart().getKey()) == c.getStart()
+					&& c.getStart().getOutEdge(c.getEnd().getKey()) == c) {
+				selectEndsOfEdge(c);
+				drawEdge(c);
+			}
 		}
 	}
 
@@ -510,10 +827,24 @@ public class GraphVisualizer extends PApplet {
 		}
 	}
 
+	/**
+	 * callback for when the mouse moves, only redraws when the mouse is over the
+	 * controls or moves onto a different mover or edge.
+	 */
+	@Override
+	public void mouseMoved() {
+		Object target = findHoverTarget(displaySpanning ? gSpanning : gMain);
+		if (mouseX < GUI_X || target != hoverTarget) {
+			markDirty();
+		}
+		hoverTarget = target;
+	}
+
 	/**
 	 * callback for when the mouse is dragged
 	 */
 	public void mouseDragged() {
+		markDirty();
 
 		Vector mouse;
 		if (!selectedMovers.isEmpty()) {
@@ -584,6 +915,7 @@ public class GraphVisualizer extends PApplet {
 	 * sets the mouse clicked state.
 	 */
 	public void mousePressed() {
+		markDirty();
 		mouseClicked = true;
 
 		if (mouseButton == RIGHT && !selectedMovers.isEmpty()) {
@@ -601,6 +933,7 @@ public class GraphVisualizer extends PApplet {
 	 * resets the mouse clicked state
 	 */
 	public void mouseReleased() {
+		markDirty();
 		mouseClicked = false;
 	}
 
@@ -614,6 +947,7 @@ public class GraphVisualizer extends PApplet {
 	 */
 	@Override
 	public void keyPressed() {
+		markDirty();
 		if(keyPressed && keyCode == SHIFT) {
 			//clear keys by pressing the shift key
 			clearSaved();
@@ -684,7 +1018,9 @@ public class GraphVisualizer extends PApplet {
 			break;
 		}
 		case ('l'): {// reset the spanning trees:
+			cancelSpanning();
 			displaySpanning = false;
+			edgesChanged();
 			break;
 		}
 		case ('k'): {// turn sound off
@@ -954,12 +1290,13 @@ public class GraphVisualizer extends PApplet {
 	/**
 	 * changes the color of a vertex based on its degree in the main graph.
 	 *
-	 * @param id - the id of the vertex changing color.
+	 * @param id            - the id of the vertex changing color.
+	 * @param numberOfEdges - the number of edges in the main graph.
 	 */
-	private void changeColorBasedOnDegree(int id) {
+	private void changeColorBasedOnDegree(int id, int numberOfEdges) {
 		int outDegree = gMain.getVertex(id).getOutDegree();
 		int inDegree = gMain.getVertex(id).getInDegree();
-		double degreeFraction = ((double) (inDegree + outDegree)) / ((double) gMain.getEdges().size() + 1.00);
+		double degreeFraction = ((double) (inDegree + outDegree)) / ((double) numberOfEdges + 1.00);
 
 		int red = (int) (degreeFraction * 200 + 55);
 		gMain.get(id).setGreen(red);
@@ -1010,6 +1347,7 @@ public class GraphVisualizer extends PApplet {
 	 */
 	public void dropdown(int n) {
 		Integer startID;
+		markDirty();
 
 		try {
 			startID = getMover("start");
@@ -1019,33 +1357,31 @@ public class GraphVisualizer extends PApplet {
 		}
 
 		switch (n) {
-		case (0): {// DFS
-			gSpanning = gMain.depthFirstSpanning(startID);
-			displaySpanning = true;
-			// move through all the vertexes in the spanning tree and change their color.
-			break;
-		}
-		case (1): {// BFS
-			gSpanning = gMain.breadthFirstSpanning(startID);
-			displaySpanning = true;
-			break;
-		}
-		case (2): {// primm's
-			gSpanning = gMain.primms(startID);
-			displaySpanning = true;
-			break;
-		}
+		case (0): // DFS
+		case (1): // BFS
+		case (2): // primm's
 		case (3): { // kruskal's
-			gSpanning = gMain.kruskals(startID);
-			displaySpanning = true;
+			// the spanning tree is displayed once it is done computing:
+			computeSpanning(n, startID);
 			break;
 		}
 		default: {// default is to display main graph
+			cancelSpanning();
 			displaySpanning = false;
+			edgesChanged();
 			break;
 		}
 		}
+	}
 
+	/**
+	 * callback for all of the gui controls, any change to the controls is
+	 * redrawn.
+	 *
+	 * @param event - the control event.
+	 */
+	public void controlEvent(ControlEvent event) {
+		markDirty();
 	}
 
 	/**
@@ -0,0 +1,233 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.Arrays;
+
+/**
+ * a d-ary min heap of integer items with double keys. Each item is in the heap
+ * at most once, and the heap knows where each item is, so the key of an item
+ * can be decreased in place instead of adding the item a second time. Items
+ * are small integers such as vertex indexes, and nothing is boxed.
+ *
+ * @author joe caffarini
+ */
+public class IndexedHeap {
+
+	private final int arity;
+	// the item at each position of the heap:
+	private int[] heap;
+	private int size = 0;
+	// the key and heap position of each item, -1 if the item is not in the heap:
+	private double[] keys;
+	private int[] position;
+
+	/**
+	 * creates an empty heap.
+	 *
+	 * @param arity    - the number of children of each node, 4 is a good default.
+	 * @param capacity - one past the largest item, the heap grows if a larger item
+	 *                 is added.
+	 */
+	public IndexedHeap(int arity, int capacity) {
+		this.arity = Math.max(2, arity);
+		heap = new int[Math.max(1, capacity)];
+		keys = new double[Math.max(1, capacity)];
+		position = new int[Math.max(1, capacity)];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * checks if the heap is empty.
+	 *
+	 * @return true if there are no items in the heap.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * gets the number of items in the heap.
+	 *
+	 * @return the number of items.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * checks if the item is in the heap.
+	 *
+	 * @param item - the item being checked.
+	 * @return true if the item is in the heap.
+	 */
+	public boolean contains(int item) {
+		return item < position.length && position[item] >= 0;
+	}
+
+	/**
+	 * gets the key of an item in the heap.
+	 *
+	 * @param item - the item.
+	 * @return the key, or infinity if the item is not in the heap.
+	 */
+	public double getKey(int item) {
+		return contains(item) ? keys[item] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * adds the item, or lowers its key if it is already in the heap.
+	 *
+	 * @param item - the item.
+	 * @param key  - the new key.
+	 * @return true if the item was added or its key was lowered, false if it
+	 *         already had a key that was as low.
+	 */
+	public boolean insertOrDecrease(int item, double key) {
+		ensureCapacity(item + 1);
+		int i = position[item];
+		if (i < 0) {
+			i = size++;
+		} else if (keys[item] <= key) {
+			return false;
+		}
+		keys[item] = key;
+		siftUp(item, i);
+		return true;
+	}
+
+	/**
+	 * gets the key of the item with the lowest key.
+	 *
+	 * @return the lowest key.
+	 */
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * removes the item with the lowest key.
+	 *
+	 * @return the item, or -1 if the heap is empty.
+	 */
+	public int poll() {
+		if (size == 0) {
+			return -1;
+		}
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0) {
+			siftDown(heap[size], 0);
+		}
+		return top;
+	}
+
+	/**
+	 * removes every item from the heap.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * moves the item up from the given position until its parent's key is not
+	 * larger.
+	 *
+	 * @param item - the item being placed.
+	 * @param i    - the position the item starts at.
+	 */
+	private void siftUp(int item, int i) {
+		double key = keys[item];
+		while (i > 0) {
+			int parent = (i - 1) / arity;
+			if (keys[heap[parent]] <= key) {
+				break;
+			}
+			place(heap[parent], i);
+			i = parent;
+		}
+		place(item, i);
+	}
+
+	/**
+	 * moves the item down from the given position until none of its children have
+	 * a smaller key.
+	 *
+	 * @param item - the item being placed.
+	 * @param i    - the position the item starts at.
+	 */
+	private void siftDown(int item, int i) {
+		double key = keys[item];
+		while (true) {
+			int first = i * arity + 1;
+			if (first >= size) {
+				break;
+			}
+			// find the child with the smallest key:
+			int best = first;
+			int last = Math.min(first + arity, size);
+			for (int child = first + 1; child < last; child++) {
+				if (keys[heap[child]] < keys[heap[best]]) {
+					best = child;
+				}
+			}
+			if (keys[heap[best]] >= key) {
+				break;
+			}
+			place(heap[best], i);
+			i = best;
+		}
+		place(item, i);
+	}
+
+	/**
+	 * puts an item at a position of the heap.
+	 */
+	private void place(int item, int i) {
+		heap[i] = item;
+		position[item] = i;
+	}
+
+	/**
+	 * grows the arrays so they can hold the given number of items.
+	 *
+	 * @param capacity - one past the largest item.
+	 */
+	void ensureCapacity(int capacity) {
+		if (position.length < capacity) {
+			int length = Math.max(capacity, position.length * 2);
+			int old = position.length;
+			heap = Arrays.copyOf(heap, length);
+			keys = Arrays.copyOf(keys, length);
+			position = Arrays.copyOf(position, length);
+			Arrays.fill(position, old, length, -1);
+		}
+	}
+
+}
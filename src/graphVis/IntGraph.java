@@ -0,0 +1,1339 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * a compact graph with integer keys. Each vertex is given a dense id, and ids of
+ * removed vertexes are reused. The edges are stored in primitive arrays instead
+ * of Hashtables of Edge objects, out edges and in edges are stored in parallel
+ * arrays indexed by id, so an edge costs a few ints and doubles instead of
+ * several objects.
+ *
+ * While the graph is being built each vertex has its own growable arrays of
+ * edges. Once the graph stops changing it can be frozen, which packs every edge
+ * into one compressed sparse row array so traversals read memory in order.
+ * Changing a frozen graph unpacks it again.
+ *
+ * Edges are followed in the order they were added. A graph converted from a
+ * Graph keeps the order of the Graph's Hashtables, so the algorithms give the
+ * same results as they do on the Graph.
+ *
+ * @author joe caffarini
+ * @param <V> - the value data type
+ */
+public class IntGraph<V> {
+
+	/**
+	 * the id returned for keys that are not in the graph.
+	 */
+	final static int NONE = -1;
+
+	private final static int INITIAL_CAPACITY = 16;
+	private final static int INITIAL_DEGREE = 4;
+
+	/**
+	 * open addressing hash map from keys to ids, so looking up a key does not box
+	 * it.
+	 */
+	private static class KeyMap {
+		private int[] keys;
+		private int[] ids;
+		private int size = 0;
+
+		KeyMap() {
+			keys = new int[INITIAL_CAPACITY * 2];
+			ids = new int[INITIAL_CAPACITY * 2];
+			Arrays.fill(ids, NONE);
+		}
+
+		/**
+		 * finds the slot of the key, or the empty slot where it would go.
+		 */
+		private int slot(int key) {
+			int mask = keys.length - 1;
+			int h = key * 0x9E3779B9;
+			int i = (h ^ (h >>> 16)) & mask;
+			while (ids[i] != NONE && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+		int get(int key) {
+			return ids[slot(key)];
+		}
+
+		void put(int key, int id) {
+			int i = slot(key);
+			if (ids[i] == NONE) {
+				size++;
+			}
+			keys[i] = key;
+			ids[i] = id;
+			if (size * 2 > keys.length) {
+				rehash();
+			}
+		}
+
+		void remove(int key) {
+			int mask = keys.length - 1;
+			int i = slot(key);
+			if (ids[i] == NONE) {
+				return;
+			}
+			ids[i] = NONE;
+			size--;
+			// move the following entries back so none of them are cut off from their
+			// slot:
+			int j = (i + 1) & mask;
+			while (ids[j] != NONE) {
+				int key2 = keys[j];
+				int id2 = ids[j];
+				ids[j] = NONE;
+				size--;
+				put(key2, id2);
+				j = (j + 1) & mask;
+			}
+		}
+
+		private void rehash() {
+			int[] oldKeys = keys;
+			int[] oldIds = ids;
+			keys = new int[oldKeys.length * 2];
+			ids = new int[oldKeys.length * 2];
+			Arrays.fill(ids, NONE);
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldIds[i] != NONE) {
+					put(oldKeys[i], oldIds[i]);
+				}
+			}
+		}
+	}
+
+	private KeyMap idsByKey;
+	// everything below is indexed by id:
+	private int[] keys;
+	private Object[] values;
+	private boolean[] alive;
+	// ids of removed vertexes that can be reused:
+	private int[] free;
+	private int freeCount = 0;
+	// one past the largest id that has been given out:
+	private int idCount = 0;
+	private int vertexCount = 0;
+	private int edgeCount = 0;
+	private double totalCost = 0;
+
+	// growable edge arrays for each vertex, null while the graph is frozen. The
+	// ends of the out edges of a vertex and their weights, and the starts of the
+	// in edges and their weights:
+	private int[] outDegree;
+	private int[][] outEnds;
+	private double[][] outWeights;
+	private int[] inDegree;
+	private int[][] inStarts;
+	private double[][] inWeights;
+
+	// compressed sparse row arrays, only used while the graph is frozen. The edges
+	// of id i are at the indexes from offset[i] to offset[i + 1]:
+	private boolean frozen = false;
+	private int[] outOffset;
+	private int[] csrOutEnds;
+	private double[] csrOutWeights;
+	private int[] inOffset;
+	private int[] csrInStarts;
+	private double[] csrInWeights;
+
+	/**
+	 * creates an empty graph.
+	 */
+	public IntGraph() {
+		idsByKey = new KeyMap();
+		keys = new int[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		alive = new boolean[INITIAL_CAPACITY];
+		free = new int[INITIAL_CAPACITY];
+		outDegree = new int[INITIAL_CAPACITY];
+		outEnds = new int[INITIAL_CAPACITY][];
+		outWeights = new double[INITIAL_CAPACITY][];
+		inDegree = new int[INITIAL_CAPACITY];
+		inStarts = new int[INITIAL_CAPACITY][];
+		inWeights = new double[INITIAL_CAPACITY][];
+	}
+
+	/**
+	 * creates a compact copy of the given graph. The edges are added in the order
+	 * the graph enumerates them, so traversals visit vertexes in the same order.
+	 *
+	 * @param g - the graph being copied.
+	 * @return a new graph with the same vertexes, values, edges and weights.
+	 */
+	public static <V> IntGraph<V> fromGraph(Graph<Integer, V> g) {
+		IntGraph<V> c = new IntGraph<V>();
+		ArrayList<Integer> keys = g.getKeys();
+		for (Integer key : keys) {
+			c.add(key, g.get(key));
+		}
+		for (Integer key : keys) {
+			for (Edge<Integer, V> e : g.getVertex(key).getEdges().values()) {
+				c.directedConnect(key, e.getEnd().getKey(), e.getWeight());
+			}
+		}
+		c.setCost(g.getCost());
+		return c;
+	}
+
+	/**
+	 * converts this graph back to a Graph.
+	 *
+	 * @return a new Graph with the same vertexes, values, edges and weights.
+	 */
+	public Graph<Integer, V> toGraph() {
+		Graph<Integer, V> g = new Graph<Integer, V>();
+		for (int id = 0; id < idCount; id++) {
+			if (alive[id]) {
+				g.add(keys[id], getValue(id));
+			}
+		}
+		for (int id = 0; id < idCount; id++) {
+			for (int i = 0; alive[id] && i < outDegree(id); i++) {
+				g.directedConnect(keys[id], keys[outEnd(id, i)], outWeight(id, i));
+			}
+		}
+		g.setCost(totalCost);
+		return g;
+	}
+
+	/**
+	 * copies the structure of this graph. The values are shared.
+	 *
+	 * @return a new graph with the same vertexes, edges and weights.
+	 */
+	public IntGraph<V> copy() {
+		IntGraph<V> c = new IntGraph<V>();
+		for (int id = 0; id < idCount; id++) {
+			if (alive[id]) {
+				c.add(keys[id], getValue(id));
+			}
+		}
+		for (int id = 0; id < idCount; id++) {
+			for (int i = 0; alive[id] && i < outDegree(id); i++) {
+				c.directedConnect(keys[id], keys[outEnd(id, i)], outWeight(id, i));
+			}
+		}
+		c.setCost(totalCost);
+		return c;
+	}
+
+	/**
+	 * gets the total cost of the current graph. Useful for spanning trees
+	 * algorithms.
+	 *
+	 * @return the total cost.
+	 */
+	public double getCost() {
+		return totalCost;
+	}
+
+	/**
+	 * sets the total cost of the edges in the current graph.
+	 *
+	 * @param cost - the new total cost.
+	 */
+	public void setCost(double cost) {
+		totalCost = cost;
+	}
+
+	/**
+	 * adds a vertex with the given key value pair to the graph. If the key is
+	 * already in the graph, then its value is replaced.
+	 *
+	 * @param key   - the key of the new vertex
+	 * @param value - the value stored in the vertex
+	 */
+	public void add(int key, V value) {
+		int id = idsByKey.get(key);
+		if (id != NONE) {
+			values[id] = value;
+			return;
+		}
+		thaw();
+		if (freeCount > 0) {
+			id = free[--freeCount];
+		} else {
+			if (idCount == keys.length) {
+				grow(idCount * 2);
+			}
+			id = idCount++;
+		}
+		keys[id] = key;
+		values[id] = value;
+		alive[id] = true;
+		outDegree[id] = 0;
+		inDegree[id] = 0;
+		idsByKey.put(key, id);
+		vertexCount++;
+	}
+
+	/**
+	 * removes the specified vertex, and all edges starting or ending at it. Only
+	 * the neighbors of the vertex are touched.
+	 *
+	 * @param key - the key of the specified vertex.
+	 * @return true if successful, false if the key was not found.
+	 */
+	public boolean remove(int key) {
+		int id = idsByKey.get(key);
+		if (id == NONE) {
+			return false;
+		}
+		// a loop is in both the out and in edges of the vertex, so remove it first:
+		disconnect(key, key);
+		thaw();
+		for (int i = 0; i < outDegree[id]; i++) {
+			removeFrom(inStarts, inWeights, inDegree, outEnds[id][i], id);
+		}
+		for (int i = 0; i < inDegree[id]; i++) {
+			removeFrom(outEnds, outWeights, outDegree, inStarts[id][i], id);
+		}
+		edgeCount -= outDegree[id] + inDegree[id];
+		outDegree[id] = 0;
+		inDegree[id] = 0;
+		outEnds[id] = null;
+		outWeights[id] = null;
+		inStarts[id] = null;
+		inWeights[id] = null;
+		values[id] = null;
+		alive[id] = false;
+		idsByKey.remove(key);
+		free[freeCount++] = id;
+		vertexCount--;
+		return true;
+	}
+
+	/**
+	 * Adds the directed edge from the start vertex to the end vertex, with a
+	 * weight of 1.
+	 *
+	 * @param startKey - key for the starting node.
+	 * @param endKey   - key for the ending node.
+	 * @return false if the vertexes are missing or the edge already exists.
+	 */
+	public boolean directedConnect(int startKey, int endKey) {
+		int start = idsByKey.get(startKey);
+		int end = idsByKey.get(endKey);
+		if (start == NONE || end == NONE || hasEdge(start, end)) {
+			return false;
+		}
+		addEdge(start, end, 1.0);
+		return true;
+	}
+
+	/**
+	 * Adds the directed edge from the start vertex to the end vertex. If the edge
+	 * already exists, then its weight is updated.
+	 *
+	 * @param startKey - key for the starting node.
+	 * @param endKey   - key for the ending node.
+	 * @param weight   - the weight of the edge
+	 * @return false if the vertexes are missing or the edge already exists.
+	 */
+	public boolean directedConnect(int startKey, int endKey, double weight) {
+		int start = idsByKey.get(startKey);
+		int end = idsByKey.get(endKey);
+		if (start == NONE || end == NONE) {
+			return false;
+		}
+		if (hasEdge(start, end)) {
+			setWeight(start, end, weight);
+			return false;
+		}
+		addEdge(start, end, weight);
+		return true;
+	}
+
+	/**
+	 * this creates an undirected connection between the two nodes.
+	 *
+	 * @param startKey - key for the starting node.
+	 * @param endKey   - key for the ending node.
+	 * @return false if the vertexes are missing or the edges already exist.
+	 */
+	public boolean connect(int startKey, int endKey) {
+		if (!contains(startKey) || !contains(endKey)) {
+			return false;
+		}
+		boolean forward = directedConnect(startKey, endKey);
+		boolean reverse = directedConnect(endKey, startKey);
+		return forward && reverse;
+	}
+
+	/**
+	 * this creates an undirected connection between the two nodes.
+	 *
+	 * @param startKey - key for the starting node.
+	 * @param endKey   - key for the ending node.
+	 * @param weight   - the weight of the edge.
+	 * @return false if the vertexes are missing or the edges already exist.
+	 */
+	public boolean connect(int startKey, int endKey, double weight) {
+		if (!contains(startKey) || !contains(endKey)) {
+			return false;
+		}
+		boolean forward = directedConnect(startKey, endKey, weight);
+		boolean reverse = directedConnect(endKey, startKey, weight);
+		return forward && reverse;
+	}
+
+	/**
+	 * removes the edge from the start vertex to the end vertex.
+	 *
+	 * @param startKey - key of the starting vertex.
+	 * @param endKey   - key of the ending vertex.
+	 * @return true if the edge was removed, false if it did not exist.
+	 */
+	public boolean disconnect(int startKey, int endKey) {
+		int start = idsByKey.get(startKey);
+		int end = idsByKey.get(endKey);
+		if (start == NONE || end == NONE || !hasEdge(start, end)) {
+			return false;
+		}
+		thaw();
+		removeFrom(outEnds, outWeights, outDegree, start, end);
+		removeFrom(inStarts, inWeights, inDegree, end, start);
+		edgeCount--;
+		return true;
+	}
+
+	/**
+	 * removes the edges in both directions between the two keys.
+	 *
+	 * @param startKey - key of the starting vertex.
+	 * @param endKey   - key of the ending vertex.
+	 * @return true if both edges were removed.
+	 */
+	public boolean disconnectAll(int startKey, int endKey) {
+		return disconnect(startKey, endKey) && disconnect(endKey, startKey);
+	}
+
+	/**
+	 * changes the weight of a given edge.
+	 *
+	 * @param startKey  - the key of the starting vertex of the edge
+	 * @param endKey    - key of the ending vertex of the edge.
+	 * @param newWeight - the new weight of the specified edge.
+	 * @return false if the edge does not exist.
+	 */
+	public boolean changeEdgeWeight(int startKey, int endKey, double newWeight) {
+		int start = idsByKey.get(startKey);
+		int end = idsByKey.get(endKey);
+		if (start == NONE || end == NONE || !hasEdge(start, end)) {
+			return false;
+		}
+		setWeight(start, end, newWeight);
+		return true;
+	}
+
+	/**
+	 * gets the weight of the specified edge
+	 *
+	 * @param startKey - the key of the starting vertex of the edge
+	 * @param endKey   - key of the ending vertex of the edge.
+	 * @return the weight of the specified edge, NaN if it does not exist.
+	 */
+	public double getOutEdgeWeight(int startKey, int endKey) {
+		int start = idsByKey.get(startKey);
+		int end = idsByKey.get(endKey);
+		if (start == NONE || end == NONE) {
+			return Double.NaN;
+		}
+		for (int i = 0; i < outDegree(start); i++) {
+			if (outEnd(start, i) == end) {
+				return outWeight(start, i);
+			}
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * checks if an edge exists between the specified vertexes
+	 *
+	 * @param startKey - key of the starting vertex
+	 * @param endKey   - key of the ending vertex
+	 * @return true if an edge exists.
+	 */
+	public boolean isThereAnEdge(int startKey, int endKey) {
+		int start = idsByKey.get(startKey);
+		int end = idsByKey.get(endKey);
+		return start != NONE && end != NONE && hasEdge(start, end);
+	}
+
+	/**
+	 * checks if the key is in the graph.
+	 *
+	 * @param key - the key being searched for.
+	 * @return true if there is a vertex with the key.
+	 */
+	public boolean contains(int key) {
+		return idsByKey.get(key) != NONE;
+	}
+
+	/**
+	 * gets the value of the vertex with the given key
+	 *
+	 * @param key - the key of the vertex being searched for
+	 * @return the value of the vertex, or null if the key is not in the graph.
+	 */
+	public V get(int key) {
+		int id = idsByKey.get(key);
+		return id == NONE ? null : getValue(id);
+	}
+
+	/**
+	 * gets the keys of all of the vertexes in the graph, in order of id.
+	 *
+	 * @return the keys.
+	 */
+	public int[] getKeys() {
+		int[] result = new int[vertexCount];
+		int n = 0;
+		for (int id = 0; id < idCount; id++) {
+			if (alive[id]) {
+				result[n++] = keys[id];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * gets the keys at the ends of the out edges of a vertex.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the keys in the order the edges were added, or null if the key is
+	 *         not in the graph.
+	 */
+	public int[] getOutKeys(int key) {
+		int id = idsByKey.get(key);
+		if (id == NONE) {
+			return null;
+		}
+		int[] result = new int[outDegree(id)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = keys[outEnd(id, i)];
+		}
+		return result;
+	}
+
+	/**
+	 * gets the keys at the starts of the in edges of a vertex.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the keys in the order the edges were added, or null if the key is
+	 *         not in the graph.
+	 */
+	public int[] getInKeys(int key) {
+		int id = idsByKey.get(key);
+		if (id == NONE) {
+			return null;
+		}
+		int[] result = new int[inDegree(id)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = keys[inStart(id, i)];
+		}
+		return result;
+	}
+
+	/**
+	 * gets the out degree of a vertex.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the out degree, or -1 if the key is not in the graph.
+	 */
+	public int getOutDegree(int key) {
+		int id = idsByKey.get(key);
+		return id == NONE ? -1 : outDegree(id);
+	}
+
+	/**
+	 * gets the in degree of a vertex.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the in degree, or -1 if the key is not in the graph.
+	 */
+	public int getInDegree(int key) {
+		int id = idsByKey.get(key);
+		return id == NONE ? -1 : inDegree(id);
+	}
+
+	/**
+	 * gets the number of vertexes in the graph
+	 *
+	 * @return the number of vertexes in the graph
+	 */
+	public int getNumberOfVertexes() {
+		return vertexCount;
+	}
+
+	/**
+	 * gets the number of directed edges in the graph, an undirected connection
+	 * counts as two.
+	 *
+	 * @return the number of edges.
+	 */
+	public int getNumberOfEdges() {
+		return edgeCount;
+	}
+
+	/**
+	 * gets the number of vertexes in the graph
+	 *
+	 * @return the number of vertexes.
+	 */
+	public int size() {
+		return vertexCount;
+	}
+
+	/**
+	 * packs every edge into compressed sparse row arrays. This should be done once
+	 * the graph is finished changing, the next change unpacks the edges again.
+	 * Until then the edges are only read, so a frozen graph can be searched from
+	 * many threads at once, which the parallel searches rely on.
+	 */
+	public void freeze() {
+		if (frozen) {
+			return;
+		}
+		outOffset = new int[idCount + 1];
+		inOffset = new int[idCount + 1];
+		for (int id = 0; id < idCount; id++) {
+			outOffset[id + 1] = outOffset[id] + outDegree[id];
+			inOffset[id + 1] = inOffset[id] + inDegree[id];
+		}
+		csrOutEnds = new int[edgeCount];
+		csrOutWeights = new double[edgeCount];
+		csrInStarts = new int[edgeCount];
+		csrInWeights = new double[edgeCount];
+		for (int id = 0; id < idCount; id++) {
+			if (outDegree[id] > 0) {
+				System.arraycopy(outEnds[id], 0, csrOutEnds, outOffset[id], outDegree[id]);
+				System.arraycopy(outWeights[id], 0, csrOutWeights, outOffset[id], outDegree[id]);
+			}
+			if (inDegree[id] > 0) {
+				System.arraycopy(inStarts[id], 0, csrInStarts, inOffset[id], inDegree[id]);
+				System.arraycopy(inWeights[id], 0, csrInWeights, inOffset[id], inDegree[id]);
+			}
+		}
+		outDegree = null;
+		outEnds = null;
+		outWeights = null;
+		inDegree = null;
+		inStarts = null;
+		inWeights = null;
+		frozen = true;
+	}
+
+	/**
+	 * checks if the edges are packed into compressed sparse row arrays.
+	 *
+	 * @return true if the graph is frozen.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * perform a depth first traversal of the given graph.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return the keys in depth first order, empty if the key is not in the graph.
+	 */
+	public int[] depthFirstTraversal(int startKey) {
+		int start = idsByKey.get(startKey);
+		if (start == NONE) {
+			return new int[0];
+		}
+		int[] traversal = new int[vertexCount];
+		int n = 0;
+		boolean[] visited = new boolean[idCount];
+		// the path from the start, and the next edge to follow from each vertex:
+		int[] stack = new int[vertexCount];
+		int[] cursor = new int[idCount];
+		int top = 0;
+		stack[top++] = start;
+		visited[start] = true;
+		traversal[n++] = keys[start];
+		while (top > 0) {
+			int c = stack[top - 1];
+			if (cursor[c] == outDegree(c)) {
+				// every edge from this vertex has been followed:
+				top--;
+				continue;
+			}
+			int s = outEnd(c, cursor[c]++);
+			if (!visited[s]) {
+				visited[s] = true;
+				traversal[n++] = keys[s];
+				stack[top++] = s;
+			}
+		}
+		return Arrays.copyOf(traversal, n);
+	}
+
+	/**
+	 * perform a breadth first traversal of the given graph.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return the keys in breadth first order, null if the key is not in the graph.
+	 */
+	public int[] breadthFirstTraversal(int startKey) {
+		int start = idsByKey.get(startKey);
+		if (start == NONE) {
+			return null;
+		}
+		// the queue holds every vertex in the order it was found, which is the
+		// traversal:
+		int[] queue = new int[vertexCount];
+		boolean[] visited = new boolean[idCount];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		visited[start] = true;
+		while (head < tail) {
+			int c = queue[head++];
+			for (int i = 0; i < outDegree(c); i++) {
+				int s = outEnd(c, i);
+				if (!visited[s]) {
+					visited[s] = true;
+					queue[tail++] = s;
+				}
+			}
+		}
+		int[] traversal = new int[tail];
+		for (int i = 0; i < tail; i++) {
+			traversal[i] = keys[queue[i]];
+		}
+		return traversal;
+	}
+
+	/**
+	 * topologically sorts the graph. Vertexes with no remaining in edges are taken
+	 * from a stack, starting with the vertexes that have no in edges at all.
+	 *
+	 * @return the keys in topological order, or null if the graph has a cycle.
+	 */
+	public int[] topologicalOrdering() {
+		int[] remaining = new int[idCount];
+		int[] stack = new int[vertexCount];
+		int top = 0;
+		for (int id = 0; id < idCount; id++) {
+			if (alive[id]) {
+				remaining[id] = inDegree(id);
+				if (remaining[id] == 0) {
+					stack[top++] = id;
+				}
+			}
+		}
+		int[] ordered = new int[vertexCount];
+		int n = 0;
+		while (top > 0) {
+			int c = stack[--top];
+			ordered[n++] = keys[c];
+			for (int i = 0; i < outDegree(c); i++) {
+				int s = outEnd(c, i);
+				if (--remaining[s] == 0) {
+					stack[top++] = s;
+				}
+			}
+		}
+		// vertexes on a cycle never run out of in edges:
+		return n == vertexCount ? ordered : null;
+	}
+
+	/**
+	 * perform a breadth first spanning of the given graph.
+	 *
+	 * @param startKey - the key where the traversal is starting.
+	 * @return the spanning tree from the starting node, null if the key is not in
+	 *         the graph.
+	 */
+	public IntGraph<V> breadthFirstSpanning(int startKey) {
+		int start = idsByKey.get(startKey);
+		if (start == NONE) {
+			return null;
+		}
+		IntGraph<V> g = new IntGraph<V>();
+		int[] queue = new int[vertexCount];
+		boolean[] visited = new boolean[idCount];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		visited[start] = true;
+		g.add(keys[start], getValue(start));
+		while (head < tail) {
+			int c = queue[head++];
+			for (int i = 0; i < outDegree(c); i++) {
+				int s = outEnd(c, i);
+				if (!visited[s]) {
+					visited[s] = true;
+					queue[tail++] = s;
+					// add the new vertex, and the edge that found it:
+					g.add(keys[s], getValue(s));
+					g.directedConnect(keys[c], keys[s], outWeight(c, i));
+				}
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * generate a depth first spanning graph of the current graph structure.
+	 *
+	 * @param startKey - the key of the vertex from which to start spanning.
+	 * @return the depth first spanning tree, empty if the key is not in the graph.
+	 */
+	public IntGraph<V> depthFirstSpanning(int startKey) {
+		IntGraph<V> g = new IntGraph<V>();
+		int start = idsByKey.get(startKey);
+		if (start == NONE) {
+			return g;
+		}
+		boolean[] visited = new boolean[idCount];
+		int[] stack = new int[vertexCount];
+		int[] cursor = new int[idCount];
+		int top = 0;
+		stack[top++] = start;
+		visited[start] = true;
+		g.add(keys[start], getValue(start));
+		while (top > 0) {
+			int c = stack[top - 1];
+			if (cursor[c] == outDegree(c)) {
+				top--;
+				if (top > 0) {
+					// the edge to a vertex is added once its subtree is finished:
+					int p = stack[top - 1];
+					g.directedConnect(keys[p], keys[c], outWeight(p, cursor[p] - 1));
+				}
+				continue;
+			}
+			int s = outEnd(c, cursor[c]++);
+			if (!visited[s]) {
+				visited[s] = true;
+				g.add(keys[s], getValue(s));
+				stack[top++] = s;
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Dijkstras algorithm for finding the shortest path to the vertex that is
+	 * furthest from the start.
+	 *
+	 * @param startingKey - the key to start the search.
+	 * @return the keys on the path, empty if the key is not in the graph.
+	 */
+	public int[] dijShortestPath(int startingKey) {
+		int start = idsByKey.get(startingKey);
+		if (start == NONE) {
+			return new int[0];
+		}
+		int[] pred = new int[idCount];
+		int[] settled = shortestPathTree(start, pred);
+		return path(pred, settled[settled.length - 1]);
+	}
+
+	/**
+	 * Dijkstras algorithm for finding the shortest path between two vertexes.
+	 *
+	 * @param startingKey - the key to start the search.
+	 * @param endingKey   - the key of the end of the path.
+	 * @return the keys on the path, empty if there is no path.
+	 */
+	public int[] dijShortestPath(int startingKey, int endingKey) {
+		int start = idsByKey.get(startingKey);
+		int end = idsByKey.get(endingKey);
+		if (start == NONE || end == NONE) {
+			return new int[0];
+		}
+		int[] pred = new int[idCount];
+		shortestPathTree(start, pred);
+		if (end != start && pred[end] == NONE) {
+			return new int[0];
+		}
+		return path(pred, end);
+	}
+
+	/**
+	 * Primms spanning tree. Like Graph.primms, the vertexes are taken in order of
+	 * their total distance from the start, so each vertex is joined to the tree by
+	 * the last edge of its shortest path.
+	 *
+	 * @param startKey - the key to start at
+	 * @return a graph containing the spanning tree, empty if the key is not in the
+	 *         graph.
+	 */
+	public IntGraph<V> primms(int startKey) {
+		IntGraph<V> g = new IntGraph<V>();
+		int start = idsByKey.get(startKey);
+		if (start == NONE) {
+			return g;
+		}
+		int[] pred = new int[idCount];
+		int[] settled = shortestPathTree(start, pred);
+		for (int c : settled) {
+			g.add(keys[c], getValue(c));
+			if (pred[c] != NONE) {
+				g.directedConnect(keys[pred[c]], keys[c], edgeWeight(pred[c], c));
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * forms a minimum spanning forest with kruskal's algorithm. The edges are
+	 * taken in increasing order by weight, and an edge is kept if it joins two
+	 * separate trees. The trees are tracked with a union find over the ids. The
+	 * edges are listed by their place in the packed arrays, so the graph is frozen
+	 * if it was not already.
+	 *
+	 * @return a graph with undirected connections for each edge in the spanning
+	 *         forest, and the total weight as its cost.
+	 */
+	public IntGraph<V> kruskals() {
+		// list every edge by its index in the compressed arrays:
+		freeze();
+		int[] order = new int[edgeCount];
+		for (int e = 0; e < edgeCount; e++) {
+			order[e] = e;
+		}
+		sortByWeight(order, 0, edgeCount - 1, csrOutWeights);
+		int[] starts = new int[edgeCount];
+		for (int id = 0; id < idCount; id++) {
+			for (int e = outOffset[id]; e < outOffset[id + 1]; e++) {
+				starts[e] = id;
+			}
+		}
+
+		int[] parent = new int[idCount];
+		int[] rank = new int[idCount];
+		for (int id = 0; id < idCount; id++) {
+			parent[id] = id;
+		}
+		IntGraph<V> g = new IntGraph<V>();
+		double cost = 0.0;
+		int joined = 0;
+		for (int k = 0; k < edgeCount && joined < vertexCount - 1; k++) {
+			int e = order[k];
+			int u = find(parent, starts[e]);
+			int v = find(parent, csrOutEnds[e]);
+			if (u == v) {
+				continue;
+			}
+			// link the shorter tree under the taller one:
+			if (rank[u] < rank[v]) {
+				parent[u] = v;
+			} else {
+				parent[v] = u;
+				if (rank[u] == rank[v]) {
+					rank[u]++;
+				}
+			}
+			joined++;
+			cost += csrOutWeights[e];
+			g.add(keys[starts[e]], getValue(starts[e]));
+			g.add(keys[csrOutEnds[e]], getValue(csrOutEnds[e]));
+			g.connect(keys[starts[e]], keys[csrOutEnds[e]], csrOutWeights[e]);
+		}
+		g.setCost(cost);
+		return g;
+	}
+
+	/**
+	 * gets the row and column of a vertex in the matrix of all pairs shortest
+	 * paths.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the index, or -1 if the key is not in the graph.
+	 */
+	public int indexOf(int key) {
+		return idOf(key);
+	}
+
+	/**
+	 * gets the id of a key.
+	 *
+	 * @param key - the key of the vertex.
+	 * @return the id, or NONE if the key is not in the graph.
+	 */
+	int idOf(int key) {
+		return idsByKey.get(key);
+	}
+
+	/**
+	 * gets the key of an id.
+	 *
+	 * @param id - the id of the vertex.
+	 * @return the key.
+	 */
+	int keyOf(int id) {
+		return keys[id];
+	}
+
+	/**
+	 * gets one past the largest id, arrays indexed by id need to be this long.
+	 *
+	 * @return the number of ids.
+	 */
+	int idCount() {
+		return idCount;
+	}
+
+	/**
+	 * checks if an id belongs to a vertex.
+	 *
+	 * @param id - the id being checked.
+	 * @return false if the id is unused or was removed.
+	 */
+	boolean isAlive(int id) {
+		return id >= 0 && id < idCount && alive[id];
+	}
+
+	/**
+	 * gets the value stored with an id.
+	 *
+	 * @param id - the id of the vertex.
+	 * @return the value.
+	 */
+	@SuppressWarnings("unchecked")
+	V getValue(int id) {
+		return (V) values[id];
+	}
+
+	/**
+	 * gets the number of out edges of an id.
+	 */
+	int outDegree(int id) {
+		return frozen ? outOffset[id + 1] - outOffset[id] : outDegree[id];
+	}
+
+	/**
+	 * gets the id at the end of the i-th out edge of an id.
+	 */
+	int outEnd(int id, int i) {
+		return frozen ? csrOutEnds[outOffset[id] + i] : outEnds[id][i];
+	}
+
+	/**
+	 * gets the weight of the i-th out edge of an id.
+	 */
+	double outWeight(int id, int i) {
+		return frozen ? csrOutWeights[outOffset[id] + i] : outWeights[id][i];
+	}
+
+	/**
+	 * gets the position of the first out edge of an id in the packed edge arrays.
+	 * The out edges of an id run up to the first out edge of the next id. Only
+	 * valid while the graph is frozen.
+	 */
+	int firstOutEdge(int id) {
+		return outOffset[id];
+	}
+
+	/**
+	 * gets the id at the end of the packed edge at the given position.
+	 */
+	int edgeEnd(int e) {
+		return csrOutEnds[e];
+	}
+
+	/**
+	 * gets the weight of the packed edge at the given position.
+	 */
+	double edgeWeight(int e) {
+		return csrOutWeights[e];
+	}
+
+	/**
+	 * gets the number of in edges of an id.
+	 */
+	int inDegree(int id) {
+		return frozen ? inOffset[id + 1] - inOffset[id] : inDegree[id];
+	}
+
+	/**
+	 * gets the id at the start of the i-th in edge of an id.
+	 */
+	int inStart(int id, int i) {
+		return frozen ? csrInStarts[inOffset[id] + i] : inStarts[id][i];
+	}
+
+	/**
+	 * gets the weight of the i-th in edge of an id.
+	 */
+	double inWeight(int id, int i) {
+		return frozen ? csrInWeights[inOffset[id] + i] : inWeights[id][i];
+	}
+
+	/**
+	 * runs dijkstras algorithm from the start.
+	 *
+	 * @param start - the id of the starting vertex.
+	 * @param pred  - filled with the predecessor of each id, NONE if the id was
+	 *              not reached.
+	 * @return the reached ids in the order they were settled.
+	 */
+	private int[] shortestPathTree(int start, int[] pred) {
+		double[] dist = new double[idCount];
+		boolean[] settled = new boolean[idCount];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(pred, NONE);
+		int[] order = new int[vertexCount];
+		int n = 0;
+		IndexedHeap q = new IndexedHeap(4, idCount);
+		dist[start] = 0.0;
+		q.insertOrDecrease(start, 0.0);
+		while (!q.isEmpty()) {
+			int c = q.poll();
+			settled[c] = true;
+			order[n++] = c;
+			for (int i = 0; i < outDegree(c); i++) {
+				int s = outEnd(c, i);
+				double w = dist[c] + outWeight(c, i);
+				if (!settled[s] && w < dist[s]) {
+					dist[s] = w;
+					pred[s] = c;
+					q.insertOrDecrease(s, w);
+				}
+			}
+		}
+		return Arrays.copyOf(order, n);
+	}
+
+	/**
+	 * follows the predecessors back from the end.
+	 *
+	 * @param pred - the predecessor of each id.
+	 * @param end  - the id of the end of the path.
+	 * @return the keys on the path from the start to the end.
+	 */
+	private int[] path(int[] pred, int end) {
+		int length = 0;
+		for (int c = end; c != NONE; c = pred[c]) {
+			length++;
+		}
+		int[] result = new int[length];
+		for (int c = end; c != NONE; c = pred[c]) {
+			result[--length] = keys[c];
+		}
+		return result;
+	}
+
+	/**
+	 * finds the root of the tree containing an id, halving the path on the way.
+	 */
+	static int find(int[] parent, int id) {
+		while (parent[id] != id) {
+			parent[id] = parent[parent[id]];
+			id = parent[id];
+		}
+		return id;
+	}
+
+	/**
+	 * sorts edge indexes in increasing order by weight, with a quicksort so the
+	 * indexes are never boxed.
+	 *
+	 * @param order   - the edge indexes being sorted.
+	 * @param low     - the first index of the range.
+	 * @param high    - the last index of the range.
+	 * @param weights - the weight of each edge.
+	 */
+	static void sortByWeight(int[] order, int low, int high, double[] weights) {
+		while (low < high) {
+			double pivot = weights[order[(low + high) >>> 1]];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (weights[order[i]] < pivot) {
+					i++;
+				}
+				while (weights[order[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int tmp = order[i];
+					order[i++] = order[j];
+					order[j--] = tmp;
+				}
+			}
+			// recurse into the smaller half so the stack stays shallow:
+			if (j - low < high - i) {
+				sortByWeight(order, low, j, weights);
+				low = i;
+			} else {
+				sortByWeight(order, i, high, weights);
+				high = j;
+			}
+		}
+	}
+
+	/**
+	 * checks for an edge between two ids.
+	 */
+	private boolean hasEdge(int start, int end) {
+		for (int i = 0; i < outDegree(start); i++) {
+			if (outEnd(start, i) == end) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * gets the weight of the edge between two ids, which must exist.
+	 */
+	private double edgeWeight(int start, int end) {
+		for (int i = 0; i < outDegree(start); i++) {
+			if (outEnd(start, i) == end) {
+				return outWeight(start, i);
+			}
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * sets the weight of an existing edge in both the out and in arrays.
+	 */
+	private void setWeight(int start, int end, double weight) {
+		thaw();
+		for (int i = 0; i < outDegree[start]; i++) {
+			if (outEnds[start][i] == end) {
+				outWeights[start][i] = weight;
+			}
+		}
+		for (int i = 0; i < inDegree[end]; i++) {
+			if (inStarts[end][i] == start) {
+				inWeights[end][i] = weight;
+			}
+		}
+	}
+
+	/**
+	 * adds a new edge to the out arrays of the start and the in arrays of the end.
+	 */
+	private void addEdge(int start, int end, double weight) {
+		thaw();
+		if (outEnds[start] == null || outDegree[start] == outEnds[start].length) {
+			int length = outEnds[start] == null ? INITIAL_DEGREE : outDegree[start] * 2;
+			outEnds[start] = outEnds[start] == null ? new int[length] : Arrays.copyOf(outEnds[start], length);
+			outWeights[start] = outWeights[start] == null ? new double[length]
+					: Arrays.copyOf(outWeights[start], length);
+		}
+		outEnds[start][outDegree[start]] = end;
+		outWeights[start][outDegree[start]++] = weight;
+		if (inStarts[end] == null || inDegree[end] == inStarts[end].length) {
+			int length = inStarts[end] == null ? INITIAL_DEGREE : inDegree[end] * 2;
+			inStarts[end] = inStarts[end] == null ? new int[length] : Arrays.copyOf(inStarts[end], length);
+			inWeights[end] = inWeights[end] == null ? new double[length] : Arrays.copyOf(inWeights[end], length);
+		}
+		inStarts[end][inDegree[end]] = start;
+		inWeights[end][inDegree[end]++] = weight;
+		edgeCount++;
+	}
+
+	/**
+	 * removes the other id from the edge arrays of an id, keeping the rest of the
+	 * edges in order.
+	 */
+	private static void removeFrom(int[][] ends, double[][] weights, int[] degree, int id, int other) {
+		for (int i = 0; i < degree[id]; i++) {
+			if (ends[id][i] == other) {
+				System.arraycopy(ends[id], i + 1, ends[id], i, degree[id] - i - 1);
+				System.arraycopy(weights[id], i + 1, weights[id], i, degree[id] - i - 1);
+				degree[id]--;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * unpacks the compressed arrays back into growable arrays for each vertex, so
+	 * the graph can be changed.
+	 */
+	private void thaw() {
+		if (!frozen) {
+			return;
+		}
+		int capacity = keys.length;
+		outDegree = new int[capacity];
+		outEnds = new int[capacity][];
+		outWeights = new double[capacity][];
+		inDegree = new int[capacity];
+		inStarts = new int[capacity][];
+		inWeights = new double[capacity][];
+		for (int id = 0; id < idCount; id++) {
+			outDegree[id] = outOffset[id + 1] - outOffset[id];
+			if (outDegree[id] > 0) {
+				outEnds[id] = Arrays.copyOfRange(csrOutEnds, outOffset[id], outOffset[id + 1]);
+				outWeights[id] = Arrays.copyOfRange(csrOutWeights, outOffset[id], outOffset[id + 1]);
+			}
+			inDegree[id] = inOffset[id + 1] - inOffset[id];
+			if (inDegree[id] > 0) {
+				inStarts[id] = Arrays.copyOfRange(csrInStarts, inOffset[id], inOffset[id + 1]);
+				inWeights[id] = Arrays.copyOfRange(csrInWeights, inOffset[id], inOffset[id + 1]);
+			}
+		}
+		outOffset = null;
+		csrOutEnds = null;
+		csrOutWeights = null;
+		inOffset = null;
+		csrInStarts = null;
+		csrInWeights = null;
+		frozen = false;
+	}
+
+	/**
+	 * grows the arrays that are indexed by id.
+	 *
+	 * @param capacity - the new number of ids.
+	 */
+	private void grow(int capacity) {
+		keys = Arrays.copyOf(keys, capacity);
+		values = Arrays.copyOf(values, capacity);
+		alive = Arrays.copyOf(alive, capacity);
+		free = Arrays.copyOf(free, capacity);
+		outDegree = Arrays.copyOf(outDegree, capacity);
+		outEnds = Arrays.copyOf(outEnds, capacity);
+		outWeights = Arrays.copyOf(outWeights, capacity);
+		inDegree = Arrays.copyOf(inDegree, capacity);
+		inStarts = Arrays.copyOf(inStarts, capacity);
+		inWeights = Arrays.copyOf(inWeights, capacity);
+	}
+
+}
@@ -0,0 +1,204 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.Hashtable;
+
+import processing.core.PApplet;
+import processing.core.PConstants;
+import processing.core.PGraphics;
+
+/**
+ * cache of pre-rendered vertex labels. Each label is rasterized once into an
+ * off screen image for the text size it is drawn at, so drawing a label every
+ * frame is just an image blit instead of laying out the glyphs again. Labels
+ * that are not rendered yet are queued, and rendered a few at a time when the
+ * cache is stepped by the frame scheduler.
+ *
+ * @author joe caffarini
+ */
+public class LabelCache implements FrameScheduler.WorkUnit {
+
+	/**
+	 * blank pixels around the text so the glyph edges are not clipped.
+	 */
+	private final static int PADDING = 2;
+
+	/**
+	 * a rendered label and the text size it was rendered at.
+	 */
+	private static class Sprite {
+		int size;
+		PGraphics image;
+
+		Sprite(int size, PGraphics image) {
+			this.size = size;
+			this.image = image;
+		}
+	}
+
+	private PApplet p;
+	// sprites are stored based on the label they display:
+	private Hashtable<Integer, Sprite> sprites;
+	// labels waiting to be rendered, and the size they are needed at:
+	private Hashtable<Integer, Integer> pending;
+
+	/**
+	 * creates an empty label cache that renders with the given applet.
+	 *
+	 * @param processing - the processing applet.
+	 */
+	public LabelCache(PApplet processing) {
+		p = processing;
+		sprites = new Hashtable<>();
+		pending = new Hashtable<>();
+	}
+
+	/**
+	 * draws the label centered on the given location. If the label has not been
+	 * rendered at this size yet, then it is drawn as plain text and queued to be
+	 * rendered by step().
+	 *
+	 * @param label - the label being drawn.
+	 * @param size  - the text size of the label.
+	 * @param x     - x coordinate of the center of the label.
+	 * @param y     - y coordinate of the center of the label.
+	 */
+	public void draw(Integer label, int size, float x, float y) {
+		if (size <= 0) {
+			return;
+		}
+		if (isCached(label, size)) {
+			p.imageMode(PConstants.CENTER);
+			p.image(sprites.get(label).image, x, y);
+		} else {
+			pending.put(label, size);
+			p.textAlign(PConstants.CENTER, PConstants.CENTER);
+			p.textSize(size);
+			p.fill(0);
+			p.text(Integer.toString(label), x, y);
+		}
+	}
+
+	/**
+	 * renders one of the queued labels.
+	 *
+	 * @return true if there are no more labels waiting to be rendered.
+	 */
+	public boolean step() {
+		if (!pending.isEmpty()) {
+			Integer label = pending.keys().nextElement();
+			get(label, pending.remove(label));
+		}
+		return pending.isEmpty();
+	}
+
+	/**
+	 * checks if there are labels waiting to be rendered.
+	 *
+	 * @return true if step() has work to do.
+	 */
+	public boolean hasPending() {
+		return !pending.isEmpty();
+	}
+
+	/**
+	 * gets the rendered image for the label, rendering it if the cached image is
+	 * missing or was made for a different size.
+	 *
+	 * @param label - the label being drawn.
+	 * @param size  - the text size of the label.
+	 * @return the image of the label, or null if the size is not drawable.
+	 */
+	public PGraphics get(Integer label, int size) {
+		if (size <= 0) {
+			return null;
+		}
+		Sprite sprite = sprites.get(label);
+		if (sprite == null || sprite.size != size) {
+			sprite = new Sprite(size, render(Integer.toString(label), size));
+			sprites.put(label, sprite);
+		}
+		return sprite.image;
+	}
+
+	/**
+	 * checks if the label already has an image for the given size.
+	 *
+	 * @param label - the label being checked.
+	 * @param size  - the text size of the label.
+	 * @return true if drawing the label will not render it again.
+	 */
+	public boolean isCached(Integer label, int size) {
+		Sprite sprite = sprites.get(label);
+		return sprite != null && sprite.size == size;
+	}
+
+	/**
+	 * removes the image of the label, this should be called when the label is
+	 * removed or changed.
+	 *
+	 * @param label - the label being removed.
+	 */
+	public void invalidate(Integer label) {
+		sprites.remove(label);
+		pending.remove(label);
+	}
+
+	/**
+	 * removes all of the cached labels.
+	 */
+	public void clear() {
+		sprites.clear();
+		pending.clear();
+	}
+
+	/**
+	 * rasterizes the text into a transparent image just large enough to hold it.
+	 *
+	 * @param text - the text being rendered.
+	 * @param size - the text size.
+	 * @return the rendered text.
+	 */
+	private PGraphics render(String text, int size) {
+		// measure the text with the applet's renderer so the image fits the glyphs:
+		p.pushStyle();
+		p.textSize(size);
+		int w = (int) Math.ceil(p.textWidth(text)) + 2 * PADDING;
+		int h = (int) Math.ceil(p.textAscent() + p.textDescent()) + 2 * PADDING;
+		p.popStyle();
+
+		PGraphics image = p.createGraphics(w, h);
+		image.beginDraw();
+		image.clear();
+		image.textAlign(PConstants.CENTER, PConstants.CENTER);
+		image.textSize(size);
+		image.fill(0);
+		image.text(text, w / 2f, h / 2f);
+		image.endDraw();
+		return image;
+	}
+
+}
@@ -0,0 +1,331 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.Arrays;
+
+/**
+ * a forest of rooted trees that can be linked, cut and rerooted in logarithmic
+ * amortized time, using sleator and tarjan's link cut trees. Each node has a
+ * value, and the node with the largest value on the path between two nodes can
+ * be found in the same time. The paths are stored as splay trees in arrays of
+ * node numbers, so nothing is allocated per node after the arrays grow.
+ *
+ * @author joe caffarini
+ */
+public class LinkCutForest {
+
+	private final static int NONE = -1;
+
+	// the children and parent of each node. A node whose parent does not have it
+	// as a child is the top of its path, and the parent is the path's parent:
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+	// true if the children of the node's subtree still have to be swapped:
+	private boolean[] flip;
+	private double[] value;
+	// the node with the largest value in each node's splay subtree:
+	private int[] best;
+	private int size = 0;
+	// nodes that were freed and can be reused:
+	private int[] free;
+	private int freeCount = 0;
+	// the path from a splay root down to a node, used while splaying:
+	private int[] path;
+
+	/**
+	 * creates an empty forest.
+	 *
+	 * @param capacity - the number of nodes to make room for.
+	 */
+	public LinkCutForest(int capacity) {
+		capacity = Math.max(1, capacity);
+		left = new int[capacity];
+		right = new int[capacity];
+		parent = new int[capacity];
+		flip = new boolean[capacity];
+		value = new double[capacity];
+		best = new int[capacity];
+		free = new int[capacity];
+		path = new int[capacity];
+	}
+
+	/**
+	 * adds a node that is a tree on its own.
+	 *
+	 * @param nodeValue - the value of the node.
+	 * @return the number of the new node.
+	 */
+	public int newNode(double nodeValue) {
+		int x;
+		if (freeCount > 0) {
+			x = free[--freeCount];
+		} else {
+			if (size == left.length) {
+				grow(size * 2);
+			}
+			x = size++;
+		}
+		left[x] = NONE;
+		right[x] = NONE;
+		parent[x] = NONE;
+		flip[x] = false;
+		value[x] = nodeValue;
+		best[x] = x;
+		return x;
+	}
+
+	/**
+	 * frees a node so it can be reused. The node must have been cut from every
+	 * other node first.
+	 *
+	 * @param x - the node.
+	 */
+	public void freeNode(int x) {
+		free[freeCount++] = x;
+	}
+
+	/**
+	 * gets the value of a node.
+	 *
+	 * @param x - the node.
+	 * @return the value.
+	 */
+	public double getValue(int x) {
+		return value[x];
+	}
+
+	/**
+	 * changes the value of a node.
+	 *
+	 * @param x         - the node.
+	 * @param nodeValue - the new value.
+	 */
+	public void setValue(int x, double nodeValue) {
+		access(x);
+		value[x] = nodeValue;
+		update(x);
+	}
+
+	/**
+	 * checks if two nodes are in the same tree.
+	 *
+	 * @param x - a node.
+	 * @param y - another node.
+	 * @return true if there is a path between them.
+	 */
+	public boolean connected(int x, int y) {
+		return x == y || findRoot(x) == findRoot(y);
+	}
+
+	/**
+	 * joins two trees with an edge between x and y. They must be in different
+	 * trees.
+	 *
+	 * @param x - a node.
+	 * @param y - a node in another tree.
+	 */
+	public void link(int x, int y) {
+		makeRoot(x);
+		parent[x] = y;
+	}
+
+	/**
+	 * removes the edge between two neighboring nodes.
+	 *
+	 * @param x - a node.
+	 * @param y - a neighbor of x.
+	 */
+	public void cut(int x, int y) {
+		makeRoot(x);
+		access(y);
+		// the path from x to y is just the two of them, so x is y's left child:
+		left[y] = NONE;
+		parent[x] = NONE;
+		update(y);
+	}
+
+	/**
+	 * finds the node with the largest value on the path between two nodes in the
+	 * same tree.
+	 *
+	 * @param x - the start of the path.
+	 * @param y - the end of the path.
+	 * @return the node with the largest value.
+	 */
+	public int pathMax(int x, int y) {
+		makeRoot(x);
+		access(y);
+		return best[y];
+	}
+
+	/**
+	 * makes x the root of its tree.
+	 */
+	private void makeRoot(int x) {
+		access(x);
+		flip[x] = !flip[x];
+		push(x);
+	}
+
+	/**
+	 * finds the root of x's tree.
+	 */
+	private int findRoot(int x) {
+		access(x);
+		push(x);
+		while (left[x] != NONE) {
+			x = left[x];
+			push(x);
+		}
+		splay(x);
+		return x;
+	}
+
+	/**
+	 * makes the path from the root to x a single splay tree with x at its top.
+	 */
+	private void access(int x) {
+		int last = NONE;
+		for (int y = x; y != NONE; y = parent[y]) {
+			splay(y);
+			right[y] = last;
+			update(y);
+			last = y;
+		}
+		splay(x);
+	}
+
+	/**
+	 * checks if x is the top of its splay tree.
+	 */
+	private boolean isTop(int x) {
+		int p = parent[x];
+		return p == NONE || (left[p] != x && right[p] != x);
+	}
+
+	/**
+	 * moves x to the top of its splay tree.
+	 */
+	private void splay(int x) {
+		// swap the children that are waiting to be swapped, from the top down:
+		int n = 0;
+		path[n++] = x;
+		for (int y = x; !isTop(y); y = parent[y]) {
+			path[n++] = parent[y];
+		}
+		while (n > 0) {
+			push(path[--n]);
+		}
+		while (!isTop(x)) {
+			int p = parent[x];
+			if (!isTop(p)) {
+				int g = parent[p];
+				// rotate the parent first when x and p are on the same side:
+				rotate((left[g] == p) == (left[p] == x) ? p : x);
+			}
+			rotate(x);
+		}
+	}
+
+	/**
+	 * moves x above its parent.
+	 */
+	private void rotate(int x) {
+		int p = parent[x];
+		int g = parent[p];
+		if (!isTop(p)) {
+			if (left[g] == p) {
+				left[g] = x;
+			} else {
+				right[g] = x;
+			}
+		}
+		parent[x] = g;
+		if (left[p] == x) {
+			left[p] = right[x];
+			if (right[x] != NONE) {
+				parent[right[x]] = p;
+			}
+			right[x] = p;
+		} else {
+			right[p] = left[x];
+			if (left[x] != NONE) {
+				parent[left[x]] = p;
+			}
+			left[x] = p;
+		}
+		parent[p] = x;
+		update(p);
+		update(x);
+	}
+
+	/**
+	 * swaps the children of x if they are waiting to be swapped.
+	 */
+	private void push(int x) {
+		if (flip[x]) {
+			int tmp = left[x];
+			left[x] = right[x];
+			right[x] = tmp;
+			if (left[x] != NONE) {
+				flip[left[x]] = !flip[left[x]];
+			}
+			if (right[x] != NONE) {
+				flip[right[x]] = !flip[right[x]];
+			}
+			flip[x] = false;
+		}
+	}
+
+	/**
+	 * finds the node with the largest value in x's splay subtree.
+	 */
+	private void update(int x) {
+		best[x] = x;
+		if (left[x] != NONE && value[best[left[x]]] > value[best[x]]) {
+			best[x] = best[left[x]];
+		}
+		if (right[x] != NONE && value[best[right[x]]] > value[best[x]]) {
+			best[x] = best[right[x]];
+		}
+	}
+
+	/**
+	 * grows the arrays to the given number of nodes.
+	 */
+	private void grow(int capacity) {
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		flip = Arrays.copyOf(flip, capacity);
+		value = Arrays.copyOf(value, capacity);
+		best = Arrays.copyOf(best, capacity);
+		free = Arrays.copyOf(free, capacity);
+		path = Arrays.copyOf(path, capacity);
+	}
+
+}
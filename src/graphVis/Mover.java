@@ -28,13 +28,11 @@
 
 package graphVis;
 
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
 
 import processing.core.PApplet;
 import processing.core.PConstants;
-import processing.sound.*;
 
 /**
  * Class for generating a simple shape for physics simulations.
@@ -54,7 +52,6 @@ public class Mover {
 	int rd;
 	int g;
 	int b;
-	Hashtable<Integer, SinOsc> sine = new Hashtable<>();
 
 	Vector location;
 	Vector velocity;
@@ -67,7 +64,6 @@ public class Mover {
 	// computationally unstable
 	private double soundConstant = 100000 / 2.5;
 	protected Integer distanceFromMouse = 0;
-	double soundAmplitude = 1.0;
 	boolean soundOn = true;
 
 	public Mover(double[] d, double[] v, double[] a, double radius, double density, Integer key, PApplet processing) {
@@ -115,83 +111,53 @@ public class Mover {
 		p = processing;
 	}
 
-	public void createSound(PApplet processing, Integer key) {
-		// Create the sine oscillator.
-		// Create the noise generator
-		SinOsc tmpSound = new SinOsc(processing);
-
-		tmpSound.freq(0);
-		tmpSound.amp((float) soundAmplitude);
-		tmpSound.play();
-		sine.put(key, tmpSound);
-	}
-
 	/**
-	 * adds sound to the out edges
+	 * calculates the frequency of the sound made by an edge ending at this mover.
+	 * The edge is treated as a damped spring, so the sound is its oscillation
+	 * frequency.
 	 * 
 	 * @param k    - the edge weight/ spring constant
 	 * @param drag - the drag constant on the mover's velocity
-	 * @param key  - the id of the end point of the edge.
+	 * @return - the frequency of the edge's sound.
 	 */
-	public void simpleHarmonicMotionFrequency(double k, double drag, Integer key, Vector velocityTarg) {
-		if (!soundOn) {
-			Vector relativeVelocity;
-			// calculate the resonant frequency:
-			double wo = Math.sqrt(k / mass);
-			// calculate the damping ratio:
-			double sigma = drag / (2 * Math.sqrt(k * mass));
-			// determine the oscillation frequecy:
-			double w = wo * Math.sqrt(1 - Math.pow(sigma, 2));
-			double f = soundConstant * w / (2 * Math.PI);
-			// check if the given edge already has a sound:
-			if (sine.get(key) != null) {
-				// create a sound amplitude that depends on the velocity
-				if (!pin) {
-					relativeVelocity = Vector.sub(velocityTarg, velocity);
-					// reset the amplitude if the relative Velocity
-					if (relativeVelocity.mag() > 1) {
-						relativeVelocity.normalize();
-					}
-				} else {
-					relativeVelocity = Vector.sub(velocityTarg, new Vector(0, 0));
-				}
-				// make the sound amplitude dependent on the relative veocities of the target.
-				soundAmplitude = ((float) Math.exp(-sigma * wo)) * relativeVelocity.mag() / 2;
-				SinOsc tmpSound = sine.remove(key);
-				tmpSound.freq((float) f);
-				tmpSound.amp((float) ((float) soundAmplitude));
-				tmpSound.play();
-				sine.put(key, tmpSound);
-			} else {
-				// otherwise make one:
-				createSound(p, key);
-			}
-		} else {
-			// stop sound if the sound is off:
-			if (sine.get(key) != null) {
-				sine.get(key).stop();
-			}
-		}
-
-	}
-
-	public void removeSoundsEndingAt(int endKey) {
-		if (sine.get(endKey) == null) {
-			return;
-		}
-		sine.get(endKey).stop();
-		sine.remove(endKey);
+	public double toneFrequency(double k, double drag) {
+		// calculate the resonant frequency:
+		double wo = Math.sqrt(k / mass);
+		// calculate the damping ratio:
+		double sigma = drag / (2 * Math.sqrt(k * mass));
+		// determine the oscillation frequecy:
+		double w = wo * Math.sqrt(1 - Math.pow(sigma, 2));
+		return soundConstant * w / (2 * Math.PI);
 	}
 
-	public void removeSoundsFromEdgesStartingHere() {
-		Enumeration<Integer> keys = sine.keys();
-		Integer nextKey = null;
-		while (keys.hasMoreElements()) {
-			nextKey = keys.nextElement();
-			sine.get(nextKey).stop();
-			sine.remove(nextKey);
-
+	/**
+	 * calculates the amplitude of the sound made by an edge ending at this mover.
+	 * It depends on how fast the movers at either end of the edge are moving
+	 * relative to each other.
+	 * 
+	 * @param k            - the edge weight/ spring constant
+	 * @param drag         - the drag constant on the mover's velocity
+	 * @param velocityTarg - the velocity of the mover at the start of the edge.
+	 * @return - the amplitude of the edge's sound.
+	 */
+	public double toneAmplitude(double k, double drag, Vector velocityTarg) {
+		Vector relativeVelocity;
+		// calculate the resonant frequency:
+		double wo = Math.sqrt(k / mass);
+		// calculate the damping ratio:
+		double sigma = drag / (2 * Math.sqrt(k * mass));
+		// create a sound amplitude that depends on the velocity
+		if (!pin) {
+			relativeVelocity = Vector.sub(velocityTarg, velocity);
+			// reset the amplitude if the relative Velocity
+			if (relativeVelocity.mag() > 1) {
+				relativeVelocity.normalize();
+			}
+		} else {
+			relativeVelocity = Vector.sub(velocityTarg, new Vector(0, 0));
 		}
+		// make the sound amplitude dependent on the relative veocities of the target.
+		return Math.exp(-sigma * wo) * relativeVelocity.mag() / 2;
 	}
 
 	/**
@@ -403,6 +369,46 @@ public class Mover {
 		return radius;
 	}
 
+	/**
+	 * gets the straight line distance between the centers of this mover and
+	 * another mover.
+	 * 
+	 * @param m - the other mover.
+	 * @return the distance.
+	 */
+	public double distanceTo(Mover m) {
+		return Vector.sub(location, m.location).mag();
+	}
+
+	/**
+	 * heuristic for Graph.aStarShortestPath that guesses the distance left from the
+	 * straight line distance between two movers.
+	 * 
+	 * @param scale - the smallest edge weight per unit of length, the guess is
+	 *              only safe if no edge weighs less than this times its length.
+	 * @return the heuristic.
+	 */
+	public static ToDoubleBiFunction<Mover, Mover> distanceHeuristic(double scale) {
+		return (m1, m2) -> scale * m1.distanceTo(m2);
+	}
+
+	/**
+	 * finds the largest scale for distanceHeuristic that never guesses more than
+	 * the real distance, which is the smallest weight per unit of length of any
+	 * edge in the graph.
+	 * 
+	 * @param g - the graph of movers.
+	 * @return the scale, or 0 if there are no edges or an edge has no length.
+	 */
+	public static double distanceScale(Graph<Integer, Mover> g) {
+		double[] scale = { Double.POSITIVE_INFINITY };
+		g.forEachEdge(c -> {
+			double length = c.getStart().getValue().distanceTo(c.getEnd().getValue());
+			scale[0] = Math.min(scale[0], length > 0 ? c.getWeight() / length : 0.0);
+		});
+		return Double.isInfinite(scale[0]) ? 0.0 : Math.max(0.0, scale[0]);
+	}
+
 	/**
 	 * applies an electrostatic like repulsion between objects- like a reverse
 	 * gravity.
@@ -437,8 +443,6 @@ public class Mover {
 	public void springForce(Mover m, double edgeWeight, double damping) {
 		Vector rHat = Vector.sub(location, m.location);
 		double forceMag = edgeWeight * (rHat.mag() - 2 * (radius + m.radius));
-		// set the sound the vertex plays as its oscillatory frequency:
-		simpleHarmonicMotionFrequency(edgeWeight, damping, m.label, m.velocity);
 		// normalize and scale the spring force:
 		rHat.normalize();
 		rHat.scale(forceMag);
@@ -0,0 +1,322 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+/**
+ * renders the sound of a simulation straight to a wav file, without drawing
+ * anything or using a sound card. The movers are moved by the same forces as
+ * in the visualizer, without the mouse, and the sound of each edge uses the
+ * same frequency and amplitude as when it is played live. The edges are
+ * synthesized as a bank of sine waves, a block of samples per physics step, so
+ * a run is rendered much faster than it would take to play.
+ *
+ * The movers in the graph are moved by the simulation.
+ *
+ * @author joe caffarini
+ */
+public class SonificationRenderer {
+
+	private final static int BITS_PER_SAMPLE = 16;
+
+	private Graph<Integer, Mover> g;
+	private int sampleRate;
+	private double stepRate;
+	private double drag;
+	private double gain = 1.0;
+	private int steps = 0;
+
+	// the sine bank, one entry per edge. The phase of each sine is stored as a
+	// point on the unit circle that is rotated a little every sample:
+	private int voices = 0;
+	private double[] re = new double[0];
+	private double[] im = new double[0];
+	private double[] cos = new double[0];
+	private double[] sin = new double[0];
+	private double[] amp = new double[0];
+	private double[] ampStep = new double[0];
+	// the edge that each entry of the sine bank belongs to, and the entry of each
+	// edge:
+	private ArrayList<Long> bankKeys = new ArrayList<>();
+	private Hashtable<Long, Integer> bankIndex = new Hashtable<>();
+
+	/**
+	 * creates a renderer for the given graph.
+	 *
+	 * @param g          - the graph being simulated.
+	 * @param sampleRate - the number of samples per second in the wav file.
+	 * @param stepRate   - the number of physics steps per simulated second, this
+	 *                   is the frame rate of the visualizer.
+	 * @param drag       - the damping of the spring force of the edges.
+	 */
+	public SonificationRenderer(Graph<Integer, Mover> g, int sampleRate, double stepRate, double drag) {
+		this.g = g;
+		this.sampleRate = sampleRate;
+		this.stepRate = stepRate;
+		this.drag = drag;
+	}
+
+	/**
+	 * sets the volume the sounds are mixed at. The mix is clipped if it is too
+	 * loud.
+	 *
+	 * @param gain - the volume, 1 by default.
+	 */
+	public void setGain(double gain) {
+		this.gain = gain;
+	}
+
+	/**
+	 * simulates the given number of seconds and writes the sound to a 16 bit mono
+	 * wav file.
+	 *
+	 * @param file    - the file being written.
+	 * @param seconds - the length of the simulation.
+	 * @throws IOException - if the file cannot be written.
+	 */
+	public void render(File file, double seconds) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+			render(out, seconds);
+		}
+	}
+
+	/**
+	 * simulates the given number of seconds and streams the sound as a 16 bit mono
+	 * wav file.
+	 *
+	 * @param out     - where the wav file is written.
+	 * @param seconds - the length of the simulation.
+	 * @throws IOException - if the stream cannot be written.
+	 */
+	public void render(OutputStream out, double seconds) throws IOException {
+		int totalSteps = (int) Math.round(seconds * stepRate);
+		long totalSamples = sampleIndex(steps + totalSteps) - sampleIndex(steps);
+		writeHeader(out, totalSamples);
+
+		float[] mix = new float[(int) Math.ceil(sampleRate / stepRate) + 1];
+		ByteBuffer bytes = ByteBuffer.allocate(mix.length * BITS_PER_SAMPLE / 8).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < totalSteps; i++) {
+			int length = (int) (sampleIndex(steps + 1) - sampleIndex(steps));
+			step();
+			synthesize(mix, length);
+			// convert the block to 16 bit samples:
+			bytes.clear();
+			for (int n = 0; n < length; n++) {
+				double sample = Math.max(-1.0, Math.min(1.0, gain * mix[n]));
+				bytes.putShort((short) Math.round(sample * Short.MAX_VALUE));
+			}
+			out.write(bytes.array(), 0, bytes.position());
+		}
+		out.flush();
+	}
+
+	/**
+	 * moves the simulation forward one step. These are the forces applied in
+	 * GraphVisualizer.graphForces, without the mouse.
+	 */
+	public void step() {
+		ArrayList<Integer> keys = g.getKeys();
+		Edge<Integer, Mover> c;
+		for (int i : keys) {
+			for (int j : keys) {
+				if (i != j) {
+					// apply friction to each vertex:
+					g.get(i).applyDragForce(10, 0.2);
+					// keep objects from sticking by adding a repulsive force between them:
+					g.get(i).push(g.get(j));
+					c = g.getVertex(i).getOutEdge(j);
+					if (c != null) {
+						// apply the spring force from the edge weights between these objects:
+						g.get(j).springForce(g.get(i), c.getWeight(), drag);
+					}
+					// add collisions between movers:
+					g.get(i).collision(g.get(j), (float) 0.9);
+				}
+			}
+			g.get(i).moveInBounds();
+			g.get(i).update();
+		}
+		steps++;
+	}
+
+	/**
+	 * gets the index of the first sample of the given physics step.
+	 *
+	 * @param step - the number of the physics step.
+	 * @return the index of the first sample.
+	 */
+	private long sampleIndex(long step) {
+		return (long) Math.floor(step * sampleRate / stepRate);
+	}
+
+	/**
+	 * samples the edges, then synthesizes a block of the sine bank. The amplitude
+	 * of each sine is ramped across the block from its last value to the new one.
+	 *
+	 * @param mix    - the buffer the block is mixed into.
+	 * @param length - the number of samples in the block.
+	 */
+	private void synthesize(float[] mix, int length) {
+		updateBank(length);
+		for (int n = 0; n < length; n++) {
+			mix[n] = 0;
+		}
+		for (int n = 0; n < length; n++) {
+			// rotate every sine forward one sample, each voice is independent so this loop
+			// vectorizes:
+			for (int v = 0; v < voices; v++) {
+				double r = re[v] * cos[v] - im[v] * sin[v];
+				im[v] = re[v] * sin[v] + im[v] * cos[v];
+				re[v] = r;
+				amp[v] += ampStep[v];
+			}
+			double sample = 0;
+			for (int v = 0; v < voices; v++) {
+				sample += amp[v] * im[v];
+			}
+			mix[n] = (float) sample;
+		}
+		// keep the rotating points on the unit circle so rounding does not build up:
+		for (int v = 0; v < voices; v++) {
+			double r = Math.sqrt(re[v] * re[v] + im[v] * im[v]);
+			re[v] /= r;
+			im[v] /= r;
+		}
+	}
+
+	/**
+	 * updates the sine bank with the current frequency and amplitude of every
+	 * edge. Edges keep their phase from block to block, new edges start silent and
+	 * removed edges fade out over the block.
+	 *
+	 * @param length - the number of samples in the next block.
+	 */
+	private void updateBank(int length) {
+		ArrayList<Long> keys = new ArrayList<>();
+		Hashtable<Long, Integer> index = new Hashtable<>();
+		ArrayList<double[]> targets = new ArrayList<>();
+		for (int i : g.getKeys()) {
+			for (Edge<Integer, Mover> c : g.getVertex(i).getEdges().values()) {
+				Mover start = c.getStart().getValue();
+				Mover end = c.getEnd().getValue();
+				double f = end.toneFrequency(c.getWeight(), drag);
+				double a = end.toneAmplitude(c.getWeight(), drag, start.velocity);
+				if (!Double.isFinite(f) || !Double.isFinite(a) || f <= 0 || f >= sampleRate / 2.0) {
+					// the sine cannot be played, so it is silent:
+					a = 0;
+					f = 0;
+				}
+				long key = AudioController.toneKey(start.getLabel(), end.getLabel());
+				index.put(key, keys.size());
+				keys.add(key);
+				targets.add(new double[] { f, a });
+			}
+		}
+		// edges that were removed fade out:
+		for (int v = 0; v < voices; v++) {
+			if (!index.containsKey(bankKeys.get(v)) && amp[v] > 0) {
+				index.put(bankKeys.get(v), keys.size());
+				keys.add(bankKeys.get(v));
+				targets.add(new double[] { -1, 0 });
+			}
+		}
+
+		int size = keys.size();
+		double[] newRe = new double[size];
+		double[] newIm = new double[size];
+		double[] newCos = new double[size];
+		double[] newSin = new double[size];
+		double[] newAmp = new double[size];
+		double[] newAmpStep = new double[size];
+		for (int k = 0; k < size; k++) {
+			Integer old = bankIndex.get(keys.get(k));
+			double f = targets.get(k)[0];
+			if (old != null) {
+				newRe[k] = re[old];
+				newIm[k] = im[old];
+				newAmp[k] = amp[old];
+				if (f < 0) {
+					// the removed edge keeps its frequency while fading:
+					newCos[k] = cos[old];
+					newSin[k] = sin[old];
+				}
+			} else {
+				newRe[k] = 1;
+			}
+			if (f >= 0) {
+				newCos[k] = Math.cos(2 * Math.PI * f / sampleRate);
+				newSin[k] = Math.sin(2 * Math.PI * f / sampleRate);
+			}
+			newAmpStep[k] = (targets.get(k)[1] - newAmp[k]) / length;
+		}
+		re = newRe;
+		im = newIm;
+		cos = newCos;
+		sin = newSin;
+		amp = newAmp;
+		ampStep = newAmpStep;
+		bankKeys = keys;
+		bankIndex = index;
+		voices = size;
+	}
+
+	/**
+	 * writes the header of a 16 bit mono pcm wav file.
+	 *
+	 * @param out     - where the header is written.
+	 * @param samples - the number of samples in the file.
+	 * @throws IOException - if the stream cannot be written.
+	 */
+	private void writeHeader(OutputStream out, long samples) throws IOException {
+		int blockAlign = BITS_PER_SAMPLE / 8;
+		long dataSize = samples * blockAlign;
+		ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(new byte[] { 'R', 'I', 'F', 'F' });
+		header.putInt((int) (36 + dataSize));
+		header.put(new byte[] { 'W', 'A', 'V', 'E' });
+		header.put(new byte[] { 'f', 'm', 't', ' ' });
+		header.putInt(16);
+		// pcm format with one channel:
+		header.putShort((short) 1);
+		header.putShort((short) 1);
+		header.putInt(sampleRate);
+		header.putInt(sampleRate * blockAlign);
+		header.putShort((short) blockAlign);
+		header.putShort((short) BITS_PER_SAMPLE);
+		header.put(new byte[] { 'd', 'a', 't', 'a' });
+		header.putInt((int) dataSize);
+		out.write(header.array());
+	}
+
+}
@@ -0,0 +1,243 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * the bookkeeping of one graph query: which vertexes were visited, and the
+ * distance and predecessor of each vertex. The state is stored in arrays
+ * indexed by the vertexes' index in their graph instead of in the vertexes, so
+ * any number of queries can run on the same graph at once.
+ *
+ * Every entry is stamped with the epoch of the query that wrote it, and a new
+ * query just moves to the next epoch, so nothing has to be reset after a query.
+ * Contexts are pooled per thread and reused by the next query on that thread.
+ *
+ * @author joe caffarini
+ * @param <K> - the key data type
+ * @param <V> - the value data type
+ */
+public class TraversalContext<K extends Comparable<K>, V> {
+
+	/**
+	 * the distance of a vertex that has not been reached.
+	 */
+	final static double UNREACHED = Double.POSITIVE_INFINITY;
+
+	// contexts that are not in use, for each thread:
+	private static final ThreadLocal<ArrayDeque<TraversalContext<?, ?>>> pool = ThreadLocal
+			.withInitial(ArrayDeque::new);
+
+	private int epoch = 0;
+	// the epoch when each vertex was visited:
+	private int[] visited = new int[0];
+	// the epoch when the distance and predecessor of each vertex were set:
+	private int[] reached = new int[0];
+	private double[] distance = new double[0];
+	// the index of the predecessor of each vertex:
+	private int[] predecessor = new int[0];
+	// the graph being queried, used to find the vertexes of the predecessors:
+	private Graph<K, V> graph;
+	// priority queue of vertex indexes, created the first time it is needed:
+	private IndexedHeap heap;
+	// the stack of depth first searches and the next edge of each entry, created
+	// the first time they are needed:
+	private int[] stack;
+	private int[] cursors;
+
+	/**
+	 * gets a context from this thread's pool, or a new one if the pool is empty.
+	 * It should be released when the query is finished.
+	 *
+	 * @param graph - the graph being queried.
+	 * @return a context with nothing visited or reached.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K extends Comparable<K>, V> TraversalContext<K, V> acquire(Graph<K, V> graph) {
+		TraversalContext<K, V> c = (TraversalContext<K, V>) pool.get().poll();
+		if (c == null) {
+			c = new TraversalContext<K, V>();
+		}
+		c.graph = graph;
+		c.begin(graph.indexCapacity());
+		return c;
+	}
+
+	/**
+	 * returns this context to the pool of the current thread.
+	 */
+	public void release() {
+		// drop the graph so the pool does not keep it alive:
+		graph = null;
+		pool.get().push(this);
+	}
+
+	/**
+	 * starts a new query by moving to the next epoch, growing the arrays if the
+	 * graph has grown.
+	 *
+	 * @param capacity - the number of vertex indexes in the graph.
+	 */
+	void begin(int capacity) {
+		if (visited.length < capacity) {
+			int length = Math.max(capacity, visited.length * 2);
+			visited = Arrays.copyOf(visited, length);
+			reached = Arrays.copyOf(reached, length);
+			distance = Arrays.copyOf(distance, length);
+			predecessor = Arrays.copyOf(predecessor, length);
+		}
+		if (epoch == Integer.MAX_VALUE) {
+			// the stamps would wrap around, so clear them instead:
+			Arrays.fill(visited, 0);
+			Arrays.fill(reached, 0);
+			epoch = 0;
+		}
+		epoch++;
+		if (heap != null) {
+			heap.clear();
+			heap.ensureCapacity(capacity);
+		}
+	}
+
+	/**
+	 * gets the priority queue of this context, which is empty at the start of the
+	 * query. The items are vertex indexes.
+	 *
+	 * @return the priority queue.
+	 */
+	public IndexedHeap getHeap() {
+		if (heap == null) {
+			heap = new IndexedHeap(4, visited.length);
+		}
+		return heap;
+	}
+
+	/**
+	 * gets an array of vertex indexes that can be used as a stack, long enough to
+	 * hold every vertex of the graph.
+	 *
+	 * @return the stack.
+	 */
+	public int[] getStack() {
+		if (stack == null || stack.length < visited.length) {
+			stack = new int[visited.length];
+		}
+		return stack;
+	}
+
+	/**
+	 * gets an array as long as the stack, for the position of the next edge to
+	 * follow from each vertex on the stack.
+	 *
+	 * @return the positions.
+	 */
+	public int[] getCursors() {
+		if (cursors == null || cursors.length < visited.length) {
+			cursors = new int[visited.length];
+		}
+		return cursors;
+	}
+
+	/**
+	 * checks if the vertex was visited during this query.
+	 *
+	 * @param vertex - the vertex being checked.
+	 * @return true if it was visited.
+	 */
+	public boolean isVisited(Vertex<K, V> vertex) {
+		return visited[vertex.index] == epoch;
+	}
+
+	/**
+	 * marks the vertex as visited.
+	 *
+	 * @param vertex - the vertex being visited.
+	 */
+	public void setVisited(Vertex<K, V> vertex) {
+		visited[vertex.index] = epoch;
+	}
+
+	/**
+	 * gets the distance of the vertex.
+	 *
+	 * @param vertex - the vertex.
+	 * @return the distance, or UNREACHED if it has not been set.
+	 */
+	public double getDistance(Vertex<K, V> vertex) {
+		return reached[vertex.index] == epoch ? distance[vertex.index] : UNREACHED;
+	}
+
+	/**
+	 * sets the distance of the vertex.
+	 *
+	 * @param vertex   - the vertex.
+	 * @param distance - the new distance.
+	 */
+	public void setDistance(Vertex<K, V> vertex, double distance) {
+		reach(vertex.index);
+		this.distance[vertex.index] = distance;
+	}
+
+	/**
+	 * gets the predecessor of the vertex.
+	 *
+	 * @param vertex - the vertex.
+	 * @return the predecessor, or null if it has not been set.
+	 */
+	public Vertex<K, V> getPredecessor(Vertex<K, V> vertex) {
+		if (reached[vertex.index] != epoch || predecessor[vertex.index] < 0) {
+			return null;
+		}
+		return graph.vertexAt(predecessor[vertex.index]);
+	}
+
+	/**
+	 * sets the predecessor of the vertex.
+	 *
+	 * @param vertex      - the vertex.
+	 * @param predecessor - the vertex before it, or null.
+	 */
+	public void setPredecessor(Vertex<K, V> vertex, Vertex<K, V> predecessor) {
+		reach(vertex.index);
+		this.predecessor[vertex.index] = predecessor == null ? -1 : predecessor.index;
+	}
+
+	/**
+	 * stamps an index as reached, giving it the default distance and no
+	 * predecessor if it was not reached yet.
+	 *
+	 * @param index - the index of the vertex.
+	 */
+	private void reach(int index) {
+		if (reached[index] != epoch) {
+			reached[index] = epoch;
+			distance[index] = UNREACHED;
+			predecessor[index] = -1;
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayDeque;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * lazy depth first or breadth first traversal of a graph. Vertexes are found
+ * one at a time as next() is called, so a search that stops early only pays for
+ * the vertexes it looked at. The visited vertexes are tracked by the iterator
+ * instead of the vertexes, so the graph does not need to be reset afterwards.
+ * The graph should not be changed while it is being iterated over.
+ *
+ * @author joe caffarini
+ * @param <K> - the key data type
+ * @param <V> - the value data type
+ */
+public class TraversalIterator<K extends Comparable<K>, V> implements Iterator<Vertex<K, V>> {
+
+	private boolean depthFirst;
+	private Hashtable<K, Vertex<K, V>> visited;
+	// out edges that have not been followed yet, for each vertex on the depth
+	// first path:
+	private ArrayDeque<Enumeration<Edge<K, V>>> stack;
+	// vertexes that were found by the breadth first search but not returned:
+	private ArrayDeque<Vertex<K, V>> queue;
+	// the next vertex to return, null if it has not been found yet:
+	private Vertex<K, V> next;
+
+	/**
+	 * creates a traversal starting at the given vertex.
+	 *
+	 * @param start      - the vertex where the traversal starts, null for an empty
+	 *                   traversal.
+	 * @param depthFirst - true for a depth first traversal, false for breadth
+	 *                   first.
+	 */
+	public TraversalIterator(Vertex<K, V> start, boolean depthFirst) {
+		this.depthFirst = depthFirst;
+		visited = new Hashtable<>();
+		stack = new ArrayDeque<>();
+		queue = new ArrayDeque<>();
+		if (start != null) {
+			visited.put(start.getKey(), start);
+			if (depthFirst) {
+				// the start vertex is returned first, then the search continues from it:
+				next = start;
+				stack.push(start.getEdges().elements());
+			} else {
+				queue.add(start);
+			}
+		}
+	}
+
+	/**
+	 * checks if there are any more vertexes in the traversal.
+	 *
+	 * @return true if next() will return a vertex.
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			next = depthFirst ? advanceDepthFirst() : advanceBreadthFirst();
+		}
+		return next != null;
+	}
+
+	/**
+	 * gets the next vertex in the traversal.
+	 *
+	 * @return the next vertex.
+	 * @throws NoSuchElementException - if the traversal is finished.
+	 */
+	@Override
+	public Vertex<K, V> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Vertex<K, V> c = next;
+		next = null;
+		return c;
+	}
+
+	/**
+	 * follows edges from the vertex on top of the stack until an unvisited vertex
+	 * is found, backing up when a vertex has no edges left.
+	 *
+	 * @return the next vertex in depth first order, or null if there are none.
+	 */
+	private Vertex<K, V> advanceDepthFirst() {
+		while (!stack.isEmpty()) {
+			Enumeration<Edge<K, V>> edges = stack.peek();
+			if (!edges.hasMoreElements()) {
+				// every edge from this vertex has been followed:
+				stack.pop();
+				continue;
+			}
+			Vertex<K, V> end = edges.nextElement().getEnd();
+			if (!visited.containsKey(end.getKey())) {
+				// move to the unvisited vertex:
+				visited.put(end.getKey(), end);
+				stack.push(end.getEdges().elements());
+				return end;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * takes the next vertex from the queue, and adds its unvisited successors to
+	 * the queue.
+	 *
+	 * @return the next vertex in breadth first order, or null if there are none.
+	 */
+	private Vertex<K, V> advanceBreadthFirst() {
+		Vertex<K, V> c = queue.poll();
+		if (c == null) {
+			return null;
+		}
+		Enumeration<Edge<K, V>> edges = c.getEdges().elements();
+		while (edges.hasMoreElements()) {
+			Vertex<K, V> end = edges.nextElement().getEnd();
+			if (!visited.containsKey(end.getKey())) {
+				visited.put(end.getKey(), end);
+				queue.add(end);
+			}
+		}
+		return c;
+	}
+
+}
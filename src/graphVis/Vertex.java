@@ -57,11 +57,15 @@ public class Vertex<K extends Comparable<K>, V> {
 	// initialize variables for dijstra's:
 	Double totalWeight = (double) Integer.MAX_VALUE;
 	Vertex<K, V> predecessor = null;
+	// the index of this vertex in its graph, used by traversal contexts:
+	int index = -1;
 
 	// the outEdges are stored based on the ending vertex.
 	private Hashtable<K, Edge<K, V>> outEdges;
 	// hash table of in edges, indexed by start key.
 	private Hashtable<K, Edge<K, V>> inEdges;
+	// the out edges in the order the table lists them, null after they change:
+	private volatile Edge<K, V>[] edgeArray;
 
 	/**
 	 * creates a new vertex with the given key value pair.
@@ -87,6 +91,7 @@ public class Vertex<K extends Comparable<K>, V> {
 		Edge<K, V> newEdge = new Edge<K, V>(this, vertex);
 		if (!outEdges.contains(newEdge)) {
 			outEdges.put(vertex.getKey(), newEdge);
+			edgeArray = null;
 			// add edge to list of in edges.
 			vertex.addInEdge(newEdge);
 			return true;
@@ -142,6 +147,7 @@ public class Vertex<K extends Comparable<K>, V> {
 		}
 		if (getOutEdge(vertex.getKey()) == null) {
 			outEdges.put(vertex.getKey(), newEdge);
+			edgeArray = null;
 			vertex.addInEdge(newEdge);
 			return true;
 		} else {
@@ -159,6 +165,7 @@ public class Vertex<K extends Comparable<K>, V> {
 	 */
 	public boolean disconnect(Vertex<K, V> vertex) {
 		if (outEdges.remove(vertex.getKey()) != null) {
+			edgeArray = null;
 			// remove the in edge from this node:
 			vertex.removeInEdge(this.key);
 			return true;
@@ -175,12 +182,38 @@ public class Vertex<K extends Comparable<K>, V> {
 	public boolean disconnect(K key) {
 		Edge<K, V> currentEdge = outEdges.remove(key);
 		if (currentEdge != null) {
+			edgeArray = null;
 			currentEdge.getEnd().removeInEdge(this.key);
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * removes the out edge to the given key without touching the in edges of the
+	 * vertex at its end.
+	 * 
+	 * @param key - the key of the edge endpoint.
+	 * @return true if successful, false otherwise.
+	 */
+	public boolean removeOutEdge(K key) {
+		if (outEdges.remove(key) != null) {
+			edgeArray = null;
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * removes every out edge without touching the in edges of the vertexes at
+	 * their ends.
+	 */
+	public void clearOutEdges() {
+		outEdges.clear();
+		edgeArray = null;
+	}
+
 	/**
 	 * gets the key of this vertex.
 	 * 
@@ -286,7 +319,8 @@ public class Vertex<K extends Comparable<K>, V> {
 
 	/**
 	 * gets all outEdges of this vertex. Keys are indexed with the key where the
-	 * edge ends.
+	 * edge ends. Edges should be added and removed through the vertex, not
+	 * through this table.
 	 * 
 	 * @return all outEdges.
 	 */
@@ -294,6 +328,35 @@ public class Vertex<K extends Comparable<K>, V> {
 		return outEdges;
 	}
 
+	/**
+	 * gets the out edges as an array, in the same order as the table lists them.
+	 * The array is kept until the edges change, so traversals can step through
+	 * it with an index instead of creating an enumeration for every vertex. It
+	 * must not be modified.
+	 * 
+	 * @return the out edges.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	Edge<K, V>[] getEdgeArray() {
+		Edge<K, V>[] edges = edgeArray;
+		// the size check catches edges changed through getEdges:
+		if (edges == null || edges.length != outEdges.size()) {
+			edges = outEdges.values().toArray(new Edge[0]);
+			edgeArray = edges;
+		}
+		return edges;
+	}
+
+	/**
+	 * gets all inEdges of this vertex. Keys are indexed with the key where the
+	 * edge starts.
+	 * 
+	 * @return all inEdges.
+	 */
+	public Hashtable<K, Edge<K, V>> getInEdges() {
+		return inEdges;
+	}
+
 	/**
 	 * these compare algorithms will sort items in descending order when used in a
 	 * priority queue - so strings will be sorted in reverse alphabetical order
@@ -0,0 +1,202 @@
+/**
+ *  A zero gravity Cremona Diagram created using processing and ControlIP5. 
+ *  
+ *  I ask that you cite / reference my github repo if you use this code as a reference.   
+ *  
+ *  Copyright (C) 2020  Joe Caffarini jgcaffari1@gmail.com
+ *  
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published
+ *  by the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  
+ *  
+ *  See the GNU Affero General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *  
+ */
+
+
+package graphVis;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.PriorityQueue;
+
+import processing.core.PApplet;
+import processing.sound.SinOsc;
+
+/**
+ * a fixed number of oscillators that are shared by all of the sounds. Only the
+ * loudest sounds are given a voice, and when a louder sound needs a voice it
+ * takes the voice of a sound that is no longer one of the loudest. The number
+ * of oscillators never grows past the size of the pool, no matter how many
+ * sounds there are.
+ *
+ * @author joe caffarini
+ */
+public class VoicePool {
+
+	/**
+	 * amplitudes below this are treated as silent.
+	 */
+	final static double SILENT = 0.0001;
+
+	/**
+	 * something that wants to be heard.
+	 */
+	interface Source {
+		/**
+		 * gets the frequency the source should be played at.
+		 *
+		 * @return the frequency
+		 */
+		double getFrequency();
+
+		/**
+		 * gets the amplitude the source should be played at.
+		 *
+		 * @return the amplitude
+		 */
+		double getAmplitude();
+	}
+
+	/**
+	 * an oscillator and the source it is playing.
+	 */
+	private static class Voice {
+		SinOsc osc;
+		Source owner;
+		boolean playing = false;
+	}
+
+	/**
+	 * comparator that sorts sources in increasing order by amplitude, so the head
+	 * of the queue is the quietest.
+	 */
+	private static class CompareAmplitude implements Comparator<Source> {
+		public int compare(Source s1, Source s2) {
+			return Double.compare(s1.getAmplitude(), s2.getAmplitude());
+		}
+	}
+
+	private PApplet p;
+	private Voice[] voices;
+	// the voice that each source is being played with:
+	private Hashtable<Source, Voice> owners;
+
+	/**
+	 * creates a pool of voices. The oscillators are only created the first time
+	 * they are needed.
+	 *
+	 * @param processing - the processing applet.
+	 * @param size       - the most sounds that can play at once.
+	 */
+	public VoicePool(PApplet processing, int size) {
+		p = processing;
+		voices = new Voice[size];
+		for (int i = 0; i < size; i++) {
+			voices[i] = new Voice();
+		}
+		owners = new Hashtable<>();
+	}
+
+	/**
+	 * gets the number of voices in the pool.
+	 *
+	 * @return the most sounds that can play at once.
+	 */
+	public int size() {
+		return voices.length;
+	}
+
+	/**
+	 * gives the loudest sources a voice and updates the oscillators. A source that
+	 * still has a voice keeps it, the remaining voices are taken from the sources
+	 * that are no longer loud enough, and any voice left without a source is
+	 * stopped.
+	 *
+	 * @param sources - all of the sources that could be played.
+	 */
+	public void update(Collection<? extends Source> sources) {
+		// find the loudest sources, the quietest of them is at the head of the queue:
+		PriorityQueue<Source> loudest = new PriorityQueue<>(voices.length + 1, new CompareAmplitude());
+		for (Source s : sources) {
+			if (s.getAmplitude() <= SILENT) {
+				continue;
+			}
+			if (loudest.size() < voices.length) {
+				loudest.add(s);
+			} else if (s.getAmplitude() > loudest.peek().getAmplitude()) {
+				loudest.poll();
+				loudest.add(s);
+			}
+		}
+
+		// sources that already have a voice keep it:
+		Hashtable<Source, Voice> kept = new Hashtable<>();
+		ArrayDeque<Source> waiting = new ArrayDeque<>();
+		for (Source s : loudest) {
+			Voice v = owners.remove(s);
+			if (v != null) {
+				kept.put(s, v);
+			} else {
+				waiting.add(s);
+			}
+		}
+		// the rest of the voices are free, including the ones that are stolen from
+		// sources that are no longer loud enough:
+		for (Voice v : voices) {
+			if (v.owner != null && kept.get(v.owner) != v) {
+				v.owner = null;
+			}
+		}
+		for (Voice v : voices) {
+			if (v.owner == null && !waiting.isEmpty()) {
+				v.owner = waiting.poll();
+				kept.put(v.owner, v);
+			}
+		}
+		owners = kept;
+
+		// send the changes to the oscillators:
+		for (Voice v : voices) {
+			if (v.owner != null) {
+				if (v.osc == null) {
+					v.osc = new SinOsc(p);
+				}
+				v.osc.freq((float) v.owner.getFrequency());
+				v.osc.amp((float) v.owner.getAmplitude());
+				if (!v.playing) {
+					v.osc.play();
+					v.playing = true;
+				}
+			} else if (v.playing) {
+				v.osc.stop();
+				v.playing = false;
+			}
+		}
+	}
+
+	/**
+	 * stops every voice.
+	 */
+	public void stopAll() {
+		for (Voice v : voices) {
+			if (v.playing) {
+				v.osc.stop();
+				v.playing = false;
+			}
+			v.owner = null;
+		}
+		owners.clear();
+	}
+
+}